@@ -0,0 +1,33 @@
+package dev.anarchy.ace.bench;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Command line of the harnesses: pairs of <code>--name value</code>.
+ */
+final class Args {
+
+	private final Map<String, String> values = new HashMap<>();
+
+	Args(String[] args) {
+		for (int i = 0; i < args.length; i += 2) {
+			if (!args[i].startsWith("--") || i + 1 == args.length)
+				throw new IllegalArgumentException("Expected --name value, got " + args[i]);
+			values.put(args[i].substring(2), args[i + 1]);
+		}
+	}
+
+	String get(String name, String defaultValue) {
+		return values.getOrDefault(name, defaultValue);
+	}
+
+	String[] list(String name, String defaultValue) {
+		return get(name, defaultValue).split(",");
+	}
+
+	int[] ints(String name, String defaultValue) {
+		return Arrays.stream(list(name, defaultValue)).mapToInt(Integer::parseInt).toArray();
+	}
+}
@@ -0,0 +1,29 @@
+package dev.anarchy.ace.bench;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Runs the benchmarks with the JMH command line, writing the results as
+ * JSON to <code>jmh-result.json</code> unless another result format or file
+ * is given.
+ */
+public final class BenchmarkMain {
+
+	private BenchmarkMain() {
+	}
+
+	public static void main(String[] args) throws Exception {
+		List<String> list = new ArrayList<>(Arrays.asList(args));
+		if (!list.contains("-rf")) {
+			list.add("-rf");
+			list.add("json");
+		}
+		if (!list.contains("-rff")) {
+			list.add("-rff");
+			list.add("jmh-result.json");
+		}
+		org.openjdk.jmh.Main.main(list.toArray(new String[0]));
+	}
+}
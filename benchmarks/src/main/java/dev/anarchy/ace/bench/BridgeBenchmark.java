@@ -0,0 +1,128 @@
+package dev.anarchy.ace.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import dev.anarchy.ace.AceEditor;
+import dev.anarchy.ace.Modes;
+import dev.anarchy.ace.model.EditSession;
+import dev.anarchy.ace.model.Range;
+import dev.anarchy.ace.model.SearchOptions;
+import dev.anarchy.ace.util.Commons;
+import netscape.javascript.JSObject;
+
+/**
+ * Measures the core paths between java and Ace on a loaded editor, for
+ * documents from 1 KB to 100 MB. Every operation is run on the FX thread,
+ * so results include one hand-off from the benchmark thread.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BridgeBenchmark {
+
+	// Lines read and markers added per operation
+	private static final int LINES = 100;
+	private static final int MARKERS = 100;
+
+	// Upcalls made per operation
+	private static final int UPCALLS = 1000;
+
+	@Param({ "1024", "1048576", "10485760", "104857600" })
+	public int size;
+
+	private AceEditor editor;
+	private String text;
+
+	@Setup(Level.Trial)
+	public void open() throws Exception {
+		text = Documents.java(size);
+		editor = FxHarness.openEditor(Modes.Java, text);
+	}
+
+	@TearDown(Level.Trial)
+	public void close() {
+		FxHarness.closeEditor(editor);
+	}
+
+	@Benchmark
+	public void setText() {
+		FxHarness.runFx(() -> editor.setText(text));
+	}
+
+	@Benchmark
+	public String getText() {
+		return FxHarness.onFx(editor::getText);
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(LINES)
+	public void getLinePerRow(Blackhole bh) {
+		FxHarness.runFx(() -> {
+			EditSession session = editor.getSession();
+			for (int row = 0; row < LINES; ++row)
+				bh.consume(session.getLine(row));
+		});
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(LINES)
+	@SuppressWarnings("deprecation")
+	public void getLinesBulk(Blackhole bh) {
+		FxHarness.runFx(() -> {
+			JSObject lines = editor.getSession().getLines(0, LINES - 1);
+			for (int row = 0; row < LINES; ++row)
+				bh.consume(lines.getSlot(row));
+		});
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(MARKERS)
+	@SuppressWarnings("deprecation")
+	public void addMarker() {
+		FxHarness.runFx(() -> {
+			EditSession session = editor.getSession();
+			int[] ids = new int[MARKERS];
+			for (int i = 0; i < MARKERS; ++i)
+				ids[i] = session.addMarker(new Range(i, 0, i, 10), "bench-marker", "text", false);
+			for (int id : ids)
+				session.removeMarker(id);
+		});
+	}
+
+	@Benchmark
+	public JSObject getObject() {
+		String range = new Range(1, 2, 3, 4).toString();
+		return FxHarness.onFx(() -> Commons.getObject(editor.getEditor().getModel(), range));
+	}
+
+	@Benchmark
+	public int findAll() {
+		return FxHarness.onFx(() -> editor.getEditor().findAll("return", new SearchOptions(), false));
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(UPCALLS)
+	public void upcall() {
+		FxHarness.runFx(() -> editor.executeScript("for (var i = 0; i < " + UPCALLS + "; i++)"
+				+ " editor.mAceEvent.onChangeScrollTop(0);"));
+	}
+}
@@ -0,0 +1,57 @@
+package dev.anarchy.ace.bench;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import dev.anarchy.ace.Modes;
+import dev.anarchy.ace.Themes;
+import dev.anarchy.ace.model.ModeData;
+import dev.anarchy.ace.model.ThemeData;
+
+/**
+ * Looks up the entries of {@link Modes} and {@link Themes} by field name,
+ * like "Java" or "Eclipse".
+ */
+final class Catalog {
+
+	private Catalog() {
+	}
+
+	static Map<String, ModeData> modes() {
+		return constants(Modes.class, ModeData.class);
+	}
+
+	static Map<String, ThemeData> themes() {
+		return constants(Themes.class, ThemeData.class);
+	}
+
+	static ModeData mode(String name) {
+		ModeData mode = modes().get(name);
+		if (mode == null)
+			throw new IllegalArgumentException("No such mode: " + name);
+		return mode;
+	}
+
+	static ThemeData theme(String name) {
+		ThemeData theme = themes().get(name);
+		if (theme == null)
+			throw new IllegalArgumentException("No such theme: " + name);
+		return theme;
+	}
+
+	private static <T> Map<String, T> constants(Class<?> holder, Class<T> type) {
+		Map<String, T> map = new LinkedHashMap<>();
+		for (Field field : holder.getFields()) {
+			if (Modifier.isStatic(field.getModifiers()) && type.isAssignableFrom(field.getType())) {
+				try {
+					map.put(field.getName(), type.cast(field.get(null)));
+				} catch (IllegalAccessException e) {
+					throw new IllegalStateException(e);
+				}
+			}
+		}
+		return map;
+	}
+}
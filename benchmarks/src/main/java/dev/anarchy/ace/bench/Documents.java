@@ -0,0 +1,36 @@
+package dev.anarchy.ace.bench;
+
+/**
+ * Generates documents of a given size for the benchmarks.
+ */
+public final class Documents {
+
+	private static final String JAVA = "public class Example {\n"
+			+ "\tprivate final int value;\n"
+			+ "\n"
+			+ "\tpublic Example(int value) {\n"
+			+ "\t\tthis.value = value; // keep it\n"
+			+ "\t}\n"
+			+ "\n"
+			+ "\tpublic int getValue() {\n"
+			+ "\t\treturn value * 2 + \"text\".length();\n"
+			+ "\t}\n"
+			+ "}\n";
+
+	private Documents() {
+	}
+
+	/**
+	 * Builds a document of Java like code.
+	 *
+	 * @param chars Size of the document, in characters.
+	 * @return the document.
+	 */
+	public static String java(int chars) {
+		StringBuilder sb = new StringBuilder(chars);
+		while (sb.length() + JAVA.length() <= chars)
+			sb.append(JAVA);
+		sb.append(JAVA, 0, chars - sb.length());
+		return sb.toString();
+	}
+}
@@ -0,0 +1,174 @@
+package dev.anarchy.ace.bench;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import dev.anarchy.ace.AceEditor;
+import dev.anarchy.ace.AceEvents;
+import dev.anarchy.ace.model.ModeData;
+import dev.anarchy.ace.model.ThemeData;
+import javafx.application.Platform;
+import javafx.event.Event;
+import javafx.event.EventType;
+import javafx.scene.Node;
+import javafx.scene.Scene;
+import javafx.scene.web.WebView;
+import javafx.stage.Stage;
+import javafx.stage.StageStyle;
+
+/**
+ * Boots JavaFX for the benchmarks and opens editors on it. <br/>
+ * With Monocle on the class path (the <code>headless</code> profile) the
+ * toolkit runs headless; otherwise editors are shown on undecorated stages
+ * placed off screen, so they render and are not paused as hidden.
+ */
+public final class FxHarness {
+
+	private static final long LOAD_TIMEOUT_SECONDS = 60;
+
+	private static boolean started;
+
+	private FxHarness() {
+	}
+
+	/**
+	 * Starts the JavaFX toolkit, once per JVM.
+	 */
+	public static synchronized void startup() throws InterruptedException {
+		if (started)
+			return;
+		if (System.getProperty("glass.platform") == null && isMonocleAvailable()) {
+			System.setProperty("glass.platform", "Monocle");
+			System.setProperty("monocle.platform", "Headless");
+			System.setProperty("prism.order", "sw");
+		}
+		CountDownLatch latch = new CountDownLatch(1);
+		Platform.startup(latch::countDown);
+		Platform.setImplicitExit(false);
+		latch.await();
+		started = true;
+	}
+
+	private static boolean isMonocleAvailable() {
+		try {
+			Class.forName("com.sun.glass.ui.monocle.MonoclePlatformFactory");
+			return true;
+		} catch (ClassNotFoundException e) {
+			return false;
+		}
+	}
+
+	/**
+	 * Runs work on the FX thread and waits for its result.
+	 */
+	public static <T> T onFx(Callable<T> work) {
+		if (Platform.isFxApplicationThread()) {
+			try {
+				return work.call();
+			} catch (Exception e) {
+				throw new IllegalStateException(e);
+			}
+		}
+		CompletableFuture<T> future = new CompletableFuture<>();
+		Platform.runLater(() -> {
+			try {
+				future.complete(work.call());
+			} catch (Throwable e) {
+				future.completeExceptionally(e);
+			}
+		});
+		try {
+			return future.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException(e);
+		} catch (ExecutionException e) {
+			throw new IllegalStateException(e.getCause());
+		}
+	}
+
+	/**
+	 * Runs work on the FX thread and waits for it to finish.
+	 */
+	public static void runFx(Runnable work) {
+		onFx(() -> {
+			work.run();
+			return null;
+		});
+	}
+
+	/**
+	 * Opens an editor on its own stage and waits for it to load.
+	 *
+	 * @param mode Language mode, or null for plain text.
+	 * @param text Initial content.
+	 * @return the loaded editor.
+	 */
+	public static AceEditor openEditor(ModeData mode, String text) throws InterruptedException, TimeoutException {
+		return openEditor(mode, null, text, AceEvents.onLoadEvent);
+	}
+
+	/**
+	 * Opens an editor on its own stage and waits for an event of it, like
+	 * {@link AceEvents#onLoadTimingsEvent} to also wait for its theme and mode.
+	 *
+	 * @param mode Language mode, or null for plain text.
+	 * @param theme Theme, or null for the default one.
+	 * @param text Initial content.
+	 * @param loadEvent Event to wait for.
+	 * @return the loaded editor.
+	 */
+	public static AceEditor openEditor(ModeData mode, ThemeData theme, String text,
+			EventType<? extends Event> loadEvent) throws InterruptedException, TimeoutException {
+		startup();
+		CountDownLatch loaded = new CountDownLatch(1);
+		AceEditor editor = onFx(() -> {
+			AceEditor e = new AceEditor();
+			e.addEventHandler(loadEvent, event -> loaded.countDown());
+			if (mode != null)
+				e.setMode(mode);
+			if (theme != null)
+				e.setTheme(theme);
+			e.setText(text);
+
+			Stage stage = new Stage(StageStyle.UNDECORATED);
+			stage.setScene(new Scene(e, 800, 600));
+			stage.setX(-10000);
+			stage.setY(-10000);
+			stage.show();
+			return e;
+		});
+		if (!loaded.await(LOAD_TIMEOUT_SECONDS, TimeUnit.SECONDS))
+			throw new TimeoutException("Editor did not load in " + LOAD_TIMEOUT_SECONDS + "s");
+		return editor;
+	}
+
+	/**
+	 * Disposes an editor opened by {@link #openEditor(ModeData, String)} and
+	 * closes its stage.
+	 */
+	public static void closeEditor(AceEditor editor) {
+		if (editor == null)
+			return;
+		runFx(() -> {
+			Stage stage = (Stage) editor.getScene().getWindow();
+			editor.dispose();
+			stage.close();
+		});
+	}
+
+	/**
+	 * @return the web view showing the editor, to send it input events.
+	 */
+	public static WebView webViewOf(AceEditor editor) {
+		for (Node child : editor.getChildrenUnmodifiable()) {
+			if (child instanceof WebView)
+				return (WebView) child;
+		}
+		throw new IllegalStateException("Editor has no web view");
+	}
+}
@@ -0,0 +1,88 @@
+package dev.anarchy.ace.bench;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes the results of the harnesses that do not run on JMH as JSON.
+ * Values may be strings, numbers, booleans, lists and maps with string keys.
+ */
+final class JsonWriter {
+
+	private JsonWriter() {
+	}
+
+	static void write(Path file, Object value) throws IOException {
+		StringBuilder sb = new StringBuilder();
+		append(sb, value, "");
+		sb.append('\n');
+		Files.write(file, sb.toString().getBytes(StandardCharsets.UTF_8));
+	}
+
+	private static void append(StringBuilder sb, Object value, String indent) {
+		if (value == null) {
+			sb.append("null");
+		} else if (value instanceof Number || value instanceof Boolean) {
+			sb.append(value);
+		} else if (value instanceof Map) {
+			String inner = indent + "  ";
+			sb.append("{");
+			Iterator<? extends Map.Entry<?, ?>> it = ((Map<?, ?>) value).entrySet().iterator();
+			while (it.hasNext()) {
+				Map.Entry<?, ?> entry = it.next();
+				sb.append('\n').append(inner);
+				appendString(sb, entry.getKey().toString());
+				sb.append(": ");
+				append(sb, entry.getValue(), inner);
+				if (it.hasNext())
+					sb.append(',');
+			}
+			sb.append('\n').append(indent).append('}');
+		} else if (value instanceof List) {
+			String inner = indent + "  ";
+			sb.append("[");
+			Iterator<?> it = ((List<?>) value).iterator();
+			while (it.hasNext()) {
+				sb.append('\n').append(inner);
+				append(sb, it.next(), inner);
+				if (it.hasNext())
+					sb.append(',');
+			}
+			sb.append('\n').append(indent).append(']');
+		} else {
+			appendString(sb, value.toString());
+		}
+	}
+
+	private static void appendString(StringBuilder sb, String s) {
+		sb.append('"');
+		for (int i = 0; i < s.length(); ++i) {
+			char c = s.charAt(i);
+			switch (c) {
+			case '"':
+				sb.append("\\\"");
+				break;
+			case '\\':
+				sb.append("\\\\");
+				break;
+			case '\n':
+				sb.append("\\n");
+				break;
+			case '\t':
+				sb.append("\\t");
+				break;
+			default:
+				if (c < 0x20)
+					sb.append(String.format("\\u%04x", (int) c));
+				else
+					sb.append(c);
+			}
+		}
+		sb.append('"');
+	}
+}
@@ -0,0 +1,255 @@
+package dev.anarchy.ace.bench;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import dev.anarchy.ace.AceEditor;
+import dev.anarchy.ace.AceEvents;
+import javafx.event.Event;
+import javafx.event.EventType;
+import javafx.scene.input.Clipboard;
+import javafx.scene.input.ClipboardContent;
+import javafx.scene.input.KeyCode;
+import javafx.scene.input.KeyEvent;
+import javafx.scene.web.WebView;
+import netscape.javascript.JSObject;
+
+/**
+ * Measures the latency of typing, pasting and undoing, from the input to the
+ * java change event and from the input to the next render of the editor.
+ * Typing and undo are sent as synthetic key events to the web view of the
+ * editor; paste goes through {@link AceEditor#paste()}, as the page can not
+ * read the system clipboard from a synthetic shortcut. <br/>
+ * Runs every combination of document size, mode and option set, and writes
+ * p50/p99/p999 latencies as JSON. Arguments, all optional:
+ *
+ * <pre>
+ * --sizes 1024,102400,1048576   document sizes in characters
+ * --modes Text,Java,JavaScript  fields of Modes
+ * --options default,minimal     option sets: default, minimal, wrap, noWorker
+ * --samples 500                 measured inputs per operation
+ * --warmup 50                   inputs sent before measuring
+ * --out typing-latency.json     result file
+ * </pre>
+ */
+public final class LatencyHarness {
+
+	enum Operation {
+		TYPING, PASTE, UNDO
+	}
+
+	private static final Map<String, Map<String, Object>> OPTION_SETS = new LinkedHashMap<>();
+	static {
+		OPTION_SETS.put("default", Collections.emptyMap());
+
+		Map<String, Object> minimal = new LinkedHashMap<>();
+		minimal.put("showGutter", false);
+		minimal.put("highlightActiveLine", false);
+		minimal.put("showPrintMargin", false);
+		minimal.put("displayIndentGuides", false);
+		OPTION_SETS.put("minimal", minimal);
+
+		OPTION_SETS.put("wrap", Collections.singletonMap("wrap", true));
+		OPTION_SETS.put("noWorker", Collections.singletonMap("useWorker", false));
+	}
+
+	private static final String PASTED = "int pasted = 42;";
+	private static final long TIMEOUT_MILLIS = 5000;
+
+	// Pause between inputs, so they are not rendered together
+	private static final long PAUSE_MILLIS = 5;
+
+	private LatencyHarness() {
+	}
+
+	public static void main(String[] args) throws Exception {
+		Args options = new Args(args);
+		int[] sizes = options.ints("sizes", "1024,102400,1048576");
+		String[] modes = options.list("modes", "Text,Java,JavaScript");
+		String[] optionSets = options.list("options", "default,minimal");
+		int samples = Integer.parseInt(options.get("samples", "500"));
+		int warmup = Integer.parseInt(options.get("warmup", "50"));
+		Path out = Paths.get(options.get("out", "typing-latency.json"));
+
+		FxHarness.startup();
+		List<Object> results = new ArrayList<>();
+		for (int size : sizes) {
+			for (String mode : modes) {
+				for (String optionSet : optionSets) {
+					Map<String, Object> editorOptions = OPTION_SETS.get(optionSet);
+					if (editorOptions == null)
+						throw new IllegalArgumentException("No such option set: " + optionSet);
+
+					AceEditor editor = FxHarness.openEditor(Catalog.mode(mode), Documents.java(size));
+					try {
+						Probe probe = new Probe(editor, editorOptions);
+						for (Operation operation : Operation.values()) {
+							Map<String, Object> result = new LinkedHashMap<>();
+							result.put("operation", operation.name().toLowerCase());
+							result.put("size", size);
+							result.put("mode", mode);
+							result.put("options", optionSet);
+							result.putAll(probe.measure(operation, warmup, samples));
+							results.add(result);
+							System.out.println(result);
+						}
+					} finally {
+						FxHarness.closeEditor(editor);
+					}
+				}
+			}
+		}
+
+		Map<String, Object> report = new LinkedHashMap<>();
+		report.put("samples", samples);
+		report.put("warmup", warmup);
+		report.put("results", results);
+		JsonWriter.write(out, report);
+		System.out.println("Results written to " + out.toAbsolutePath());
+		System.exit(0);
+	}
+
+	/**
+	 * Sends inputs to an editor and times the change event and render that
+	 * follow. Called back by the page on every render.
+	 */
+	public static final class Probe {
+		private final AceEditor editor;
+		private final WebView webView;
+
+		// Start of the input being measured, 0 between inputs
+		private volatile long start;
+		private volatile long eventNanos;
+		private volatile long renderNanos;
+		private volatile CountDownLatch done = new CountDownLatch(0);
+
+		Probe(AceEditor editor, Map<String, Object> options) {
+			this.editor = editor;
+			this.webView = FxHarness.webViewOf(editor);
+			FxHarness.runFx(() -> {
+				for (Map.Entry<String, Object> option : options.entrySet())
+					editor.setOption(option.getKey(), option.getValue());
+				((JSObject) editor.executeScript("window")).setMember("acefxProbe", this);
+				editor.executeScript("editor.renderer.on('afterRender', function() { acefxProbe.rendered(); });");
+				editor.addEventHandler(AceEvents.onChangeEvent, e -> changed());
+
+				int middle = editor.getSession().getLength() / 2;
+				editor.getEditor().gotoLine(middle + 1, 0, false);
+				webView.requestFocus();
+				editor.getEditor().focus();
+
+				ClipboardContent content = new ClipboardContent();
+				content.putString(PASTED);
+				Clipboard.getSystemClipboard().setContent(content);
+			});
+		}
+
+		private void changed() {
+			if (start != 0 && eventNanos == 0) {
+				eventNanos = System.nanoTime() - start;
+				done.countDown();
+			}
+		}
+
+		public void rendered() {
+			if (start != 0 && eventNanos != 0 && renderNanos == 0) {
+				renderNanos = System.nanoTime() - start;
+				done.countDown();
+			}
+		}
+
+		Map<String, Object> measure(Operation operation, int warmup, int samples) throws InterruptedException {
+			long[] events = new long[samples];
+			long[] renders = new long[samples];
+			int measured = 0;
+			int timeouts = 0;
+			for (int i = 0; i < warmup + samples; ++i) {
+				if (operation == Operation.UNDO) {
+					// Something to undo
+					FxHarness.runFx(() -> editor.getEditor().insert("x"));
+					Thread.sleep(PAUSE_MILLIS);
+				}
+
+				eventNanos = 0;
+				renderNanos = 0;
+				done = new CountDownLatch(2);
+				FxHarness.runFx(() -> {
+					start = System.nanoTime();
+					send(operation);
+				});
+				boolean completed = done.await(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+				start = 0;
+				if (i >= warmup) {
+					if (completed) {
+						events[measured] = eventNanos;
+						renders[measured] = renderNanos;
+						measured++;
+					} else {
+						timeouts++;
+					}
+				}
+				Thread.sleep(PAUSE_MILLIS);
+			}
+
+			Map<String, Object> result = new LinkedHashMap<>();
+			result.put("samples", measured);
+			result.put("timeouts", timeouts);
+			result.put("eventMicros", percentiles(Arrays.copyOf(events, measured)));
+			result.put("renderMicros", percentiles(Arrays.copyOf(renders, measured)));
+			return result;
+		}
+
+		private void send(Operation operation) {
+			switch (operation) {
+			case TYPING:
+				key(KeyEvent.KEY_PRESSED, KeyCode.A, "", false);
+				key(KeyEvent.KEY_TYPED, KeyCode.UNDEFINED, "a", false);
+				key(KeyEvent.KEY_RELEASED, KeyCode.A, "", false);
+				break;
+			case PASTE:
+				editor.paste();
+				break;
+			case UNDO:
+				key(KeyEvent.KEY_PRESSED, KeyCode.Z, "", true);
+				key(KeyEvent.KEY_RELEASED, KeyCode.Z, "", true);
+				break;
+			}
+		}
+
+		private void key(EventType<KeyEvent> type, KeyCode code, String character, boolean shortcut) {
+			boolean mac = System.getProperty("os.name", "").startsWith("Mac");
+			String c = type == KeyEvent.KEY_TYPED ? character : KeyEvent.CHAR_UNDEFINED;
+			Event.fireEvent(webView, new KeyEvent(type, c, character, code, false, shortcut && !mac, false,
+					shortcut && mac));
+		}
+	}
+
+	private static Map<String, Object> percentiles(long[] nanos) {
+		Map<String, Object> map = new LinkedHashMap<>();
+		if (nanos.length == 0)
+			return map;
+		Arrays.sort(nanos);
+		long total = 0;
+		for (long n : nanos)
+			total += n;
+		map.put("p50", percentile(nanos, 50) / 1000);
+		map.put("p99", percentile(nanos, 99) / 1000);
+		map.put("p999", percentile(nanos, 99.9) / 1000);
+		map.put("max", nanos[nanos.length - 1] / 1000);
+		map.put("mean", total / nanos.length / 1000);
+		return map;
+	}
+
+	private static long percentile(long[] sorted, double percentile) {
+		int rank = (int) Math.ceil(sorted.length * percentile / 100);
+		return sorted[Math.max(0, Math.min(rank, sorted.length) - 1)];
+	}
+}
@@ -0,0 +1,138 @@
+package dev.anarchy.ace.bench;
+
+import java.lang.ref.WeakReference;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import dev.anarchy.ace.AceEditor;
+
+/**
+ * Checks that disposed editors release their memory: editors are opened and
+ * closed over and over, a few at a time, and the Java heap retained after
+ * garbage collection is compared with the heap before the first one. Every
+ * closed editor is also followed with a weak reference, so editors that are
+ * still reachable are counted exactly. The resident set of the process is
+ * compared too, as the memory of the web views lies outside the Java heap. <br/>
+ * The harness exits with status 1 when an editor is still reachable, or the
+ * retained heap or the resident set grew past the allowed limit. The resident
+ * set is not checked where it can not be read. Arguments, all optional:
+ *
+ * <pre>
+ * --editors 1000               editors opened and closed in total
+ * --open 10                    editors open at the same time
+ * --size 10240                 document size in characters
+ * --mode Java                  field of Modes
+ * --samples 10                 heap samples taken along the way
+ * --max-growth 33554432        allowed retained heap growth, in bytes
+ * --max-rss-growth 268435456   allowed resident set growth, in bytes
+ * --out editor-leaks.json      result file
+ * </pre>
+ */
+public final class LeakHarness {
+
+	private LeakHarness() {
+	}
+
+	public static void main(String[] args) throws Exception {
+		Args options = new Args(args);
+		int editors = Integer.parseInt(options.get("editors", "1000"));
+		int open = Math.max(1, Integer.parseInt(options.get("open", "10")));
+		int size = Integer.parseInt(options.get("size", "10240"));
+		String mode = options.get("mode", "Java");
+		int samples = Math.max(1, Integer.parseInt(options.get("samples", "10")));
+		long maxGrowth = Long.parseLong(options.get("max-growth", "33554432"));
+		long maxRssGrowth = Long.parseLong(options.get("max-rss-growth", "268435456"));
+		Path out = Paths.get(options.get("out", "editor-leaks.json"));
+
+		FxHarness.startup();
+		String text = Documents.java(size);
+
+		// The first round loads the classes, scripts and caches kept for good
+		cycle(open, mode, text, new ArrayList<>());
+		long heapBefore = settledHeap();
+		long rssBefore = MemoryHarness.residentSet();
+
+		List<WeakReference<AceEditor>> closed = new ArrayList<>();
+		List<Object> heap = new ArrayList<>();
+		int sampleEvery = Math.max(1, editors / samples);
+		int nextSample = sampleEvery;
+		while (closed.size() < editors) {
+			cycle(Math.min(open, editors - closed.size()), mode, text, closed);
+			if (closed.size() >= nextSample || closed.size() == editors) {
+				Map<String, Object> sample = new LinkedHashMap<>();
+				sample.put("editors", closed.size());
+				sample.put("retainedBytes", settledHeap() - heapBefore);
+				sample.put("reachableEditors", reachable(closed));
+				heap.add(sample);
+				System.out.println(sample);
+				nextSample += sampleEvery;
+			}
+		}
+
+		long growth = settledHeap() - heapBefore;
+		long rss = rssBefore < 0 ? -1 : MemoryHarness.residentSet() - rssBefore;
+		int reachable = reachable(closed);
+		boolean leak = reachable > 0 || growth > maxGrowth || rss > maxRssGrowth;
+
+		Map<String, Object> report = new LinkedHashMap<>();
+		report.put("editors", editors);
+		report.put("open", open);
+		report.put("size", size);
+		report.put("mode", mode);
+		report.put("retainedBytes", growth);
+		report.put("retainedBytesPerEditor", growth / editors);
+		report.put("rssGrowthBytes", rss);
+		report.put("reachableEditors", reachable);
+		report.put("maxGrowthBytes", maxGrowth);
+		report.put("maxRssGrowthBytes", maxRssGrowth);
+		report.put("leak", leak);
+		report.put("samples", heap);
+		JsonWriter.write(out, report);
+		System.out.println("Results written to " + out.toAbsolutePath());
+		if (leak)
+			System.out.println("LEAK: " + reachable + " editors still reachable, " + growth + " bytes retained, "
+					+ (rss < 0 ? "resident set unknown" : rss + " bytes resident set growth"));
+		System.exit(leak ? 1 : 0);
+	}
+
+	/**
+	 * Opens some editors, then closes them all, remembering them weakly.
+	 */
+	private static void cycle(int count, String mode, String text, List<WeakReference<AceEditor>> closed)
+			throws Exception {
+		List<AceEditor> editors = new ArrayList<>();
+		try {
+			for (int i = 0; i < count; ++i)
+				editors.add(FxHarness.openEditor(Catalog.mode(mode), text));
+		} finally {
+			for (AceEditor editor : editors) {
+				FxHarness.closeEditor(editor);
+				closed.add(new WeakReference<>(editor));
+			}
+		}
+	}
+
+	/**
+	 * @return used heap once pending FX work has run and garbage is collected.
+	 */
+	private static long settledHeap() throws InterruptedException {
+		// Let the pulse that follows the closed stages run first
+		FxHarness.runFx(() -> {
+		});
+		Thread.sleep(100);
+		return MemoryHarness.usedHeap();
+	}
+
+	private static int reachable(List<WeakReference<AceEditor>> editors) {
+		int count = 0;
+		for (WeakReference<AceEditor> editor : editors) {
+			if (editor.get() != null)
+				count++;
+		}
+		return count;
+	}
+}
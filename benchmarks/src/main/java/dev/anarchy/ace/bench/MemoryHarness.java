@@ -0,0 +1,123 @@
+package dev.anarchy.ace.bench;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import dev.anarchy.ace.AceEditor;
+import dev.anarchy.ace.model.MemoryUsage;
+
+/**
+ * Measures the memory footprint of editors: N editors are opened with the
+ * same document size and mode, and the growth of the Java heap, of the
+ * process resident set (which holds the WebKit native memory) and the JS
+ * heap estimated by {@link AceEditor#estimateMemoryUsage()} are divided by
+ * N. The resident set is read from <code>/proc/self/status</code> and is
+ * reported as -1 where that is not available. <br/>
+ * Arguments, all optional:
+ *
+ * <pre>
+ * --counts 1,5,10               editors opened together
+ * --sizes 10240,1048576         document sizes in characters
+ * --modes Text,Java             fields of Modes
+ * --settle 2000                 wait for tokenizing to finish, in milliseconds
+ * --out memory-footprint.json   result file
+ * </pre>
+ */
+public final class MemoryHarness {
+
+	private static final Path PROC_STATUS = Paths.get("/proc/self/status");
+
+	private MemoryHarness() {
+	}
+
+	public static void main(String[] args) throws Exception {
+		Args options = new Args(args);
+		int[] counts = options.ints("counts", "1,5,10");
+		int[] sizes = options.ints("sizes", "10240,1048576");
+		String[] modes = options.list("modes", "Text,Java");
+		long settle = Long.parseLong(options.get("settle", "2000"));
+		Path out = Paths.get(options.get("out", "memory-footprint.json"));
+
+		FxHarness.startup();
+		List<Object> results = new ArrayList<>();
+		for (int size : sizes) {
+			for (String mode : modes) {
+				String text = Documents.java(size);
+				for (int count : counts) {
+					long heapBefore = usedHeap();
+					long rssBefore = residentSet();
+
+					List<AceEditor> editors = new ArrayList<>();
+					try {
+						for (int i = 0; i < count; ++i)
+							editors.add(FxHarness.openEditor(Catalog.mode(mode), text));
+						Thread.sleep(settle);
+
+						long jsBytes = 0;
+						long tokens = 0;
+						for (AceEditor editor : editors) {
+							MemoryUsage usage = FxHarness.onFx(editor::estimateMemoryUsage);
+							jsBytes += usage.getTotalBytes();
+							tokens += usage.getTokenCount();
+						}
+						long heap = usedHeap() - heapBefore;
+						long rss = rssBefore < 0 ? -1 : residentSet() - rssBefore;
+
+						Map<String, Object> result = new LinkedHashMap<>();
+						result.put("size", size);
+						result.put("mode", mode);
+						result.put("editors", count);
+						result.put("javaHeapBytesPerEditor", heap / count);
+						result.put("rssBytesPerEditor", rss < 0 ? -1 : rss / count);
+						result.put("jsEstimatedBytesPerEditor", jsBytes / count);
+						result.put("tokensPerEditor", tokens / count);
+						results.add(result);
+						System.out.println(result);
+					} finally {
+						for (AceEditor editor : editors)
+							FxHarness.closeEditor(editor);
+					}
+				}
+			}
+		}
+
+		Map<String, Object> report = new LinkedHashMap<>();
+		report.put("results", results);
+		JsonWriter.write(out, report);
+		System.out.println("Results written to " + out.toAbsolutePath());
+		System.exit(0);
+	}
+
+	static long usedHeap() throws InterruptedException {
+		for (int i = 0; i < 3; ++i) {
+			System.gc();
+			Thread.sleep(100);
+		}
+		return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+	}
+
+	/**
+	 * @return resident set size of the process in bytes, or -1 if not known.
+	 */
+	static long residentSet() {
+		if (!Files.isReadable(PROC_STATUS))
+			return -1;
+		try {
+			for (String line : Files.readAllLines(PROC_STATUS, StandardCharsets.UTF_8)) {
+				if (line.startsWith("VmRSS:"))
+					return Long.parseLong(line.replaceAll("[^0-9]", "")) * 1024;
+			}
+		} catch (IOException | NumberFormatException e) {
+			// Fall through
+		}
+		return -1;
+	}
+}
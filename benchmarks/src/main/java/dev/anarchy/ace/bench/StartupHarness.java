@@ -0,0 +1,179 @@
+package dev.anarchy.ace.bench;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import dev.anarchy.ace.AceEditor;
+import dev.anarchy.ace.AceEvents;
+import dev.anarchy.ace.LoadTimings;
+import dev.anarchy.ace.Modes;
+import dev.anarchy.ace.Themes;
+import dev.anarchy.ace.model.ModeData;
+import dev.anarchy.ace.model.ThemeData;
+
+/**
+ * Measures the start up time of editors, broken down by the phases of
+ * {@link LoadTimings}, for every mode (with the Eclipse theme) and every
+ * theme (with plain text). <br/>
+ * Cold start is the first editor of a fresh JVM, so each one is measured in a
+ * forked JVM; warm start is the median of the editors opened after a first
+ * one in the same JVM. Arguments, all optional:
+ *
+ * <pre>
+ * --modes Java,Python           fields of Modes, all by default, none with ""
+ * --themes Eclipse,Monokai      fields of Themes, all by default, none with ""
+ * --size 10240                  document size in characters
+ * --warm 5                      editors measured for warm start
+ * --fork true                   measure cold start in forked JVMs
+ * --out startup-timings.json    result file
+ * </pre>
+ */
+public final class StartupHarness {
+
+	// Prefix of the line a forked JVM reports its timings on
+	private static final String CHILD_OUTPUT = "TIMINGS ";
+
+	private StartupHarness() {
+	}
+
+	public static void main(String[] args) throws Exception {
+		Args options = new Args(args);
+		int size = Integer.parseInt(options.get("size", "10240"));
+		String child = options.get("child", null);
+		if (child != null) {
+			runChild(child, size);
+			return;
+		}
+
+		String[] modes = names(options.list("modes", String.join(",", Catalog.modes().keySet())));
+		String[] themes = names(options.list("themes", String.join(",", Catalog.themes().keySet())));
+		int warm = Integer.parseInt(options.get("warm", "5"));
+		boolean fork = Boolean.parseBoolean(options.get("fork", "true"));
+		Path out = Paths.get(options.get("out", "startup-timings.json"));
+
+		List<String> entries = new ArrayList<>();
+		for (String mode : modes)
+			entries.add("mode:" + mode);
+		for (String theme : themes)
+			entries.add("theme:" + theme);
+
+		FxHarness.startup();
+		String text = Documents.java(size);
+		List<Object> results = new ArrayList<>();
+		for (String entry : entries) {
+			Map<String, Object> result = new LinkedHashMap<>();
+			result.put("mode", modeName(entry) == null ? "Text" : modeName(entry));
+			result.put("theme", themeName(entry) == null ? "Eclipse" : themeName(entry));
+			if (fork)
+				result.put("cold", forkChild(entry, size));
+
+			// The first one warms the JVM and web engine up
+			open(entry, text);
+			List<Map<String, Double>> runs = new ArrayList<>();
+			for (int i = 0; i < warm; ++i)
+				runs.add(open(entry, text));
+			result.put("warm", median(runs));
+			results.add(result);
+			System.out.println(result);
+		}
+
+		Map<String, Object> report = new LinkedHashMap<>();
+		report.put("size", size);
+		report.put("warmRuns", warm);
+		report.put("results", results);
+		JsonWriter.write(out, report);
+		System.out.println("Results written to " + out.toAbsolutePath());
+		System.exit(0);
+	}
+
+	/**
+	 * Opens one editor in a fresh JVM and prints its timings.
+	 */
+	private static void runChild(String entry, int size) throws Exception {
+		Map<String, Double> timings = open(entry, Documents.java(size));
+		StringBuilder sb = new StringBuilder(CHILD_OUTPUT);
+		for (Map.Entry<String, Double> phase : timings.entrySet())
+			sb.append(phase.getKey()).append('=').append(phase.getValue()).append(';');
+		System.out.println(sb);
+		System.exit(0);
+	}
+
+	private static Map<String, Double> forkChild(String entry, int size) throws Exception {
+		String java = Paths.get(System.getProperty("java.home"), "bin", "java").toString();
+		List<String> command = new ArrayList<>(Arrays.asList(java, "-cp", System.getProperty("java.class.path")));
+		for (String property : new String[] { "glass.platform", "monocle.platform", "prism.order" }) {
+			if (System.getProperty(property) != null)
+				command.add("-D" + property + "=" + System.getProperty(property));
+		}
+		command.addAll(Arrays.asList(StartupHarness.class.getName(), "--child", entry, "--size",
+				Integer.toString(size)));
+
+		Process process = new ProcessBuilder(command).redirectError(ProcessBuilder.Redirect.INHERIT).start();
+		Map<String, Double> timings = new LinkedHashMap<>();
+		try (BufferedReader reader = new BufferedReader(
+				new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
+			String line;
+			while ((line = reader.readLine()) != null) {
+				if (!line.startsWith(CHILD_OUTPUT))
+					continue;
+				for (String phase : line.substring(CHILD_OUTPUT.length()).split(";")) {
+					int split = phase.indexOf('=');
+					if (split > 0)
+						timings.put(phase.substring(0, split), Double.parseDouble(phase.substring(split + 1)));
+				}
+			}
+		}
+		if (process.waitFor() != 0 || timings.isEmpty())
+			throw new IllegalStateException("Cold start of " + entry + " failed");
+		return timings;
+	}
+
+	/**
+	 * Opens an editor for an entry, waits for its theme and mode and closes it.
+	 *
+	 * @return its load timings.
+	 */
+	private static Map<String, Double> open(String entry, String text) throws Exception {
+		String mode = modeName(entry);
+		String theme = themeName(entry);
+		ModeData modeData = mode == null ? Modes.Text : Catalog.mode(mode);
+		ThemeData themeData = theme == null ? Themes.Eclipse : Catalog.theme(theme);
+		AceEditor editor = FxHarness.openEditor(modeData, themeData, text, AceEvents.onLoadTimingsEvent);
+		try {
+			return FxHarness.onFx(() -> editor.getLoadTimings().getPhases());
+		} finally {
+			FxHarness.closeEditor(editor);
+		}
+	}
+
+	private static Map<String, Object> median(List<Map<String, Double>> runs) {
+		Map<String, Object> median = new LinkedHashMap<>();
+		if (runs.isEmpty())
+			return median;
+		for (String phase : runs.get(0).keySet()) {
+			double[] values = runs.stream().mapToDouble(run -> run.getOrDefault(phase, 0d)).sorted().toArray();
+			median.put(phase, values[(values.length - 1) / 2]);
+		}
+		return median;
+	}
+
+	private static String[] names(String[] list) {
+		return Arrays.stream(list).filter(name -> !name.isEmpty()).toArray(String[]::new);
+	}
+
+	private static String modeName(String entry) {
+		return entry.startsWith("mode:") ? entry.substring("mode:".length()) : null;
+	}
+
+	private static String themeName(String entry) {
+		return entry.startsWith("theme:") ? entry.substring("theme:".length()) : null;
+	}
+}
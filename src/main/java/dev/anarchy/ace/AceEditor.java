@@ -1,18 +1,42 @@
 package dev.anarchy.ace;
 
+import java.lang.ref.SoftReference;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
 
+import dev.anarchy.ace.jfr.AceJfr;
 import dev.anarchy.ace.model.Command;
+import dev.anarchy.ace.model.Delta;
+import dev.anarchy.ace.model.EditTransaction;
 import dev.anarchy.ace.model.EditSession;
 import dev.anarchy.ace.model.Editor;
+import dev.anarchy.ace.model.LineIndex;
+import dev.anarchy.ace.model.MemoryUsage;
 import dev.anarchy.ace.model.ModeData;
+import dev.anarchy.ace.model.RangeList;
+import dev.anarchy.ace.model.TextEdit;
 import dev.anarchy.ace.model.ThemeData;
 import dev.anarchy.ace.model.UndoManager;
+import dev.anarchy.ace.util.BridgeMetrics;
 import dev.anarchy.ace.util.Commons;
+import dev.anarchy.ace.util.LineDiff;
+import dev.anarchy.ace.util.ScriptProfile;
 import javafx.application.Platform;
+import javafx.beans.property.BooleanProperty;
+import javafx.beans.property.SimpleBooleanProperty;
 import javafx.beans.value.ChangeListener;
 import javafx.beans.value.ObservableValue;
 import javafx.concurrent.Worker;
@@ -23,6 +47,10 @@ import javafx.scene.control.Skin;
 import javafx.scene.control.SkinBase;
 import javafx.scene.input.Clipboard;
 import javafx.scene.input.ClipboardContent;
+import javafx.scene.input.KeyCode;
+import javafx.scene.input.KeyCodeCombination;
+import javafx.scene.input.KeyCombination;
+import javafx.scene.input.KeyEvent;
 import javafx.scene.web.WebEngine;
 import javafx.scene.web.WebView;
 import netscape.javascript.JSException;
@@ -47,16 +75,88 @@ public final class AceEditor extends Control {
 	private WebEngine mWebEngine;
 
 	// cached vars
-	private String cachedText;
 	private ModeData cachedModeData;
 	private ThemeData cachedTheme;
 
+	// Offset <-> position index, built on first use and kept up to date by change events
+	private LineIndex lineIndex;
+
+	// Incremented for every change of the document
+	private long documentVersion;
+
+	// Content set before the page is loaded, dropped once it is applied
+	private String pendingText;
+
+	// Last content read from the page, valid while the document is at textVersion
+	private String cachedText;
+	private SoftReference<String> softCachedText;
+	private long textVersion;
+
+	// Whether the cached content may be reclaimed under memory pressure
+	private boolean softTextCache;
+
+	// Documents open in this editor, created on first use
+	private SessionManager sessionManager;
+
+	// Document shared with other editors, if any
+	private SharedDocument sharedDocument;
+
+	// Set while changes must not be passed on to the shared document
+	private boolean suppressSharing;
+
 	// Indices weather the web view is loaded
 	private boolean isWebViewReady;
+
+	// Set once the editor has been disposed
+	private boolean disposed;
+
+	// Calls made between java and the page of this editor
+	private static final AtomicInteger editorCount = new AtomicInteger();
+	private final BridgeMetrics metrics = new BridgeMetrics("editor-" + editorCount.incrementAndGet());
+
+	// Flight Recorder event of the page being loaded
+	private Object loadEvent;
+
+	// Phases of the current load, and when it and its page load started
+	private LoadTimings loadTimings;
+	private long loadStart;
+	private long pageStart;
+
+	// Timings measured inside the page, and how often they are sent; 0 when not profiling
+	private final ScriptProfile scriptProfile = new ScriptProfile();
+	private int scriptProfileInterval;
+
+	// Shows the performance display over the editor
+	private final BooleanProperty performanceHud = new SimpleBooleanProperty(this, "performanceHud");
+
+	// Set while the performance display counts rendered frames
+	private boolean hudActive;
+
+	// Pauses the editor while it can not be seen
+	private ShowingTracker showingTracker;
+	private boolean autoPause = true;
+	private boolean paused;
 	
 	// Option map used when view not yet loaded
 	private Map<String, Object> optionMap;
 
+	// Modules every editor page loads in the background once loaded
+	private static final Set<String> defaultPreload = new CopyOnWriteArraySet<>();
+
+	// Diffs of setTextIncremental run off the FX thread before it falls back to one on it
+	private static final int MAX_DIFF_ATTEMPTS = 3;
+
+	// How long a preload or mode change may take before the modules not loaded yet are given up
+	private static final int PRELOAD_TIMEOUT_MILLIS = 10000;
+
+	// Work of the page that reports back through onScriptDone, by id
+	private final Map<Integer, CompletableFuture<String>> scriptCalls = new HashMap<>();
+	private int scriptCallCount;
+
+	// Modes set and modules preloaded before the page is loaded
+	private final List<CompletableFuture<Void>> pendingModes = new ArrayList<>();
+	private final Map<String, CompletableFuture<Void>> pendingPreloads = new LinkedHashMap<>();
+
 	/**
 	 * Constructor
 	 */
@@ -87,6 +187,7 @@ public final class AceEditor extends Control {
 
 		this.optionMap = new HashMap<>();
 		
+		long start = System.nanoTime();
 		this.webView = new WebView();
 		this.webView.prefWidthProperty().bind(this.widthProperty());
 		this.webView.prefHeightProperty().bind(this.heightProperty());
@@ -94,26 +195,60 @@ public final class AceEditor extends Control {
 		this.webView.maxHeightProperty().bind(this.heightProperty());
 		mWebEngine = webView.getEngine();
 		this.getChildren().add(webView);
+		long webViewNanos = System.nanoTime() - start;
 		loadAceEditor();
+		loadTimings.putNanos(LoadTimings.WEB_VIEW, webViewNanos);
+		loadStart = start;
+		showingTracker = new ShowingTracker(this, showing -> updatePaused());
 
 		// process page loading
 		mWebEngine.getLoadWorker().stateProperty().addListener((ObservableValue<? extends Worker.State> ov, Worker.State t, Worker.State t1) -> {
-			if (mWebEngine.getLoadWorker().getState() == Worker.State.SUCCEEDED) {
+			if (t1 == Worker.State.FAILED || t1 == Worker.State.CANCELLED) {
+				AceJfr.endEditorLoad(loadEvent, metrics.getName(), "page", false);
+				loadEvent = null;
+			}
+			if (t1 == Worker.State.FAILED && !disposed) {
+				failPending("Editor page failed to load");
+				fireEvent(new Event(AceEvents.onLoadFailEvent));
+			}
+			if (mWebEngine.getLoadWorker().getState() == Worker.State.SUCCEEDED && !disposed) {
+				AceJfr.endEditorLoad(loadEvent, metrics.getName(), "page", true);
+				loadEvent = null;
+				LoadTimings timings = loadTimings;
+				long pageEnd = System.nanoTime();
+				timings.putNanos(LoadTimings.PAGE, pageEnd - pageStart);
 				try {
 					Thread.sleep(5);
 					Platform.runLater(()->{
+						if (disposed)
+							return;
+						Object initEvent = AceJfr.beginEditorLoad();
+						long initStart = System.nanoTime();
+						timings.putNanos(LoadTimings.QUEUE, initStart - pageEnd);
 						try {
 							// extract javascript objects
 							mAce = (JSObject) mWebEngine.executeScript("ace");
 							JSObject editor = (JSObject) mAce.call("edit", "editor");
-							mEditor = new Editor(editor);
+							mEditor = new Editor(editor, metrics);
 			
 							isWebViewReady = true;
 			
 							setEventCatchers(editor);
-							setTheme(cachedTheme);
-							setMode(cachedModeData);
-							getSession().setValue(cachedText);
+							Object marks = mWebEngine.executeScript("window.acefxMarks ? acefxMarks.join(',') : ''");
+							if (marks instanceof String)
+								timings.putScripts((String) marks);
+							lineIndex = null;
+							suppressSharing = true;
+							long setValueStart = System.nanoTime();
+							try {
+								getSession().setValue(pendingText);
+							} finally {
+								suppressSharing = false;
+							}
+							cacheText(pendingText);
+							pendingText = null;
+							timings.putNanos(LoadTimings.SET_VALUE, System.nanoTime() - setValueStart);
+							getEditor().callHelper("loadThemeAndMode", editor, cachedTheme.getAlias(), cachedModeData.getAlias());
 							
 							for (Entry<String, Object> optionSet : optionMap.entrySet()) {
 								System.out.println(optionSet.getKey() + " / " + optionSet.getValue());
@@ -122,9 +257,26 @@ public final class AceEditor extends Control {
 							
 							JSObject window = (JSObject) mWebEngine.executeScript("window");
 						    window.setMember("java", bridge = new AceEditorJavaBridge(AceEditor.this));
+
+							paused = false;
+							updatePaused();
+							if (scriptProfileInterval > 0)
+								getEditor().callHelper("startProfiling", editor, scriptProfileInterval);
+							if (hudActive)
+								getEditor().callHelper("hudStart", editor);
 			
-							fireEvent(new Event(AceEvents.onLoadEvent));
+							AceJfr.endEditorLoad(initEvent, metrics.getName(), "init", true);
+							long end = System.nanoTime();
+							timings.putNanos(LoadTimings.INIT, end - initStart);
+							timings.putNanos(LoadTimings.TOTAL, end - loadStart);
+							fireEvent(new LoadEvent(AceEvents.onLoadEvent, timings));
+							if (timings.isComplete())
+								completeLoadTimings(timings);
+							startPendingModes();
+							startPreloads();
 						} catch(Exception e1) {
+							AceJfr.endEditorLoad(initEvent, metrics.getName(), "init", false);
+							failPending("Editor failed to load: " + e1);
 							fireEvent(new Event(AceEvents.onLoadFailEvent));
 							e1.printStackTrace();
 						}
@@ -140,11 +292,51 @@ public final class AceEditor extends Control {
 		this.addEventHandler(AceEvents.onLoadEvent, eventHandler);
 	}
 
+	/**
+	 * Sets a handler called once the editor has been disposed, whether or
+	 * not it had finished loading.
+	 */
+	public void setOnDispose(EventHandler<Event> eventHandler) {
+		this.addEventHandler(AceEvents.onDisposeEvent, eventHandler);
+	}
+
+	/**
+	 * Gets the timings of the last load of the page. The load event is a
+	 * {@link LoadEvent} carrying the same timings.
+	 *
+	 * @return the load timings of this editor.
+	 */
+	public LoadTimings getLoadTimings() {
+		return loadTimings;
+	}
+
+	/**
+	 * Called by {@link AceEvents} once the theme or mode requested on load is
+	 * in use.
+	 */
+	void onLoadPhase(String phase, double millis) {
+		LoadTimings timings = loadTimings;
+		if (timings.isComplete())
+			return;
+		timings.put(phase, millis + timings.get(LoadTimings.QUEUE));
+		if (timings.isComplete())
+			completeLoadTimings(timings);
+	}
+
+	private void completeLoadTimings(LoadTimings timings) {
+		timings.putNanos(LoadTimings.COMPLETE, System.nanoTime() - loadStart);
+		fireEvent(new LoadEvent(AceEvents.onLoadTimingsEvent, timings));
+	}
+
 	/**
 	 * Loads the ACE editor in the web engine.
 	 */
 	private void loadAceEditor() {
 		isWebViewReady = false;
+		failScriptCalls("Editor page was reloaded");
+		loadEvent = AceJfr.beginEditorLoad();
+		loadTimings = new LoadTimings();
+		loadStart = pageStart = System.nanoTime();
 		String htmlpath = getClass().getResource("/ace/editor.html").toExternalForm();
 		mWebEngine.load(htmlpath);
 	}
@@ -163,27 +355,33 @@ public final class AceEditor extends Control {
 
 		// on editor events
 		editor.eval("this.on('blur', function() { editor.mAceEvent.onBlur(); });");
-		editor.eval("this.on('change', function(e) { editor.mAceEvent.onChange(e); });");
+		editor.eval("this.on('change', function(e) { if (editor.$acefxDeltas) editor.$acefxDeltas.push(e); else editor.mAceEvent.onChange(e); });");
 		editor.eval("this.on('changeSelectionStyle', function(e) { editor.mAceEvent.onChangeSelectionStyle(e); });");
 		editor.eval("this.on('changeSession', function(e) { editor.mAceEvent.onChangeSession(e); });");
 		editor.eval("this.on('copy', function(e) { editor.mAceEvent.onCopy(e); });");
 		editor.eval("this.on('focus', function() { editor.mAceEvent.onFocus(); });");
 		editor.eval("this.on('paste', function(e) { editor.mAceEvent.onPaste(e); });");
 
-		// on edit session events
-		editor.eval("this.getSession().on('changeAnnotation', function() { editor.mAceEvent.onChangAnnotation(); });");
-		editor.eval("this.getSession().on('changeBackMarker', function() { editor.mAceEvent.onChangeBackMarker(); });");
-		editor.eval("this.getSession().on('changeBreakpoint', function() { editor.mAceEvent.onChangeBreakpoint(); });");
-		editor.eval("this.getSession().on('changeFold', function() { editor.mAceEvent.onChangeFold(); });");
-		editor.eval("this.getSession().on('changeFrontMarker', function() { editor.mAceEvent.onChangeFrontMarker(); });");
-		editor.eval("this.getSession().on('changeMode', function() { editor.mAceEvent.onChangeMode(); });");
-		editor.eval("this.getSession().on('changeOverwrite', function() { editor.mAceEvent.onChangeOverwrite(); });");
-		editor.eval("this.getSession().on('changeScrollLeft', function(e) { editor.mAceEvent.onChangeScrollLeft(e); });");
-		editor.eval("this.getSession().on('changeScrollTop', function(e) { editor.mAceEvent.onChangeScrollTop(e); });");
-		editor.eval("this.getSession().on('changeTabSize', function() { editor.mAceEvent.onChangeTabSize(); });");
-		editor.eval("this.getSession().on('changeWrapLimit', function() { editor.mAceEvent.onChangeWrapLimit(); });");
-		editor.eval("this.getSession().on('changeWrapMode', function() { editor.mAceEvent.onChangeWrapMode(); });");
-		editor.eval("this.getSession().on('tokenizerUpdate', function(e) { editor.mAceEvent.onTokenizerUpadate(e); });");
+		// on edit session events. Every session is hooked once and only forwards events while it is active.
+		editor.eval("this.$acefxHookSession = function(s) {"
+				+ " if (s.$acefxHooked) return; s.$acefxHooked = true;"
+				+ " function active() { return editor.session === s; }"
+				+ " s.on('changeAnnotation', function() { if (active()) editor.mAceEvent.onChangAnnotation(); });"
+				+ " s.on('changeBackMarker', function() { if (active()) editor.mAceEvent.onChangeBackMarker(); });"
+				+ " s.on('changeBreakpoint', function() { if (active()) editor.mAceEvent.onChangeBreakpoint(); });"
+				+ " s.on('changeFold', function() { if (active()) editor.mAceEvent.onChangeFold(); });"
+				+ " s.on('changeFrontMarker', function() { if (active()) editor.mAceEvent.onChangeFrontMarker(); });"
+				+ " s.on('changeMode', function() { if (active()) editor.mAceEvent.onChangeMode(); });"
+				+ " s.on('changeOverwrite', function() { if (active()) editor.mAceEvent.onChangeOverwrite(); });"
+				+ " s.on('changeScrollLeft', function(e) { if (active()) editor.mAceEvent.onChangeScrollLeft(e); });"
+				+ " s.on('changeScrollTop', function(e) { if (active()) editor.mAceEvent.onChangeScrollTop(e); });"
+				+ " s.on('changeTabSize', function() { if (active()) editor.mAceEvent.onChangeTabSize(); });"
+				+ " s.on('changeWrapLimit', function() { if (active()) editor.mAceEvent.onChangeWrapLimit(); });"
+				+ " s.on('changeWrapMode', function() { if (active()) editor.mAceEvent.onChangeWrapMode(); });"
+				+ " s.on('tokenizerUpdate', function(e) { if (active()) editor.mAceEvent.onTokenizerUpadate(e); });"
+				+ " };");
+		editor.eval("this.$acefxHookSession(this.getSession());");
+		editor.eval("this.on('changeSession', function(e) { editor.$acefxHookSession(e.session); });");
 	}
 
 	/**
@@ -193,7 +391,90 @@ public final class AceEditor extends Control {
 	 * @return
 	 */
 	public Object executeScript(String script) throws JSException {
-		return mWebEngine.executeScript(script);
+		BridgeMetrics.Span span = BridgeMetrics.startCall(metrics);
+		try {
+			return mWebEngine.executeScript(script);
+		} finally {
+			BridgeMetrics.endCall(metrics, "AceEditor.executeScript", span, script.length());
+		}
+	}
+
+	/**
+	 * Gets the metrics of the calls made between java and the page of this
+	 * editor. Recording is enabled with {@link BridgeMetrics#setEnabled(boolean)}.
+	 *
+	 * @return the bridge metrics of this editor.
+	 */
+	public BridgeMetrics getBridgeMetrics() {
+		return metrics;
+	}
+
+	/**
+	 * Starts timing the rendering, tokenizing and searching done inside the
+	 * page. Summaries are sent by the page every interval and added to
+	 * {@link #getScriptProfile()}, raising an
+	 * {@link AceEvents#onProfileEvent}.
+	 *
+	 * @param intervalMillis Time between two summaries, in milliseconds.
+	 */
+	public void startScriptProfiling(int intervalMillis) {
+		if (intervalMillis <= 0)
+			throw new IllegalArgumentException("Interval must be positive: " + intervalMillis);
+		this.scriptProfileInterval = intervalMillis;
+		if (isWebViewReady)
+			getEditor().callHelper("startProfiling", mEditor.getModel(), intervalMillis);
+	}
+
+	/**
+	 * Stops timing the page. What was measured since the last summary is
+	 * sent right away.
+	 */
+	public void stopScriptProfiling() {
+		if (scriptProfileInterval <= 0)
+			return;
+		this.scriptProfileInterval = 0;
+		if (isWebViewReady)
+			getEditor().callHelper("stopProfiling", mEditor.getModel());
+	}
+
+	public boolean isScriptProfiling() {
+		return scriptProfileInterval > 0;
+	}
+
+	/**
+	 * Estimates the memory held in the page by the current session: document,
+	 * undo stack, token cache and markers. Other documents open in the
+	 * {@link SessionManager} are accounted for by the session manager.
+	 *
+	 * @return the estimate; while the page is not loaded, only the document.
+	 */
+	public MemoryUsage estimateMemoryUsage() {
+		if (!isWebViewReady) {
+			int lines = 1;
+			for (int i = 0; i < pendingText.length(); ++i) {
+				if (pendingText.charAt(i) == '\n')
+					lines++;
+			}
+			return new MemoryUsage(pendingText.length() + 1, lines, 0, 0, 0, 0, 0, 0, 0);
+		}
+		return MemoryUsage.parse((String) getEditor().callHelper("estimateMemoryUsage", getSession().getModel()));
+	}
+
+	/**
+	 * Gets the timings measured inside the page since profiling was started
+	 * with {@link #startScriptProfiling(int)}.
+	 *
+	 * @return the script profile of this editor.
+	 */
+	public ScriptProfile getScriptProfile() {
+		return scriptProfile;
+	}
+
+	void onScriptProfile(Object data) {
+		if (data == null)
+			return;
+		scriptProfile.merge(data.toString());
+		fireEvent(new Event(AceEvents.onProfileEvent));
 	}
 	
 	/**
@@ -223,6 +504,19 @@ public final class AceEditor extends Control {
 		return mEditor.getSession();
 	}
 
+	/**
+	 * Gets the manager of the documents open in this editor. Several documents
+	 * can be open in one editor, each with its own session, and shown one at
+	 * a time without reloading the page.
+	 *
+	 * @return the session manager of this editor.
+	 */
+	public SessionManager getSessionManager() {
+		if (sessionManager == null)
+			sessionManager = new SessionManager(this);
+		return sessionManager;
+	}
+
 	/**
 	 * Gets the wrapper class for undo manger that is associated with the editor. It
 	 * contains methods for undo or redo operations.
@@ -234,14 +528,58 @@ public final class AceEditor extends Control {
 	}
 
 	/**
-	 * Gets the current content from the editor. If the editor is not ready an empty
-	 * text is returned.
+	 * Gets the current content from the editor. If the editor is not ready, the
+	 * content it will show once loaded is returned. The content is read from
+	 * the page once per change of the document; calls in between return the
+	 * same string.
 	 *
 	 * @return Current content in the editor.
 	 */
 	public String getText() {
-		return isWebViewReady ? mEditor.getValue() : cachedText;
+		if (!isWebViewReady)
+			return pendingText;
+		String text = getCachedText();
+		if (text == null) {
+			text = mEditor.getValue();
+			cacheText(text);
+		}
+		return text;
+	}
+
+	/**
+	 * Sets whether the content cached by {@link #getText()} is held softly,
+	 * so it can be reclaimed under memory pressure and read from the page
+	 * again when needed. Off by default.
+	 *
+	 * @param soft whether the cached content is held softly.
+	 */
+	public void setSoftTextCache(boolean soft) {
+		String text = getCachedText();
+		this.softTextCache = soft;
+		if (text != null)
+			cacheText(text);
+	}
+
+	public boolean isSoftTextCache() {
+		return softTextCache;
+	}
+
+	// Caches the content of the document at its current version
+	private void cacheText(String text) {
+		textVersion = documentVersion;
+		cachedText = softTextCache ? null : text;
+		softCachedText = softTextCache ? new SoftReference<>(text) : null;
+	}
+
+	private String getCachedText() {
+		if (textVersion != documentVersion)
+			return null;
+		return softCachedText != null ? softCachedText.get() : cachedText;
+	}
 
+	private void clearCachedText() {
+		cachedText = null;
+		softCachedText = null;
 	}
 
 	/**
@@ -253,16 +591,384 @@ public final class AceEditor extends Control {
 		if ( text == null )
 			text = "";
 		text = text.replace("\r", "");
-		this.cachedText = text;
 
-		if (isWebViewReady)
+		if (!isWebViewReady) {
+			pendingText = text;
+		} else {
+			Object event = AceJfr.beginSetText();
+			// Drop the index while the value is replaced so the deltas of setValue are not read back
+			boolean indexed = lineIndex != null;
+			lineIndex = null;
 			getEditor().setValue(text, 1);
+			cacheText(text);
+			if (indexed)
+				lineIndex = new LineIndex(text);
+			AceJfr.endSetText(event, metrics.getName(), text.length(), false, 0);
+		}
+	}
+
+	/**
+	 * Shows new content in this editor, as when it is reused by a virtualized
+	 * cell. Text, mode and read-only state are replaced in a single call
+	 * without reloading the page, on the same session; the undo history,
+	 * selection and scroll position are reset.
+	 *
+	 * @param text the content to display.
+	 * @param mode Language mode, or null to keep the current one.
+	 * @param readOnly whether the content can be edited.
+	 * @return the number of lines of the new content.
+	 */
+	public int rebind(String text, ModeData mode, boolean readOnly) {
+		if ( text == null )
+			text = "";
+		text = text.replace("\r", "");
+		if (mode != null)
+			this.cachedModeData = mode;
+
+		if (!isWebViewReady) {
+			pendingText = text;
+			setOption("readOnly", readOnly);
+			return text.split("\n", -1).length;
+		}
+
+		lineIndex = null;
+		Object lines = getEditor().callHelper("rebind", mEditor.getModel(), text,
+				mode == null ? null : mode.getAlias(), readOnly);
+		cacheText(text);
+		return ((Number) lines).intValue();
+	}
+
+	/**
+	 * Gets the height of a line of text, in pixels.
+	 *
+	 * @return the line height, or 0 if the editor is not rendered yet.
+	 */
+	public double getLineHeight() {
+		if (!isWebViewReady)
+			return 0;
+		Object height = mEditor.getModel().eval("this.renderer.lineHeight");
+		return height instanceof Number ? ((Number) height).doubleValue() : 0;
+	}
+
+	/**
+	 * Gets an index of the document lines that converts between absolute
+	 * character offsets and row/column positions without calling in to the
+	 * web view. The index is built on first use and then kept up to date from
+	 * change events.
+	 *
+	 * @return the line index of the current document.
+	 */
+	public LineIndex getLineIndex() {
+		if (lineIndex == null)
+			lineIndex = new LineIndex(getText());
+		return lineIndex;
+	}
+
+	/**
+	 * Called by {@link AceEvents} for every document change.
+	 */
+	void onDocumentChange(Object data) {
+		documentVersion++;
+		clearCachedText();
+		boolean share = isSharing();
+		if ((lineIndex != null || share) && data instanceof JSObject) {
+			Delta delta = Delta.fromJS((JSObject) data);
+			if (lineIndex != null)
+				lineIndex.applyDelta(delta);
+			if (share)
+				sharedDocument.onLocalChange(this, Collections.singletonList(delta));
+		}
+	}
+
+	/**
+	 * Called by {@link AceEvents} with the deltas of a batched edit.
+	 */
+	void onDocumentChanges(Object data) {
+		documentVersion++;
+		clearCachedText();
+		boolean share = isSharing();
+		if ((lineIndex != null || share) && data instanceof JSObject) {
+			List<Delta> deltas = Delta.fromJSArray((JSObject) data);
+			if (lineIndex != null) {
+				for (Delta delta : deltas)
+					lineIndex.applyDelta(delta);
+			}
+			if (share)
+				sharedDocument.onLocalChange(this, deltas);
+		}
+	}
+
+	/**
+	 * Gets the document this editor shares with other editors.
+	 *
+	 * @see SharedDocument#attach(AceEditor)
+	 * @return the shared document, or null if the document is not shared.
+	 */
+	public SharedDocument getSharedDocument() {
+		return sharedDocument;
+	}
+
+	void setSharedDocument(SharedDocument document) {
+		this.sharedDocument = document;
+	}
+
+	/**
+	 * Applies changes made to the shared document by another editor. They are
+	 * not passed back to the shared document.
+	 *
+	 * @param data Deltas, as serialized by {@link Delta#serialize()}.
+	 */
+	void applySharedDeltas(String data) {
+		suppressSharing = true;
+		try {
+			getEditor().callHelper("applyDeltas", mEditor.getModel(), data);
+		} finally {
+			suppressSharing = false;
+		}
+	}
+
+	private boolean isSharing() {
+		return sharedDocument != null && !suppressSharing;
+	}
+
+	/**
+	 * Called by {@link AceEvents} when the editor switches to another session.
+	 */
+	void onSessionChange() {
+		documentVersion++;
+		clearCachedText();
+		lineIndex = null;
+		if (sharedDocument != null)
+			sharedDocument.detach(this);
+	}
+
+	/**
+	 * Applies a group of edits as one transaction. The edits recorded by the
+	 * body are applied together once it returns, with rendering suspended. The
+	 * whole transaction is a single undo step and raises a single change event.
+	 *
+	 * @see Editor#transaction(java.util.function.Consumer)
+	 * @param body Records the edits to apply.
+	 */
+	public void transaction(Consumer<EditTransaction> body) {
+		getEditor().transaction(body);
+	}
+
+	/**
+	 * Applies many non-overlapping edits in a single call, without moving the
+	 * cursor or scrolling.
+	 *
+	 * @see Editor#applyEdits(List)
+	 * @param edits Edits to apply.
+	 * @return the range of each replacement in the resulting document.
+	 */
+	public RangeList applyEdits(List<TextEdit> edits) {
+		return getEditor().applyEdits(edits);
+	}
+
+	/**
+	 * Sets the given content to the editor by changing only the lines that
+	 * differ from the current content. Unlike {@link #setText(String)} this
+	 * keeps the undo history, folds, markers and scroll position, and only the
+	 * changed lines are re-tokenized. The diff is computed off the FX thread;
+	 * the changes are applied as a single undo step, scheduled on the
+	 * {@link FrameScheduler} as a viewport update.
+	 *
+	 * @param text the content to display.
+	 * @return future completed once the content has been applied, or
+	 *         completed exceptionally if the editor is disposed first.
+	 */
+	public CompletableFuture<Void> setTextIncremental(String text) {
+		if ( text == null )
+			text = "";
+		return setTextIncremental(text.replace("\r", ""), 1);
+	}
+
+	private CompletableFuture<Void> setTextIncremental(String newText, int attempt) {
+		if (disposed) {
+			CompletableFuture<Void> future = new CompletableFuture<>();
+			future.completeExceptionally(new IllegalStateException("Editor has been disposed"));
+			return future;
+		}
+		if (!isWebViewReady) {
+			setText(newText);
+			return CompletableFuture.completedFuture(null);
+		}
+
+		String oldText = getText();
+		long version = documentVersion;
+		return CompletableFuture.supplyAsync(() -> LineDiff.computeEdits(oldText, newText))
+				.thenComposeAsync(diff -> {
+					if (disposed) {
+						CompletableFuture<Void> future = new CompletableFuture<>();
+						future.completeExceptionally(new IllegalStateException("Editor has been disposed"));
+						return future;
+					}
+					List<TextEdit> edits = diff;
+					if (version != documentVersion) {
+						// The document changed while diffing, start over from its current state.
+						// When it keeps changing, diff on this thread so it can not change again.
+						if (attempt < MAX_DIFF_ATTEMPTS)
+							return setTextIncremental(newText, attempt + 1);
+						edits = LineDiff.computeEdits(getText(), newText);
+					}
+					Object event = AceJfr.beginSetText();
+					if (!edits.isEmpty())
+						applyEdits(edits);
+					AceJfr.endSetText(event, metrics.getName(), newText.length(), true, edits.size());
+					return CompletableFuture.<Void>completedFuture(null);
+				}, FrameScheduler.getDefault().executor(FrameScheduler.Priority.VIEWPORT));
+	}
+
+	/**
+	 * Releases the editor. The editor and its sessions are destroyed, the
+	 * page is unloaded and every reference between java and the page is
+	 * dropped, so the memory of the web view can be reclaimed. The control
+	 * can not be used afterwards. If the page fails to destroy the editor,
+	 * everything is still released and the error is passed to the uncaught
+	 * exception handler of the current thread.
+	 */
+	public void dispose() {
+		if (disposed)
+			return;
+		disposed = true;
+
+		if (sharedDocument != null)
+			sharedDocument.detach(this);
+		showingTracker.dispose();
+		JSException failure = null;
+		if (isWebViewReady) {
+			try {
+				if (sessionManager != null)
+					sessionManager.closeAll();
+				getEditor().callHelper("destroyEditor", mEditor.getModel());
+				((JSObject) mWebEngine.executeScript("window")).removeMember("java");
+			} catch (JSException e) {
+				// The page is unloaded below anyway; report once everything is released
+				failure = e;
+			}
+		}
+		isWebViewReady = false;
+		failPending("Editor has been disposed");
+		metrics.unregisterMBean();
+		mWebEngine.load("about:blank");
+		getChildren().remove(webView);
+
+		// free java side caches
+		mAce = null;
+		mEditor = null;
+		bridge = null;
+		aceEvents = null;
+		sessionManager = null;
+		lineIndex = null;
+		optionMap.clear();
+		pendingText = "";
+		clearCachedText();
+		fireEvent(new Event(AceEvents.onDisposeEvent));
+
+		if (failure != null) {
+			Thread thread = Thread.currentThread();
+			thread.getUncaughtExceptionHandler().uncaughtException(thread, failure);
+		}
+	}
+
+	/**
+	 * Returns whether {@link #dispose()} has been called.
+	 */
+	public boolean isDisposed() {
+		return disposed;
+	}
+
+	/**
+	 * Shows or hides a display over the editor with its render rate, bridge
+	 * calls and upcalls per second, document size, session count, JS heap
+	 * usage and slowest recent bridge call. It can also be toggled with
+	 * Ctrl+Alt+Shift+P. Nothing is counted while it is hidden.
+	 */
+	public BooleanProperty performanceHudProperty() {
+		return performanceHud;
+	}
+
+	public void setPerformanceHud(boolean visible) {
+		performanceHud.set(visible);
+	}
+
+	public boolean isPerformanceHud() {
+		return performanceHud.get();
+	}
+
+	void setHudActive(boolean active) {
+		if (active == hudActive)
+			return;
+		hudActive = active;
+		metrics.setLive(active);
+		if (isWebViewReady && !disposed)
+			getEditor().callHelper(active ? "hudStart" : "hudStop", mEditor.getModel());
+	}
+
+	/**
+	 * @return frames rendered since the last call, document lines, JS heap bytes and "m" if measured or "e" if
+	 *         estimated, separated by '|'; or null while the page is not loaded.
+	 */
+	String getHudStats() {
+		if (!isWebViewReady || disposed)
+			return null;
+		return (String) getEditor().callHelper("hudStats", mEditor.getModel());
+	}
+
+	/**
+	 * @return number of sessions held in the page, and number of open documents.
+	 */
+	int[] getHudSessionCounts() {
+		if (sessionManager == null)
+			return new int[] { 1, 1 };
+		return new int[] { sessionManager.getLiveCount(), sessionManager.size() };
+	}
+
+	/**
+	 * Sets whether the editor pauses while it can not be seen, e.g. when it is
+	 * in a tab that is not selected or its window is hidden. A paused editor
+	 * does not render, tokenize in the background, blink its cursor or run
+	 * its syntax worker. Changes made while paused are applied to the
+	 * document at once and rendered together when the editor is shown again.
+	 * Enabled by default.
+	 *
+	 * @param autoPause whether to pause hidden editors.
+	 */
+	public void setAutoPause(boolean autoPause) {
+		this.autoPause = autoPause;
+		updatePaused();
+	}
+
+	public boolean isAutoPause() {
+		return autoPause;
+	}
+
+	/**
+	 * Returns whether the editor is currently paused.
+	 */
+	public boolean isPaused() {
+		return paused;
+	}
+
+	private void updatePaused() {
+		if (!isWebViewReady)
+			return;
+		boolean pause = autoPause && !showingTracker.isShowing();
+		if (pause == paused)
+			return;
+		paused = pause;
+		getEditor().callHelper(pause ? "pause" : "resume", mEditor.getModel());
 	}
 
 	/**
 	 * Reloads the whole editor in WebView.
 	 */
 	public void reload() {
+		if (disposed)
+			throw new IllegalStateException("Editor has been disposed");
+		if (isWebViewReady)
+			pendingText = getText();
 		loadAceEditor();
 	}
 
@@ -284,7 +990,10 @@ public final class AceEditor extends Control {
 	 * Paste text from clipboard after the cursor.
 	 */
 	public void paste() {
-		getEditor().insert(Clipboard.getSystemClipboard().getString());
+		Object event = AceJfr.beginClipboard();
+		String text = Clipboard.getSystemClipboard().getString();
+		getEditor().insert(text);
+		AceJfr.endClipboard(event, metrics.getName(), "paste", text == null ? 0 : text.length());
 	}
 
 	/**
@@ -294,13 +1003,16 @@ public final class AceEditor extends Control {
 	 */
 	public boolean copy() {
 		System.out.println("doCopy");
+		Object event = AceJfr.beginClipboard();
 		String copy = mEditor.getCopyText();
 		if (copy != null && !copy.isEmpty()) {
 			ClipboardContent content = new ClipboardContent();
 			content.putString(copy);
 			Clipboard.getSystemClipboard().setContent(content);
+			AceJfr.endClipboard(event, metrics.getName(), "copy", copy.length());
 			return true;
 		}
+		AceJfr.endClipboard(event, metrics.getName(), "copy", 0);
 		return false;
 	}
 
@@ -353,12 +1065,174 @@ public final class AceEditor extends Control {
 	 * supported mode can be found in <code>Modes</code> class.
 	 *
 	 * @see Modes
+	 * @see #preload(Collection, Collection)
 	 * @param mode Mode like "ace/mode/java".
+	 * @return future completed once the mode is in use and the rows on screen
+	 *         are tokenized, or completed exceptionally if the mode could not
+	 *         be loaded in time or the page failed to load.
 	 */
-	public void setMode(ModeData mode) {
+	public CompletableFuture<Void> setMode(ModeData mode) {
 		cachedModeData = mode;
-		if ( isWebViewReady )
-			getEditor().getSession().setMode(mode.getAlias());
+		if ( !isWebViewReady ) {
+			CompletableFuture<Void> future = new CompletableFuture<>();
+			if (disposed)
+				future.completeExceptionally(new IllegalStateException("Editor has been disposed"));
+			else
+				pendingModes.add(future);
+			return future;
+		}
+		return scriptCall(id -> getEditor().callHelper("setMode", mEditor.getModel(), mode.getAlias(), id, PRELOAD_TIMEOUT_MILLIS))
+				.thenApply(failed -> {
+					if (failed != null && !failed.isEmpty())
+						throw new IllegalStateException("Could not load " + failed);
+					return null;
+				});
+	}
+
+	// Settles the modes set before the page was loaded once the last one is in use
+	private void startPendingModes() {
+		if (pendingModes.isEmpty())
+			return;
+		List<CompletableFuture<Void>> futures = new ArrayList<>(pendingModes);
+		pendingModes.clear();
+		setMode(cachedModeData).whenComplete((result, e) -> {
+			for (CompletableFuture<Void> future : futures) {
+				if (e != null)
+					future.completeExceptionally(e);
+				else
+					future.complete(null);
+			}
+		});
+	}
+
+	/**
+	 * Loads language modes and themes in the page of this editor ahead of use,
+	 * so switching to them is immediate and text is not shown without
+	 * highlighting meanwhile. Modules are loaded in the background; the page
+	 * stays usable.
+	 *
+	 * @param modes Modes to load, or null.
+	 * @param themes Themes to load, or null.
+	 * @return future completed once the modules are loaded, or completed
+	 *         exceptionally with the ones that could not be loaded.
+	 */
+	public CompletableFuture<Void> preload(Collection<ModeData> modes, Collection<ThemeData> themes) {
+		String modules = toModuleList(modes, themes);
+		if (disposed) {
+			CompletableFuture<Void> future = new CompletableFuture<>();
+			future.completeExceptionally(new IllegalStateException("Editor has been disposed"));
+			return future;
+		}
+		if (!isWebViewReady)
+			return pendingPreloads.computeIfAbsent(modules, m -> new CompletableFuture<>());
+		return loadModules(modules);
+	}
+
+	/**
+	 * Sets language modes and themes every editor and {@link AceEditorHost}
+	 * loads in the background once its page is loaded, for pages loaded from
+	 * now on. Also warms the resource cache of the web engine, shared by all
+	 * pages.
+	 *
+	 * @param modes Modes to load, or null.
+	 * @param themes Themes to load, or null.
+	 */
+	public static void preloadByDefault(Collection<ModeData> modes, Collection<ThemeData> themes) {
+		String modules = toModuleList(modes, themes);
+		if (!modules.isEmpty())
+			Collections.addAll(defaultPreload, modules.split(","));
+	}
+
+	/**
+	 * @return modules loaded in the background by every page, as the comma
+	 *         separated list understood by <code>acefx.preloadModules</code>.
+	 */
+	static String getDefaultPreload() {
+		return String.join(",", defaultPreload);
+	}
+
+	static String toModuleList(Collection<ModeData> modes, Collection<ThemeData> themes) {
+		Set<String> modules = new LinkedHashSet<>();
+		if (modes != null) {
+			for (ModeData mode : modes)
+				modules.add("mode:" + mode.getAlias());
+		}
+		if (themes != null) {
+			for (ThemeData theme : themes)
+				modules.add("theme:" + theme.getAlias());
+		}
+		return String.join(",", modules);
+	}
+
+	// Starts the preloads requested before the page was loaded, and the default ones
+	private void startPreloads() {
+		for (Entry<String, CompletableFuture<Void>> preload : pendingPreloads.entrySet()) {
+			CompletableFuture<Void> future = preload.getValue();
+			loadModules(preload.getKey()).whenComplete((result, e) -> {
+				if (e != null)
+					future.completeExceptionally(e);
+				else
+					future.complete(null);
+			});
+		}
+		pendingPreloads.clear();
+		String modules = getDefaultPreload();
+		if (!modules.isEmpty())
+			getEditor().callHelper("preloadModules", modules, null, 0, 0);
+	}
+
+	private CompletableFuture<Void> loadModules(String modules) {
+		return scriptCall(id -> getEditor().callHelper("preloadModules", modules, aceEvents, id, PRELOAD_TIMEOUT_MILLIS))
+				.thenApply(failed -> {
+					if (failed != null && !failed.isEmpty())
+						throw new IllegalStateException("Could not load " + failed);
+					return null;
+				});
+	}
+
+	/**
+	 * Runs work of the page that reports back through {@link #onScriptDone(int, Object)}.
+	 *
+	 * @param call Starts the work, given the id to report back with.
+	 * @return future completed with what the page reported.
+	 */
+	private CompletableFuture<String> scriptCall(IntConsumer call) {
+		int id = ++scriptCallCount;
+		CompletableFuture<String> future = new CompletableFuture<>();
+		scriptCalls.put(id, future);
+		try {
+			call.accept(id);
+		} catch (RuntimeException e) {
+			scriptCalls.remove(id);
+			future.completeExceptionally(e);
+		}
+		return future;
+	}
+
+	/**
+	 * Called by {@link AceEvents} once work started by {@link #scriptCall(IntConsumer)} is done.
+	 */
+	void onScriptDone(int id, Object result) {
+		CompletableFuture<String> future = scriptCalls.remove(id);
+		if (future != null)
+			future.complete(result == null ? null : result.toString());
+	}
+
+	private void failScriptCalls(String reason) {
+		for (CompletableFuture<String> future : scriptCalls.values())
+			future.completeExceptionally(new IllegalStateException(reason));
+		scriptCalls.clear();
+	}
+
+	// Fails the script calls, and the modes and preloads waiting for the page
+	private void failPending(String reason) {
+		failScriptCalls(reason);
+		for (CompletableFuture<Void> future : pendingModes)
+			future.completeExceptionally(new IllegalStateException(reason));
+		pendingModes.clear();
+		for (CompletableFuture<Void> future : pendingPreloads.values())
+			future.completeExceptionally(new IllegalStateException(reason));
+		pendingPreloads.clear();
 	}
 
 	/**
@@ -424,12 +1298,24 @@ public final class AceEditor extends Control {
 class CodeEditorSkin extends SkinBase<AceEditor> implements Skin<AceEditor> {
 	private static final double PREFERRED_WIDTH = 100;
 	private static final double PREFERRED_HEIGHT = 100;
+	private static final double HUD_MARGIN = 8;
+	private static final KeyCombination HUD_TOGGLE = new KeyCodeCombination(KeyCode.P, KeyCombination.SHORTCUT_DOWN,
+			KeyCombination.ALT_DOWN, KeyCombination.SHIFT_DOWN);
 	private AceEditor control;
+	private final PerformanceHud hud;
+	private final ChangeListener<Boolean> hudListener = (o, oldValue, newValue) -> updateHud();
+	private final EventHandler<KeyEvent> hudToggle = e -> {
+		if (HUD_TOGGLE.match(e)) {
+			control.setPerformanceHud(!control.isPerformanceHud());
+			e.consume();
+		}
+	};
 
 	// ******************** Constructors **************************************
 	public CodeEditorSkin(final AceEditor control) {
 		super(control);
 		this.control = control;
+		this.hud = new PerformanceHud(control);
 		initGraphics();
 	}
 
@@ -443,6 +1329,15 @@ class CodeEditorSkin extends SkinBase<AceEditor> implements Skin<AceEditor> {
 				control.setPrefSize(PREFERRED_WIDTH, PREFERRED_HEIGHT);
 			}
 		}
+
+		getChildren().add(hud);
+		control.performanceHudProperty().addListener(hudListener);
+		control.addEventFilter(KeyEvent.KEY_PRESSED, hudToggle);
+		updateHud();
+	}
+
+	private void updateHud() {
+		hud.setActive(control.isPerformanceHud());
 	}
 
 	// ******************** Methods *******************************************
@@ -460,6 +1355,10 @@ class CodeEditorSkin extends SkinBase<AceEditor> implements Skin<AceEditor> {
 
 	@Override
 	public void dispose() {
+		hud.setActive(false);
+		getChildren().remove(hud);
+		control.performanceHudProperty().removeListener(hudListener);
+		control.removeEventFilter(KeyEvent.KEY_PRESSED, hudToggle);
 		control = null;
 	}
 
@@ -467,5 +1366,10 @@ class CodeEditorSkin extends SkinBase<AceEditor> implements Skin<AceEditor> {
 	@Override
 	public void layoutChildren(final double x, final double y, final double width, final double height) {
 		super.layoutChildren(x, y, width, height);
+		if (hud.isVisible()) {
+			hud.toFront();
+			hud.autosize();
+			hud.relocate(x + width - hud.getWidth() - HUD_MARGIN, y + HUD_MARGIN);
+		}
 	}
 }
\ No newline at end of file
@@ -0,0 +1,111 @@
+package dev.anarchy.ace;
+
+import java.util.function.Function;
+
+import dev.anarchy.ace.model.ModeData;
+import javafx.scene.control.ListCell;
+import javafx.scene.control.ListView;
+import javafx.util.Callback;
+
+/**
+ * List cell showing its item in an {@link AceEditor}. The editor is created
+ * once per cell and then rebound to the item of the cell as the list scrolls,
+ * so a virtualized list only loads as many editors as it has visible cells.
+ * The height of the editor follows the number of lines of its content.
+ *
+ * @param <T> Type of the list items.
+ */
+public class AceEditorCell<T> extends ListCell<T> {
+
+	// Used until the editor has been rendered once
+	private static final double DEFAULT_LINE_HEIGHT = 16;
+
+	// Space for borders and a horizontal scroll bar
+	private static final double EXTRA_HEIGHT = 20;
+
+	private final Function<T, String> textFactory;
+	private final Function<T, ModeData> modeFactory;
+
+	private boolean readOnly = true;
+	private int minLines = 1;
+	private int maxLines = 40;
+
+	// editor reused for every item of this cell, created on first use
+	private AceEditor editor;
+	private double lineHeight;
+	private int lineCount;
+
+	/**
+	 * @param textFactory Gives the text to show for an item.
+	 * @param modeFactory Gives the language mode of an item, or null for plain text.
+	 */
+	public AceEditorCell(Function<T, String> textFactory, Function<T, ModeData> modeFactory) {
+		this.textFactory = textFactory;
+		this.modeFactory = modeFactory;
+	}
+
+	/**
+	 * Creates a cell factory for a list of code snippets.
+	 *
+	 * @param textFactory Gives the text to show for an item.
+	 * @param modeFactory Gives the language mode of an item, or null for plain text.
+	 * @return the cell factory.
+	 */
+	public static <T> Callback<ListView<T>, ListCell<T>> forListView(Function<T, String> textFactory,
+			Function<T, ModeData> modeFactory) {
+		return list -> new AceEditorCell<>(textFactory, modeFactory);
+	}
+
+	public void setReadOnly(boolean readOnly) {
+		this.readOnly = readOnly;
+	}
+
+	public boolean isReadOnly() {
+		return readOnly;
+	}
+
+	/**
+	 * Sets the range of lines the editor height follows. Longer content
+	 * scrolls inside the editor.
+	 */
+	public void setLineRange(int minLines, int maxLines) {
+		this.minLines = Math.max(1, minLines);
+		this.maxLines = Math.max(this.minLines, maxLines);
+		updateHeight();
+	}
+
+	/**
+	 * @return the editor of this cell, or null if no item was shown yet.
+	 */
+	public AceEditor getEditor() {
+		return editor;
+	}
+
+	@Override
+	protected void updateItem(T item, boolean empty) {
+		super.updateItem(item, empty);
+		if (empty || item == null) {
+			setGraphic(null);
+			return;
+		}
+
+		if (editor == null) {
+			editor = new AceEditor();
+			editor.setOnLoad(e -> updateHeight());
+		}
+		ModeData mode = modeFactory == null ? null : modeFactory.apply(item);
+		lineCount = editor.rebind(textFactory.apply(item), mode == null ? Modes.Text : mode, readOnly);
+		updateHeight();
+		setGraphic(editor);
+	}
+
+	private void updateHeight() {
+		if (editor == null)
+			return;
+		if (lineHeight <= 0)
+			lineHeight = editor.getLineHeight();
+		double height = lineHeight > 0 ? lineHeight : DEFAULT_LINE_HEIGHT;
+		int lines = Math.max(minLines, Math.min(maxLines, lineCount));
+		editor.setPrefHeight(lines * height + EXTRA_HEIGHT);
+	}
+}
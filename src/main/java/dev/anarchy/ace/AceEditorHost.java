@@ -0,0 +1,194 @@
+package dev.anarchy.ace;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import dev.anarchy.ace.model.ModeData;
+import dev.anarchy.ace.util.BridgeMetrics;
+import javafx.application.Platform;
+import javafx.concurrent.Worker;
+import javafx.event.Event;
+import javafx.event.EventHandler;
+import javafx.scene.control.Control;
+import javafx.scene.control.Skin;
+import javafx.scene.control.SkinBase;
+import javafx.scene.web.WebEngine;
+import javafx.scene.web.WebView;
+import netscape.javascript.JSObject;
+
+/**
+ * Hosts many small editors in a single web view. All editors share one page
+ * and one ace runtime and are laid out one below the other, which makes each
+ * editor a lot cheaper to create than an {@link AceEditor}. Suited to
+ * dashboards and notebooks showing many short snippets. <br/>
+ * Editors are added with {@link #createEditor(String, ModeData)}
+ * and can be used right away; their content is applied once the page is loaded.
+ */
+public final class AceEditorHost extends Control {
+
+	// web view where the host page is loaded
+	private final WebView webView;
+
+	// web engine to process java script
+	private final WebEngine mWebEngine;
+
+	// acefx helpers of the host page
+	private JSObject mHelpers;
+
+	// Editors in the order they were created
+	private final List<HostedEditor> editors = new ArrayList<>();
+
+	private int nextId;
+
+	// Indices weather the web view is loaded
+	private boolean isWebViewReady;
+
+	// Set once the host has been disposed
+	private boolean disposed;
+
+	// Calls made between java and the page of this host
+	private static final AtomicInteger hostCount = new AtomicInteger();
+	private final BridgeMetrics metrics = new BridgeMetrics("host-" + hostCount.incrementAndGet());
+
+	public AceEditorHost() {
+		setMinSize(0, 0);
+		setPrefSize(400, 400);
+		setMaxSize(Double.MAX_VALUE, Double.MAX_VALUE);
+
+		this.webView = new WebView();
+		this.webView.prefWidthProperty().bind(this.widthProperty());
+		this.webView.prefHeightProperty().bind(this.heightProperty());
+		this.webView.maxWidthProperty().bind(this.widthProperty());
+		this.webView.maxHeightProperty().bind(this.heightProperty());
+		mWebEngine = webView.getEngine();
+		this.getChildren().add(webView);
+
+		// process page loading
+		mWebEngine.getLoadWorker().stateProperty().addListener((ov, t, t1) -> {
+			if (t1 == Worker.State.SUCCEEDED && !disposed) {
+				Platform.runLater(() -> {
+					if (disposed)
+						return;
+					try {
+						mHelpers = (JSObject) mWebEngine.executeScript("acefx");
+						isWebViewReady = true;
+						for (HostedEditor editor : editors)
+							bind(editor);
+						fireEvent(new Event(AceEvents.onLoadEvent));
+						String modules = AceEditor.getDefaultPreload();
+						if (!modules.isEmpty())
+							callHelper("preloadModules", modules, null, 0, 0);
+					} catch (RuntimeException e) {
+						fireEvent(new Event(AceEvents.onLoadFailEvent));
+						Thread thread = Thread.currentThread();
+						thread.getUncaughtExceptionHandler().uncaughtException(thread, e);
+					}
+				});
+			}
+		});
+		mWebEngine.load(getClass().getResource("/ace/host.html").toExternalForm());
+	}
+
+	public void setOnLoad(EventHandler<Event> eventHandler) {
+		this.addEventHandler(AceEvents.onLoadEvent, eventHandler);
+	}
+
+	/**
+	 * Returns whether the web view is loaded.
+	 */
+	public boolean isWebViewReady() {
+		return isWebViewReady;
+	}
+
+	/**
+	 * Gets the metrics of the calls made between java and the page of this
+	 * host, shared by all of its editors.
+	 *
+	 * @return the bridge metrics of this host.
+	 */
+	public BridgeMetrics getBridgeMetrics() {
+		return metrics;
+	}
+
+	/**
+	 * Adds an editor below the existing ones.
+	 *
+	 * @param text Initial content.
+	 * @param mode Language mode, or null for plain text.
+	 * @return handle of the new editor.
+	 */
+	public HostedEditor createEditor(String text, ModeData mode) {
+		HostedEditor editor = new HostedEditor(this, nextId++);
+		editor.setText(text);
+		if (mode != null)
+			editor.setMode(mode);
+		editors.add(editor);
+		if (isWebViewReady)
+			bind(editor);
+		return editor;
+	}
+
+	/**
+	 * Removes an editor from the page and destroys it. The handle can not be
+	 * used afterwards.
+	 *
+	 * @param editor Editor to remove.
+	 */
+	public void removeEditor(HostedEditor editor) {
+		if (!editors.remove(editor))
+			return;
+		JSObject model = editor.isReady() ? editor.getEditor().getModel() : null;
+		editor.unbind();
+		if (model != null)
+			callHelper("destroyEditor", model);
+	}
+
+	/**
+	 * @return editors of this host, in the order they were created.
+	 */
+	public List<HostedEditor> getEditors() {
+		return Collections.unmodifiableList(editors);
+	}
+
+	/**
+	 * Removes every editor and unloads the page. The host can not be used
+	 * afterwards.
+	 */
+	public void dispose() {
+		if (disposed)
+			return;
+		for (HostedEditor editor : editors.toArray(new HostedEditor[0]))
+			removeEditor(editor);
+		disposed = true;
+		isWebViewReady = false;
+		mHelpers = null;
+		metrics.unregisterMBean();
+		mWebEngine.load("about:blank");
+		getChildren().remove(webView);
+	}
+
+	/**
+	 * Returns whether {@link #dispose()} has been called.
+	 */
+	public boolean isDisposed() {
+		return disposed;
+	}
+
+	// Calls an acefx helper of the host page, recorded in the host's metrics
+	Object callHelper(String method, Object... args) {
+		return BridgeMetrics.call(metrics, "AceEditorHost", mHelpers, method, args);
+	}
+
+	private void bind(HostedEditor editor) {
+		JSObject model = (JSObject) callHelper("createHostedEditor", editor.getId());
+		editor.bind(model);
+	}
+
+	@Override
+	protected Skin<AceEditorHost> createDefaultSkin() {
+		return new SkinBase<AceEditorHost>(this) {
+		};
+	}
+}
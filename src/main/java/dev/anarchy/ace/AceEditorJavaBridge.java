@@ -1,5 +1,7 @@
 package dev.anarchy.ace;
 
+import dev.anarchy.ace.jfr.AceJfr;
+import dev.anarchy.ace.util.BridgeMetrics;
 import javafx.application.Platform;
 import javafx.scene.input.Clipboard;
 import javafx.scene.input.ClipboardContent;
@@ -13,17 +15,33 @@ public class AceEditorJavaBridge {
 	}
 	
 	public void paste() {
-		String data = (String) Clipboard.getSystemClipboard().getContent(DataFormat.PLAIN_TEXT);
-		System.out.println("Paste from bridge:\n" + data);
-        //editor.paste();
+		BridgeMetrics.Span span = BridgeMetrics.startUpcall(editor.getBridgeMetrics());
+		try {
+			Object event = AceJfr.beginClipboard();
+			String data = (String) Clipboard.getSystemClipboard().getContent(DataFormat.PLAIN_TEXT);
+			AceJfr.endClipboard(event, editor.getBridgeMetrics().getName(), "paste", data == null ? 0 : data.length());
+			System.out.println("Paste from bridge:\n" + data);
+	        //editor.paste();
+		} finally {
+			BridgeMetrics.endUpcall(editor.getBridgeMetrics(), "paste", span, 0);
+		}
     }
     
 	public void copy(Object data) {
-		Platform.runLater(()->{
-			System.out.println("Copying from bridge:\n" + data);
-	    	ClipboardContent content = new ClipboardContent();
-	    	content.put(DataFormat.PLAIN_TEXT, data.toString());
-	    	Clipboard.getSystemClipboard().setContent(content);
-		});
+		BridgeMetrics.Span span = BridgeMetrics.startUpcall(editor.getBridgeMetrics());
+		int length = data == null ? 0 : data.toString().length();
+		try {
+			String name = editor.getBridgeMetrics().getName();
+			Platform.runLater(()->{
+				System.out.println("Copying from bridge:\n" + data);
+				Object event = AceJfr.beginClipboard();
+		    	ClipboardContent content = new ClipboardContent();
+		    	content.put(DataFormat.PLAIN_TEXT, data.toString());
+		    	Clipboard.getSystemClipboard().setContent(content);
+				AceJfr.endClipboard(event, name, "copy", length);
+			});
+		} finally {
+			BridgeMetrics.endUpcall(editor.getBridgeMetrics(), "copy", span, length);
+		}
     }
 }
\ No newline at end of file
@@ -15,6 +15,7 @@
  */
 package dev.anarchy.ace;
 
+import dev.anarchy.ace.util.BridgeMetrics;
 import javafx.event.Event;
 import javafx.event.EventType;
 
@@ -42,6 +43,8 @@ public class AceEvents {
     //AceEditor custom events    
     public static final EventType<? extends Event> onLoadEvent = new EventType<>("onLoad");
     public static final EventType<? extends Event> onLoadFailEvent = new EventType<>("onLoadFail");
+    public static final EventType<? extends Event> onLoadTimingsEvent = new EventType<>("onLoadTimings");
+    public static final EventType<? extends Event> onDisposeEvent = new EventType<>("onDispose");
     //Editor event types
     public static final EventType<? extends Event> onBlurEvent = new EventType<>("onBlur");
     public static final EventType<? extends Event> onChangeEvent = new EventType<>("onChange");
@@ -50,6 +53,7 @@ public class AceEvents {
     public static final EventType<? extends Event> onCopyEvent = new EventType<>("onCopy");
     public static final EventType<? extends Event> onFocusEvent = new EventType<>("onFocus");
     public static final EventType<? extends Event> onPasteEvent = new EventType<>("onPaste");
+    public static final EventType<? extends Event> onProfileEvent = new EventType<>("onProfile");
 
     //Edit Session event types
     public static final EventType<? extends Event> onChangAnnotationEvent = new EventType<>("onChangAnnotation");
@@ -70,107 +74,236 @@ public class AceEvents {
     // Ace Editor custom event
     //
     public void onLoad() {
-        mAceEditor.fireEvent(new Event(AceEvents.onLoadEvent));
+        BridgeMetrics.Span span = BridgeMetrics.startUpcall(mAceEditor.getBridgeMetrics());
+        try {
+            mAceEditor.fireEvent(new Event(AceEvents.onLoadEvent));
+        } finally {
+            BridgeMetrics.endUpcall(mAceEditor.getBridgeMetrics(), "onLoad", span, 0);
+        }
+    }
+
+    public void onLoadPhase(String phase, Object millis) {
+        BridgeMetrics.Span span = BridgeMetrics.startUpcall(mAceEditor.getBridgeMetrics());
+        try {
+            mAceEditor.onLoadPhase(phase, ((Number) millis).doubleValue());
+        } finally {
+            BridgeMetrics.endUpcall(mAceEditor.getBridgeMetrics(), "onLoadPhase", span, 0);
+        }
+    }
+
+    public void onScriptDone(Object id, Object result) {
+        BridgeMetrics.Span span = BridgeMetrics.startUpcall(mAceEditor.getBridgeMetrics());
+        try {
+            mAceEditor.onScriptDone(((Number) id).intValue(), result);
+        } finally {
+            BridgeMetrics.endUpcall(mAceEditor.getBridgeMetrics(), "onScriptDone", span, 0);
+        }
     }
 
     //
     // Editor Events
     //
     public void onBlur() {
-        mAceEditor.fireEvent(new Event(AceEvents.onBlurEvent));
+        BridgeMetrics.Span span = BridgeMetrics.startUpcall(mAceEditor.getBridgeMetrics());
+        try {
+            mAceEditor.fireEvent(new Event(AceEvents.onBlurEvent));
+        } finally {
+            BridgeMetrics.endUpcall(mAceEditor.getBridgeMetrics(), "onBlur", span, 0);
+        }
     }
     
     public void onChange(Object data) {
-        mAceEditor.fireEvent(new Event(AceEvents.onChangeEvent));
+        BridgeMetrics.Span span = BridgeMetrics.startUpcall(mAceEditor.getBridgeMetrics());
+        try {
+            mAceEditor.onDocumentChange(data);
+            mAceEditor.fireEvent(new Event(AceEvents.onChangeEvent));
+        } finally {
+            BridgeMetrics.endUpcall(mAceEditor.getBridgeMetrics(), "onChange", span, 0);
+        }
+    }
+    
+    public void onChangeBatch(Object data) {
+        BridgeMetrics.Span span = BridgeMetrics.startUpcall(mAceEditor.getBridgeMetrics());
+        try {
+            mAceEditor.onDocumentChanges(data);
+            mAceEditor.fireEvent(new Event(AceEvents.onChangeEvent));
+        } finally {
+            BridgeMetrics.endUpcall(mAceEditor.getBridgeMetrics(), "onChangeBatch", span, 0);
+        }
     }
     
     public void onChangeSelectionStyle(Object data) {
-        mAceEditor.fireEvent(new Event(AceEvents.onChangeSelectionStyleEvent));
+        BridgeMetrics.Span span = BridgeMetrics.startUpcall(mAceEditor.getBridgeMetrics());
+        try {
+            mAceEditor.fireEvent(new Event(AceEvents.onChangeSelectionStyleEvent));
+        } finally {
+            BridgeMetrics.endUpcall(mAceEditor.getBridgeMetrics(), "onChangeSelectionStyle", span, 0);
+        }
     }
     
     public void onChangeSession(Object e) {
-        mAceEditor.fireEvent(new Event(AceEvents.onChangeSessionEvent));
-        
+        BridgeMetrics.Span span = BridgeMetrics.startUpcall(mAceEditor.getBridgeMetrics());
+        try {
+            mAceEditor.onSessionChange();
+            mAceEditor.fireEvent(new Event(AceEvents.onChangeSessionEvent));
+        } finally {
+            BridgeMetrics.endUpcall(mAceEditor.getBridgeMetrics(), "onChangeSession", span, 0);
+        }
     }
     
     public void onCopy(String text) {
-        mAceEditor.fireEvent(new Event(AceEvents.onCopyEvent));
+        BridgeMetrics.Span span = BridgeMetrics.startUpcall(mAceEditor.getBridgeMetrics());
+        try {
+            mAceEditor.fireEvent(new Event(AceEvents.onCopyEvent));
+        } finally {
+            BridgeMetrics.endUpcall(mAceEditor.getBridgeMetrics(), "onCopy", span, text == null ? 0 : text.length());
+        }
     }
     
     public void onFocus() {
-        mAceEditor.fireEvent(new Event(AceEvents.onFocusEvent));
-        
+        BridgeMetrics.Span span = BridgeMetrics.startUpcall(mAceEditor.getBridgeMetrics());
+        try {
+            mAceEditor.fireEvent(new Event(AceEvents.onFocusEvent));
+        } finally {
+            BridgeMetrics.endUpcall(mAceEditor.getBridgeMetrics(), "onFocus", span, 0);
+        }
     }
     
     public void onPaste(Object e) {
-        mAceEditor.fireEvent(new Event(AceEvents.onPasteEvent));
-        
+        BridgeMetrics.Span span = BridgeMetrics.startUpcall(mAceEditor.getBridgeMetrics());
+        try {
+            mAceEditor.fireEvent(new Event(AceEvents.onPasteEvent));
+        } finally {
+            BridgeMetrics.endUpcall(mAceEditor.getBridgeMetrics(), "onPaste", span, 0);
+        }
+    }
+
+    public void onProfile(Object data) {
+        BridgeMetrics.Span span = BridgeMetrics.startUpcall(mAceEditor.getBridgeMetrics());
+        try {
+            mAceEditor.onScriptProfile(data);
+        } finally {
+            BridgeMetrics.endUpcall(mAceEditor.getBridgeMetrics(), "onProfile", span, data == null ? 0 : data.toString().length());
+        }
     }
 
     //
     // Edit Session Events
     //
     public void onChangAnnotation() {
-        mAceEditor.fireEvent(new Event(AceEvents.onChangAnnotationEvent));
-        
+        BridgeMetrics.Span span = BridgeMetrics.startUpcall(mAceEditor.getBridgeMetrics());
+        try {
+            mAceEditor.fireEvent(new Event(AceEvents.onChangAnnotationEvent));
+        } finally {
+            BridgeMetrics.endUpcall(mAceEditor.getBridgeMetrics(), "onChangAnnotation", span, 0);
+        }
     }
     
     public void onChangeBackMarker() {
-        mAceEditor.fireEvent(new Event(AceEvents.onChangeBackMarkerEvent));
-        
+        BridgeMetrics.Span span = BridgeMetrics.startUpcall(mAceEditor.getBridgeMetrics());
+        try {
+            mAceEditor.fireEvent(new Event(AceEvents.onChangeBackMarkerEvent));
+        } finally {
+            BridgeMetrics.endUpcall(mAceEditor.getBridgeMetrics(), "onChangeBackMarker", span, 0);
+        }
     }
     
     public void onChangeBreakpoint() {
-        mAceEditor.fireEvent(new Event(AceEvents.onChangeBreakpointEvent));
-        
+        BridgeMetrics.Span span = BridgeMetrics.startUpcall(mAceEditor.getBridgeMetrics());
+        try {
+            mAceEditor.fireEvent(new Event(AceEvents.onChangeBreakpointEvent));
+        } finally {
+            BridgeMetrics.endUpcall(mAceEditor.getBridgeMetrics(), "onChangeBreakpoint", span, 0);
+        }
     }
     
     public void onChangeFold() {
-        mAceEditor.fireEvent(new Event(AceEvents.onChangeFoldEvent));
-        
+        BridgeMetrics.Span span = BridgeMetrics.startUpcall(mAceEditor.getBridgeMetrics());
+        try {
+            mAceEditor.fireEvent(new Event(AceEvents.onChangeFoldEvent));
+        } finally {
+            BridgeMetrics.endUpcall(mAceEditor.getBridgeMetrics(), "onChangeFold", span, 0);
+        }
     }
     
     public void onChangeFrontMarker() {
-        mAceEditor.fireEvent(new Event(AceEvents.onChangeFrontMarkerEvent));
-        
+        BridgeMetrics.Span span = BridgeMetrics.startUpcall(mAceEditor.getBridgeMetrics());
+        try {
+            mAceEditor.fireEvent(new Event(AceEvents.onChangeFrontMarkerEvent));
+        } finally {
+            BridgeMetrics.endUpcall(mAceEditor.getBridgeMetrics(), "onChangeFrontMarker", span, 0);
+        }
     }
     
     public void onChangeMode() {
-        mAceEditor.fireEvent(new Event(AceEvents.onChangeModeEvent));
-        
+        BridgeMetrics.Span span = BridgeMetrics.startUpcall(mAceEditor.getBridgeMetrics());
+        try {
+            mAceEditor.fireEvent(new Event(AceEvents.onChangeModeEvent));
+        } finally {
+            BridgeMetrics.endUpcall(mAceEditor.getBridgeMetrics(), "onChangeMode", span, 0);
+        }
     }
     
     public void onChangeOverwrite() {
-        mAceEditor.fireEvent(new Event(AceEvents.onChangeOverwriteEvent));
-        
+        BridgeMetrics.Span span = BridgeMetrics.startUpcall(mAceEditor.getBridgeMetrics());
+        try {
+            mAceEditor.fireEvent(new Event(AceEvents.onChangeOverwriteEvent));
+        } finally {
+            BridgeMetrics.endUpcall(mAceEditor.getBridgeMetrics(), "onChangeOverwrite", span, 0);
+        }
     }
     
     public void onChangeScrollLeft(Integer scrollLeft) {
-        mAceEditor.fireEvent(new Event(AceEvents.onChangeScrollLeftEvent));
-        
+        BridgeMetrics.Span span = BridgeMetrics.startUpcall(mAceEditor.getBridgeMetrics());
+        try {
+            mAceEditor.fireEvent(new Event(AceEvents.onChangeScrollLeftEvent));
+        } finally {
+            BridgeMetrics.endUpcall(mAceEditor.getBridgeMetrics(), "onChangeScrollLeft", span, 0);
+        }
     }
     
     public void onChangeScrollTop(Integer scrollTop) {
-        mAceEditor.fireEvent(new Event(AceEvents.onChangeScrollTopEvent));
-        
+        BridgeMetrics.Span span = BridgeMetrics.startUpcall(mAceEditor.getBridgeMetrics());
+        try {
+            mAceEditor.fireEvent(new Event(AceEvents.onChangeScrollTopEvent));
+        } finally {
+            BridgeMetrics.endUpcall(mAceEditor.getBridgeMetrics(), "onChangeScrollTop", span, 0);
+        }
     }
     
     public void onChangeTabSize() {
-        mAceEditor.fireEvent(new Event(AceEvents.onChangeTabSizeEvent));
-        
+        BridgeMetrics.Span span = BridgeMetrics.startUpcall(mAceEditor.getBridgeMetrics());
+        try {
+            mAceEditor.fireEvent(new Event(AceEvents.onChangeTabSizeEvent));
+        } finally {
+            BridgeMetrics.endUpcall(mAceEditor.getBridgeMetrics(), "onChangeTabSize", span, 0);
+        }
     }
     
     public void onChangeWrapLimit() {
-        mAceEditor.fireEvent(new Event(AceEvents.onChangeWrapLimitEvent));
-        
+        BridgeMetrics.Span span = BridgeMetrics.startUpcall(mAceEditor.getBridgeMetrics());
+        try {
+            mAceEditor.fireEvent(new Event(AceEvents.onChangeWrapLimitEvent));
+        } finally {
+            BridgeMetrics.endUpcall(mAceEditor.getBridgeMetrics(), "onChangeWrapLimit", span, 0);
+        }
     }
     
     public void onChangeWrapMode() {
-        mAceEditor.fireEvent(new Event(AceEvents.onChangeWrapModeEvent));
+        BridgeMetrics.Span span = BridgeMetrics.startUpcall(mAceEditor.getBridgeMetrics());
+        try {
+            mAceEditor.fireEvent(new Event(AceEvents.onChangeWrapModeEvent));
+        } finally {
+            BridgeMetrics.endUpcall(mAceEditor.getBridgeMetrics(), "onChangeWrapMode", span, 0);
+        }
     }
     
     public void onTokenizerUpadate(Object e) {
-        mAceEditor.fireEvent(new Event(AceEvents.onTokenizerUpadateEvent));
-        
+        BridgeMetrics.Span span = BridgeMetrics.startUpcall(mAceEditor.getBridgeMetrics());
+        try {
+            mAceEditor.fireEvent(new Event(AceEvents.onTokenizerUpadateEvent));
+        } finally {
+            BridgeMetrics.endUpcall(mAceEditor.getBridgeMetrics(), "onTokenizerUpadate", span, 0);
+        }
     }
 }
@@ -0,0 +1,250 @@
+package dev.anarchy.ace;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import dev.anarchy.ace.model.EditTransaction;
+import dev.anarchy.ace.model.Range;
+import dev.anarchy.ace.model.RangeList;
+import dev.anarchy.ace.model.SearchOptions;
+import javafx.application.Platform;
+
+/**
+ * Gives access to an {@link AceEditor} from any thread. Every method returns
+ * at once with a future completed on the FX thread. <br/>
+ * Calls made before the FX thread gets to them are run together in a single
+ * drain, in the order they were made. Consecutive edits are merged in to one
+ * transaction, so they cost a single bridge call, form a single undo step and
+ * raise a single change event. Edits may come from independent callers: when
+ * recording the edits of one call throws, nothing has been applied yet, so
+ * each call is then applied as a transaction of its own and only the failing
+ * one fails. When the page fails to apply the merged transaction, every call
+ * merged in to it fails with that error. <br/>
+ * Calls made before the editor is loaded wait for it to load, and fail if it
+ * is disposed first.
+ */
+public final class AsyncEditor {
+
+	private abstract static class Op {
+		abstract void fail(Throwable e);
+	}
+
+	private static class Call<T> extends Op {
+		final Function<AceEditor, T> body;
+		final CompletableFuture<T> future = new CompletableFuture<>();
+
+		Call(Function<AceEditor, T> body) {
+			this.body = body;
+		}
+
+		void run(AceEditor editor) {
+			try {
+				future.complete(body.apply(editor));
+			} catch (Throwable e) {
+				future.completeExceptionally(e);
+			}
+		}
+
+		@Override
+		void fail(Throwable e) {
+			future.completeExceptionally(e);
+		}
+	}
+
+	private static class Edit extends Op {
+		final Consumer<EditTransaction> body;
+		final CompletableFuture<Void> future = new CompletableFuture<>();
+
+		Edit(Consumer<EditTransaction> body) {
+			this.body = body;
+		}
+
+		@Override
+		void fail(Throwable e) {
+			future.completeExceptionally(e);
+		}
+	}
+
+	// Thrown out of a merged transaction when recording the edits of a call fails
+	private static class RecordFailure extends RuntimeException {
+		private static final long serialVersionUID = 1L;
+
+		RecordFailure(Throwable cause) {
+			super(cause);
+		}
+	}
+
+	private final AceEditor editor;
+
+	private final ConcurrentLinkedQueue<Op> pending = new ConcurrentLinkedQueue<>();
+
+	// Set while a drain is scheduled
+	private final AtomicBoolean scheduled = new AtomicBoolean();
+
+	// Set once calls are drained when the editor loads or is disposed
+	private boolean drainOnLoad;
+
+	public AsyncEditor(AceEditor editor) {
+		this.editor = editor;
+	}
+
+	/**
+	 * Runs a function with the editor on the FX thread.
+	 *
+	 * @param body Function to run.
+	 * @return future completed with the result of the function.
+	 */
+	public <T> CompletableFuture<T> call(Function<AceEditor, T> body) {
+		Call<T> call = new Call<>(body);
+		enqueue(call);
+		return call.future;
+	}
+
+	/**
+	 * Runs some work with the editor on the FX thread.
+	 *
+	 * @param body Work to run.
+	 * @return future completed once the work has run.
+	 */
+	public CompletableFuture<Void> run(Consumer<AceEditor> body) {
+		return call(e -> {
+			body.accept(e);
+			return null;
+		});
+	}
+
+	/**
+	 * Records edits to apply. Edits of consecutive calls are applied together
+	 * as one transaction; the body of each call should only record edits, as
+	 * it runs again on its own if another call merged with it throws.
+	 *
+	 * @see AceEditor#transaction(Consumer)
+	 * @param body Records the edits to apply.
+	 * @return future completed once the edits are applied.
+	 */
+	public CompletableFuture<Void> edit(Consumer<EditTransaction> body) {
+		Edit edit = new Edit(body);
+		enqueue(edit);
+		return edit.future;
+	}
+
+	public CompletableFuture<Void> insert(int row, int column, String text) {
+		return edit(tx -> tx.insert(row, column, text));
+	}
+
+	public CompletableFuture<Void> replace(Range range, String text) {
+		return edit(tx -> tx.replace(range, text));
+	}
+
+	public CompletableFuture<Void> remove(Range range) {
+		return edit(tx -> tx.remove(range));
+	}
+
+	public CompletableFuture<String> getText() {
+		return call(AceEditor::getText);
+	}
+
+	public CompletableFuture<Void> setText(String text) {
+		return run(e -> e.setText(text));
+	}
+
+	/**
+	 * @see AceEditor#setTextIncremental(String)
+	 */
+	public CompletableFuture<Void> setTextIncremental(String text) {
+		return call(e -> e.setTextIncremental(text)).thenCompose(f -> f);
+	}
+
+	public CompletableFuture<RangeList> findAllRanges(String needle, SearchOptions options) {
+		return call(e -> e.getEditor().findAllRanges(needle, options));
+	}
+
+	private void enqueue(Op op) {
+		pending.add(op);
+		if (scheduled.compareAndSet(false, true))
+			Platform.runLater(this::drain);
+	}
+
+	private void drain() {
+		scheduled.set(false);
+		if (editor.isDisposed()) {
+			Op op;
+			while ((op = pending.poll()) != null)
+				op.fail(new IllegalStateException("Editor has been disposed"));
+			return;
+		}
+		if (!editor.isWebViewReady()) {
+			if (!drainOnLoad) {
+				drainOnLoad = true;
+				editor.setOnLoad(e -> {
+					if (!pending.isEmpty())
+						drain();
+				});
+				editor.setOnDispose(e -> {
+					if (!pending.isEmpty())
+						drain();
+				});
+			}
+			return;
+		}
+
+		List<Edit> edits = new ArrayList<>();
+		Op op;
+		while ((op = pending.poll()) != null) {
+			if (op instanceof Edit) {
+				edits.add((Edit) op);
+				continue;
+			}
+			flush(edits);
+			((Call<?>) op).run(editor);
+		}
+		flush(edits);
+	}
+
+	// Applies the edits collected so far in a single transaction
+	private void flush(List<Edit> edits) {
+		if (edits.isEmpty())
+			return;
+		if (edits.size() == 1) {
+			apply(edits.get(0));
+			edits.clear();
+			return;
+		}
+		try {
+			editor.transaction(tx -> {
+				for (Edit edit : edits) {
+					try {
+						edit.body.accept(tx);
+					} catch (RuntimeException e) {
+						throw new RecordFailure(e);
+					}
+				}
+			});
+			for (Edit edit : edits)
+				edit.future.complete(null);
+		} catch (RecordFailure e) {
+			// Nothing was sent to the page, give every call its own outcome
+			for (Edit edit : edits)
+				apply(edit);
+		} catch (Throwable e) {
+			for (Edit edit : edits)
+				edit.future.completeExceptionally(e);
+		}
+		edits.clear();
+	}
+
+	// Applies the edits of a single call as a transaction of its own
+	private void apply(Edit edit) {
+		try {
+			editor.transaction(edit.body);
+			edit.future.complete(null);
+		} catch (Throwable e) {
+			edit.future.completeExceptionally(e);
+		}
+	}
+}
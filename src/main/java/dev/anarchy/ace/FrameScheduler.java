@@ -0,0 +1,281 @@
+package dev.anarchy.ace;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javafx.animation.AnimationTimer;
+import javafx.application.Platform;
+
+/**
+ * Runs editor work on the FX thread spread over animation pulses, so large
+ * results (annotations, markers, decorations) do not all land in a single
+ * frame. Queued work runs by priority, and each pulse stops taking new work
+ * once its time budget is used up. Input work is never held back by the
+ * budget. <br/>
+ * Work can be submitted from any thread.
+ */
+public final class FrameScheduler {
+
+	/**
+	 * Order in which queued work runs, and how long it may wait before it
+	 * counts as a missed deadline.
+	 */
+	public enum Priority {
+		/** Reaction to user input, run on the next pulse whatever its cost. */
+		INPUT(16),
+		/** Updates of what is on screen. */
+		VIEWPORT(50),
+		/** Decorations computed in the background, like lint results. */
+		BACKGROUND(500);
+
+		private final long deadlineNanos;
+
+		Priority(long deadlineMillis) {
+			this.deadlineNanos = TimeUnit.MILLISECONDS.toNanos(deadlineMillis);
+		}
+
+		/**
+		 * @return how long work may wait before it counts as late, in milliseconds.
+		 */
+		public long getDeadlineMillis() {
+			return TimeUnit.NANOSECONDS.toMillis(deadlineNanos);
+		}
+	}
+
+	private static class Task {
+		final Runnable work;
+		final long queuedAt = System.nanoTime();
+
+		Task(Runnable work) {
+			this.work = work;
+		}
+	}
+
+	private static final Priority[] PRIORITIES = Priority.values();
+
+	private static FrameScheduler defaultScheduler;
+
+	private final List<ConcurrentLinkedQueue<Task>> queues = new ArrayList<>(PRIORITIES.length);
+	private final AtomicInteger[] depths = new AtomicInteger[PRIORITIES.length];
+
+	private volatile long frameBudgetNanos;
+
+	// Set while the timer runs or is about to be started
+	private final AtomicBoolean running = new AtomicBoolean();
+
+	// Metrics
+	private final AtomicLong executedCount = new AtomicLong();
+	private final AtomicLong deadlineMissCount = new AtomicLong();
+	private final AtomicLong budgetOverrunCount = new AtomicLong();
+	private final AtomicLong frameCount = new AtomicLong();
+	private volatile int maxQueueDepth;
+
+	private final AnimationTimer timer = new AnimationTimer() {
+		@Override
+		public void handle(long now) {
+			runFrame();
+		}
+	};
+
+	/**
+	 * @param frameBudgetMillis Time each pulse may spend on queued work, in milliseconds.
+	 */
+	public FrameScheduler(double frameBudgetMillis) {
+		for (int i = 0; i < PRIORITIES.length; ++i) {
+			queues.add(new ConcurrentLinkedQueue<>());
+			depths[i] = new AtomicInteger();
+		}
+		setFrameBudget(frameBudgetMillis);
+	}
+
+	/**
+	 * Gets the scheduler shared by all editors, with a budget of 8ms per
+	 * pulse.
+	 *
+	 * @return the default scheduler.
+	 */
+	public static synchronized FrameScheduler getDefault() {
+		if (defaultScheduler == null)
+			defaultScheduler = new FrameScheduler(8);
+		return defaultScheduler;
+	}
+
+	/**
+	 * Sets the time each pulse may spend on queued work.
+	 *
+	 * @param millis Budget in milliseconds.
+	 */
+	public void setFrameBudget(double millis) {
+		this.frameBudgetNanos = (long) (Math.max(0, millis) * 1_000_000);
+	}
+
+	public double getFrameBudget() {
+		return frameBudgetNanos / 1_000_000d;
+	}
+
+	/**
+	 * Queues work to run on the FX thread. Exceptions thrown by the work are
+	 * passed to the uncaught exception handler of the FX thread, as they would
+	 * be for <code>Platform.runLater</code>; queued work after it still runs.
+	 *
+	 * @param priority Priority of the work.
+	 * @param work Work to run.
+	 */
+	public void submit(Priority priority, Runnable work) {
+		int i = priority.ordinal();
+		int depth = depths[i].incrementAndGet();
+		queues.get(i).add(new Task(work));
+		if (depth > maxQueueDepth)
+			maxQueueDepth = depth;
+		if (running.compareAndSet(false, true)) {
+			if (Platform.isFxApplicationThread())
+				timer.start();
+			else
+				Platform.runLater(timer::start);
+		}
+	}
+
+	/**
+	 * Queues work to run on the FX thread and gives its result.
+	 *
+	 * @param priority Priority of the work.
+	 * @param work Work to run.
+	 * @return future completed with the result of the work, or with the
+	 * exception it threw.
+	 */
+	public <T> CompletableFuture<T> submit(Priority priority, Callable<T> work) {
+		CompletableFuture<T> future = new CompletableFuture<>();
+		submit(priority, () -> {
+			try {
+				future.complete(work.call());
+			} catch (Throwable e) {
+				future.completeExceptionally(e);
+			}
+		});
+		return future;
+	}
+
+	/**
+	 * Gets an executor queuing work with the given priority, for use with
+	 * the asynchronous methods of <code>CompletableFuture</code>.
+	 *
+	 * @param priority Priority of the work.
+	 * @return the executor.
+	 */
+	public Executor executor(Priority priority) {
+		return work -> submit(priority, work);
+	}
+
+	/**
+	 * @return number of queued tasks.
+	 */
+	public int getQueueDepth() {
+		int depth = 0;
+		for (AtomicInteger d : depths)
+			depth += d.get();
+		return depth;
+	}
+
+	/**
+	 * @return number of queued tasks of the given priority.
+	 */
+	public int getQueueDepth(Priority priority) {
+		return depths[priority.ordinal()].get();
+	}
+
+	/**
+	 * @return highest number of tasks queued with the same priority so far.
+	 */
+	public int getMaxQueueDepth() {
+		return maxQueueDepth;
+	}
+
+	/**
+	 * @return number of tasks run so far.
+	 */
+	public long getExecutedCount() {
+		return executedCount.get();
+	}
+
+	/**
+	 * @return number of tasks that waited longer than the deadline of their priority.
+	 */
+	public long getDeadlineMissCount() {
+		return deadlineMissCount.get();
+	}
+
+	/**
+	 * @return number of pulses that spent more than the frame budget.
+	 */
+	public long getBudgetOverrunCount() {
+		return budgetOverrunCount.get();
+	}
+
+	/**
+	 * @return number of pulses that ran queued work.
+	 */
+	public long getFrameCount() {
+		return frameCount.get();
+	}
+
+	/**
+	 * Resets the metrics.
+	 */
+	public void resetMetrics() {
+		executedCount.set(0);
+		deadlineMissCount.set(0);
+		budgetOverrunCount.set(0);
+		frameCount.set(0);
+		maxQueueDepth = getQueueDepth();
+	}
+
+	private void runFrame() {
+		long start = System.nanoTime();
+		long budget = frameBudgetNanos;
+
+		boolean ranAny = false;
+		for (int i = 0; i < PRIORITIES.length; ++i) {
+			boolean input = PRIORITIES[i] == Priority.INPUT;
+			Task task;
+			while ((input || !ranAny || System.nanoTime() - start < budget) && (task = queues.get(i).poll()) != null) {
+				depths[i].decrementAndGet();
+				run(task, PRIORITIES[i]);
+				ranAny = true;
+			}
+			if (!input && ranAny && System.nanoTime() - start >= budget)
+				break;
+		}
+		if (ranAny)
+			frameCount.incrementAndGet();
+		if (System.nanoTime() - start > budget)
+			budgetOverrunCount.incrementAndGet();
+
+		// Stop pulsing once idle; work queued meanwhile starts it again
+		if (getQueueDepth() == 0) {
+			timer.stop();
+			running.set(false);
+			if (getQueueDepth() > 0 && running.compareAndSet(false, true))
+				timer.start();
+		}
+	}
+
+	private void run(Task task, Priority priority) {
+		if (System.nanoTime() - task.queuedAt > priority.deadlineNanos)
+			deadlineMissCount.incrementAndGet();
+		try {
+			task.work.run();
+		} catch (RuntimeException e) {
+			Thread thread = Thread.currentThread();
+			thread.getUncaughtExceptionHandler().uncaughtException(thread, e);
+		}
+		executedCount.incrementAndGet();
+	}
+}
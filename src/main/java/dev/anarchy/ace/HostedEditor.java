@@ -0,0 +1,185 @@
+package dev.anarchy.ace;
+
+import java.util.function.Consumer;
+
+import dev.anarchy.ace.model.EditSession;
+import dev.anarchy.ace.model.Editor;
+import dev.anarchy.ace.model.ModeData;
+import dev.anarchy.ace.model.ThemeData;
+import netscape.javascript.JSObject;
+
+/**
+ * Handle of one editor inside an {@link AceEditorHost}. Settings made before
+ * the host page is loaded are kept and applied once the editor is created.
+ */
+public final class HostedEditor {
+
+	private final AceEditorHost host;
+	private final int id;
+
+	// current editor, null until the host page is loaded
+	private Editor mEditor;
+
+	// cached vars
+	private String cachedText = "";
+	private ModeData cachedModeData = Modes.Text;
+	private ThemeData cachedTheme;
+	private boolean cachedReadOnly;
+	private double cachedHeight;
+
+	private Consumer<HostedEditor> onChange;
+	private Consumer<HostedEditor> onFocus;
+	private Consumer<HostedEditor> onBlur;
+
+	@SuppressWarnings("unused")
+	private HostedEditorEvents events; // Prevent garbage collecting
+
+	HostedEditor(AceEditorHost host, int id) {
+		this.host = host;
+		this.id = id;
+	}
+
+	/**
+	 * @return the host this editor belongs to.
+	 */
+	public AceEditorHost getHost() {
+		return host;
+	}
+
+	/**
+	 * Returns whether the editor has been created in the host page.
+	 */
+	public boolean isReady() {
+		return mEditor != null;
+	}
+
+	/**
+	 * @return the editor wrapper, or null until the host page is loaded.
+	 */
+	public Editor getEditor() {
+		return mEditor;
+	}
+
+	/**
+	 * @return the session of the editor, or null until the host page is loaded.
+	 */
+	public EditSession getSession() {
+		return mEditor == null ? null : mEditor.getSession();
+	}
+
+	public String getText() {
+		return mEditor == null ? cachedText : getSession().getValue();
+	}
+
+	public void setText(String text) {
+		if (text == null)
+			text = "";
+		cachedText = text.replace("\r", "");
+		if (mEditor != null)
+			getSession().setValue(cachedText);
+	}
+
+	public ModeData getMode() {
+		return cachedModeData;
+	}
+
+	public void setMode(ModeData mode) {
+		cachedModeData = mode;
+		if (mEditor != null)
+			host.callHelper("setHostedEditorStyle", mEditor.getModel(), null, mode.getAlias());
+	}
+
+	/**
+	 * Sets the theme of this editor only. Editors use the eclipse theme by
+	 * default.
+	 */
+	public void setTheme(ThemeData theme) {
+		cachedTheme = theme;
+		if (mEditor != null)
+			host.callHelper("setHostedEditorStyle", mEditor.getModel(), theme.getAlias(), null);
+	}
+
+	public void setReadOnly(boolean readOnly) {
+		cachedReadOnly = readOnly;
+		if (mEditor != null)
+			mEditor.setReadOnly(readOnly);
+	}
+
+	/**
+	 * Sets the height of the editor in the page.
+	 *
+	 * @param height Height in pixels, or 0 to fit the editor to its content.
+	 */
+	public void setHeight(double height) {
+		cachedHeight = height;
+		if (mEditor != null)
+			host.callHelper("setHostedEditorHeight", mEditor.getModel(), height);
+	}
+
+	public double getHeight() {
+		return cachedHeight;
+	}
+
+	public void setOnChange(Consumer<HostedEditor> listener) {
+		this.onChange = listener;
+	}
+
+	public void setOnFocus(Consumer<HostedEditor> listener) {
+		this.onFocus = listener;
+	}
+
+	public void setOnBlur(Consumer<HostedEditor> listener) {
+		this.onBlur = listener;
+	}
+
+	/**
+	 * Removes this editor from its host.
+	 */
+	public void remove() {
+		host.removeEditor(this);
+	}
+
+	int getId() {
+		return id;
+	}
+
+	void bind(JSObject editor) {
+		mEditor = new Editor(editor, host.getBridgeMetrics());
+		editor.setMember("mAceEvent", events = new HostedEditorEvents(this));
+		editor.eval("(function(ed) {"
+				+ " ed.on('change', function() { if (!ed.$acefxDeltas) ed.mAceEvent.onChange(); });"
+				+ " ed.on('focus', function() { ed.mAceEvent.onFocus(); });"
+				+ " ed.on('blur', function() { ed.mAceEvent.onBlur(); });"
+				+ " })(this);");
+
+		host.callHelper("setHostedEditorStyle", editor,
+				cachedTheme == null ? null : cachedTheme.getAlias(), cachedModeData.getAlias());
+		getSession().setValue(cachedText);
+		if (cachedReadOnly)
+			mEditor.setReadOnly(true);
+		if (cachedHeight > 0)
+			setHeight(cachedHeight);
+	}
+
+	void unbind() {
+		if (mEditor != null)
+			cachedText = getSession().getValue();
+		mEditor = null;
+		events = null;
+	}
+
+	void fireChange() {
+		if (onChange != null)
+			onChange.accept(this);
+	}
+
+	void fireFocus() {
+		if (onFocus != null)
+			onFocus.accept(this);
+	}
+
+	void fireBlur() {
+		if (onBlur != null)
+			onBlur.accept(this);
+	}
+}
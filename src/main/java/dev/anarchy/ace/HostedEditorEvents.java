@@ -0,0 +1,30 @@
+package dev.anarchy.ace;
+
+/**
+ * Receives the upcalls of one editor of an {@link AceEditorHost}.
+ */
+public class HostedEditorEvents {
+
+    // editor which events are forwarded
+    private final HostedEditor mEditor;
+
+    HostedEditorEvents(HostedEditor editor) {
+        mEditor = editor;
+    }
+
+    public void onChange() {
+        mEditor.fireChange();
+    }
+
+    public void onChangeBatch(Object data) {
+        mEditor.fireChange();
+    }
+
+    public void onFocus() {
+        mEditor.fireFocus();
+    }
+
+    public void onBlur() {
+        mEditor.fireBlur();
+    }
+}
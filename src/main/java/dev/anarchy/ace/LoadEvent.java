@@ -0,0 +1,25 @@
+package dev.anarchy.ace;
+
+import javafx.event.Event;
+import javafx.event.EventType;
+
+/**
+ * Raised as {@link AceEvents#onLoadEvent} once an editor has loaded, and as
+ * {@link AceEvents#onLoadTimingsEvent} once its theme and mode are in use as
+ * well, with the timings of the load.
+ */
+public class LoadEvent extends Event {
+
+	private static final long serialVersionUID = 1L;
+
+	private final transient LoadTimings timings;
+
+	public LoadEvent(EventType<? extends Event> type, LoadTimings timings) {
+		super(type);
+		this.timings = timings;
+	}
+
+	public LoadTimings getTimings() {
+		return timings;
+	}
+}
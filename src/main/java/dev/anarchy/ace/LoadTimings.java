@@ -0,0 +1,86 @@
+package dev.anarchy.ace;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * How long each phase of loading an {@link AceEditor} took, in
+ * milliseconds, in the order the phases ran: <br/>
+ * {@link #WEB_VIEW} creating the web view (first load only), {@link #PAGE}
+ * loading <code>editor.html</code>, one <code>script:</code> phase per script
+ * of the page (like <code>script:ace.js</code>) within the page load,
+ * {@link #QUEUE} waiting for the FX thread, {@link #SET_VALUE} setting the
+ * initial text, {@link #INIT} the whole set up on the FX thread, and
+ * {@link #TOTAL} up to the load event. <br/>
+ * The theme and mode modules load asynchronously; {@link #THEME} and
+ * {@link #MODE} are measured from the end of the page load until each is in
+ * use, and may arrive after the load event. {@link #isComplete()} tells
+ * when they have; {@link AceEvents#onLoadTimingsEvent} is raised then.
+ */
+public final class LoadTimings {
+
+	public static final String WEB_VIEW = "webView";
+	public static final String PAGE = "page";
+	public static final String SCRIPT = "script:";
+	public static final String QUEUE = "queue";
+	public static final String SET_VALUE = "setValue";
+	public static final String INIT = "init";
+	public static final String TOTAL = "total";
+	public static final String THEME = "theme";
+	public static final String MODE = "mode";
+
+	/** From the start of the load until the theme and mode are in use. */
+	public static final String COMPLETE = "complete";
+
+	private final Map<String, Double> phases = new LinkedHashMap<>();
+
+	LoadTimings() {
+	}
+
+	void put(String phase, double millis) {
+		phases.put(phase, millis);
+	}
+
+	void putNanos(String phase, long nanos) {
+		phases.put(phase, nanos / 1_000_000d);
+	}
+
+	/**
+	 * Adds the phases of the scripts of the page, from the load marks of
+	 * <code>editor.html</code>: pairs of name and time in milliseconds.
+	 */
+	void putScripts(String marks) {
+		String[] parts = marks.split(",");
+		for (int i = 2; i + 1 < parts.length; i += 2)
+			put(SCRIPT + parts[i], Double.parseDouble(parts[i + 1]) - Double.parseDouble(parts[i - 1]));
+	}
+
+	/**
+	 * @param phase Name of the phase, like {@link #PAGE}.
+	 * @return duration of the phase in milliseconds, or -1 if it was not measured (yet).
+	 */
+	public double get(String phase) {
+		Double millis = phases.get(phase);
+		return millis == null ? -1 : millis;
+	}
+
+	/**
+	 * @return durations by phase, in the order they were measured.
+	 */
+	public Map<String, Double> getPhases() {
+		return Collections.unmodifiableMap(new LinkedHashMap<>(phases));
+	}
+
+	/**
+	 * @return whether the editor has loaded and its theme and mode are in use.
+	 */
+	public boolean isComplete() {
+		return phases.containsKey(TOTAL) && phases.containsKey(THEME) && phases.containsKey(MODE);
+	}
+
+	@Override
+	public String toString() {
+		return phases.toString();
+	}
+}
@@ -15,6 +15,9 @@
  */
 package dev.anarchy.ace;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import dev.anarchy.ace.model.ModeData;
 
 /**
@@ -228,4 +231,27 @@ public final class Modes {
         }
         return null;
     }
+
+    private static ModeData[] availableModes;
+
+    /**
+     * Gets the modes whose scripts are packaged with AceFX. These are all
+     * of <code>SUPPORTED_MODES</code>, unless AceFX was built with the slim profile.
+     *
+     * @return available modes, in the order of <code>SUPPORTED_MODES</code>.
+     */
+    public static synchronized ModeData[] getAvailableModes() {
+        if (availableModes == null) {
+            List<ModeData> available = new ArrayList<>();
+            for (ModeData data : SUPPORTED_MODES) {
+                String alias = data.getAlias();
+                String script = "/ace/js/mode-" + alias.substring(alias.lastIndexOf('/') + 1) + ".js";
+                if (Modes.class.getResource(script) != null) {
+                    available.add(data);
+                }
+            }
+            availableModes = available.toArray(new ModeData[0]);
+        }
+        return availableModes.clone();
+    }
 }
@@ -0,0 +1,110 @@
+package dev.anarchy.ace;
+
+import dev.anarchy.ace.util.BridgeMetrics;
+import javafx.animation.Animation;
+import javafx.animation.KeyFrame;
+import javafx.animation.Timeline;
+import javafx.scene.control.Label;
+import javafx.util.Duration;
+
+/**
+ * Display drawn over an {@link AceEditor} by its skin, showing what the
+ * editor spends its time on. It polls the editor once a second while shown;
+ * the counters it reads are only kept while it is shown.
+ */
+class PerformanceHud extends Label {
+
+	private static final String STYLE = "-fx-background-color: rgba(0, 0, 0, 0.75);"
+			+ " -fx-text-fill: #a8f0a8;"
+			+ " -fx-font-family: monospace;"
+			+ " -fx-font-size: 11px;"
+			+ " -fx-padding: 4 8 4 8;"
+			+ " -fx-background-radius: 4;";
+
+	private final AceEditor editor;
+	private final Timeline timeline;
+
+	// Counters at the previous poll
+	private long lastPoll;
+	private long lastCalls;
+	private long lastUpcalls;
+
+	// Slowest bridge call of the last second it was seen in
+	private String slowest = "-";
+
+	PerformanceHud(AceEditor editor) {
+		this.editor = editor;
+		this.timeline = new Timeline(new KeyFrame(Duration.seconds(1), e -> update()));
+		this.timeline.setCycleCount(Animation.INDEFINITE);
+		setStyle(STYLE);
+		setMouseTransparent(true);
+		setFocusTraversable(false);
+		setManaged(false);
+		setVisible(false);
+	}
+
+	void setActive(boolean active) {
+		if (active == isVisible())
+			return;
+		setVisible(active);
+		editor.setHudActive(active);
+		if (active) {
+			BridgeMetrics metrics = editor.getBridgeMetrics();
+			lastPoll = System.nanoTime();
+			lastCalls = metrics.getLiveCallCount();
+			lastUpcalls = metrics.getLiveUpcallCount();
+			slowest = "-";
+			setText("Measuring...");
+			timeline.play();
+		} else {
+			timeline.stop();
+		}
+	}
+
+	private void update() {
+		if (editor.isDisposed()) {
+			setActive(false);
+			return;
+		}
+
+		BridgeMetrics metrics = editor.getBridgeMetrics();
+		String taken = metrics.takeSlowestCall();
+		if (taken != null)
+			slowest = taken;
+
+		long now = System.nanoTime();
+		double seconds = Math.max(now - lastPoll, 1) / 1_000_000_000d;
+		long calls = metrics.getLiveCallCount();
+		long upcalls = metrics.getLiveUpcallCount();
+		double callRate = (calls - lastCalls) / seconds;
+		double upcallRate = (upcalls - lastUpcalls) / seconds;
+
+		// Read the page last, so this poll is counted with the next one
+		String stats = editor.getHudStats();
+		lastPoll = now;
+		lastCalls = metrics.getLiveCallCount();
+		lastUpcalls = metrics.getLiveUpcallCount();
+
+		String fps = "-";
+		String lines = "-";
+		String heap = "-";
+		if (stats != null) {
+			String[] parts = stats.split("\\|");
+			fps = String.format("%.1f", Integer.parseInt(parts[0]) / seconds);
+			lines = parts[1];
+			heap = (parts[3].equals("e") ? "~" : "") + String.format("%.1f MB", Long.parseLong(parts[2]) / 1048576d);
+		}
+		int[] sessions = editor.getHudSessionCounts();
+
+		setText(String.format("FPS        %s%n"
+				+ "Calls/s    %.1f%n"
+				+ "Upcalls/s  %.1f%n"
+				+ "Lines      %s%n"
+				+ "Sessions   %d live / %d open%n"
+				+ "JS heap    %s%n"
+				+ "Slowest    %s",
+				fps, callRate, upcallRate, lines, sessions[0], sessions[1], heap, slowest));
+		if (getParent() != null)
+			getParent().requestLayout();
+	}
+}
@@ -0,0 +1,373 @@
+package dev.anarchy.ace;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+import dev.anarchy.ace.model.EditSession;
+import dev.anarchy.ace.model.Editor;
+import dev.anarchy.ace.model.ModeData;
+import netscape.javascript.JSObject;
+
+/**
+ * Keeps several documents open inside a single {@link AceEditor}. Every
+ * document gets its own ace <code>EditSession</code>, with its own text, mode,
+ * undo history and folds, and switching between them only swaps the session
+ * shown by the editor. No page is reloaded and no extra web view is created.
+ * <br/>
+ * The number of sessions kept alive in JavaScript can be limited by count and
+ * by estimated size. Least recently used sessions over the limits are saved to
+ * a {@link SessionSnapshot} and destroyed, and are restored transparently the
+ * next time they are used. <br/>
+ * A restored document gets a new session, so the {@link EditSession} returned
+ * for a key is only valid until that document is evicted: the wrapper of an
+ * evicted session is destroyed and throws {@link IllegalStateException} when
+ * used. Keep the key rather than the session, and fetch the session with
+ * {@link #get(String)} each time it is needed. <br/>
+ * Must be used on the FX thread, once the editor is loaded.
+ */
+public class SessionManager {
+
+	private static class Entry {
+		EditSession session;
+		SessionSnapshot snapshot;
+		long liveBytes;
+		long lastUsed;
+	}
+
+	private final AceEditor editor;
+
+	// Session the editor was created with
+	private final EditSession defaultSession;
+
+	// Open documents by key, in the order they were opened
+	private final Map<String, Entry> entries = new LinkedHashMap<>();
+
+	private String activeKey;
+
+	// Cache limits
+	private int maxLiveSessions = Integer.MAX_VALUE;
+	private long maxLiveBytes = Long.MAX_VALUE;
+	private int maxUndoGroups = 200;
+
+	// Cache statistics
+	private long useCounter;
+	private long hitCount;
+	private long missCount;
+	private long evictionCount;
+
+	SessionManager(AceEditor editor) {
+		this.editor = editor;
+		this.defaultSession = editor.getSession();
+	}
+
+	/**
+	 * Opens a new document. The document is not shown until it is activated.
+	 * If a document is already open under the key it is returned unchanged.
+	 *
+	 * @param key Key identifying the document, e.g. its file path.
+	 * @param text Initial content.
+	 * @param mode Language mode, or null for plain text.
+	 * @return the session of the document, valid until it is evicted.
+	 */
+	public EditSession open(String key, String text, ModeData mode) {
+		if (entries.containsKey(key))
+			return get(key);
+
+		if (text == null)
+			text = "";
+		Entry entry = new Entry();
+		entry.session = getEditor().createSession(text.replace("\r", ""), mode == null ? null : mode.getAlias());
+		entry.liveBytes = 2L * text.length();
+		entry.lastUsed = ++useCounter;
+		entries.put(key, entry);
+		enforceLimits(entry);
+		return entry.session;
+	}
+
+	/**
+	 * Shows the document with the given key in the editor.
+	 *
+	 * @param key Key of an open document.
+	 * @return the session now shown, valid until it is evicted.
+	 * @throws IllegalArgumentException if no document is open under the key.
+	 */
+	public EditSession activate(String key) {
+		Entry entry = entries.get(key);
+		if (entry == null)
+			throw new IllegalArgumentException("No session open for " + key);
+		if (!key.equals(activeKey)) {
+			// Refresh the size of the session being hidden, it may have grown while shown
+			Entry previous = activeKey == null ? null : entries.get(activeKey);
+			if (previous != null && previous.session != null)
+				previous.liveBytes = estimateBytes(previous.session);
+
+			getEditor().setSession(use(entry));
+			activeKey = key;
+			enforceLimits(entry);
+		} else {
+			use(entry);
+		}
+		return entry.session;
+	}
+
+	/**
+	 * Closes a document and destroys its session. When the document is the
+	 * one shown, the editor goes back to its default session.
+	 *
+	 * @param key Key of the document.
+	 */
+	public void close(String key) {
+		Entry entry = entries.remove(key);
+		if (entry == null)
+			return;
+		if (key.equals(activeKey)) {
+			getEditor().setSession(defaultSession);
+			activeKey = null;
+		}
+		if (entry.session != null)
+			destroy(entry.session);
+	}
+
+	/**
+	 * Closes every document.
+	 */
+	public void closeAll() {
+		for (String key : entries.keySet().toArray(new String[0]))
+			close(key);
+	}
+
+	/**
+	 * Gets the session of a document, restoring it if it was evicted.
+	 *
+	 * @param key Key of the document.
+	 * @return the session of the document, valid until it is evicted, or null
+	 * if it is not open.
+	 */
+	public EditSession get(String key) {
+		Entry entry = entries.get(key);
+		if (entry == null)
+			return null;
+		EditSession session = use(entry);
+		enforceLimits(entry);
+		return session;
+	}
+
+	/**
+	 * @param key Key of the document.
+	 * @return true if a document is open under the key.
+	 */
+	public boolean isOpen(String key) {
+		return entries.containsKey(key);
+	}
+
+	/**
+	 * @param key Key of the document.
+	 * @return true if the document is open and its session is alive in JavaScript.
+	 */
+	public boolean isLive(String key) {
+		Entry entry = entries.get(key);
+		return entry != null && entry.session != null;
+	}
+
+	/**
+	 * @param key Key of the document.
+	 * @return the snapshot of an evicted document, or null if it is live or not open.
+	 */
+	public SessionSnapshot getSnapshot(String key) {
+		Entry entry = entries.get(key);
+		return entry == null ? null : entry.snapshot;
+	}
+
+	/**
+	 * @return key of the document shown, or null if the default session is shown.
+	 */
+	public String getActiveKey() {
+		return activeKey;
+	}
+
+	/**
+	 * @return keys of all open documents, in the order they were opened.
+	 */
+	public Set<String> getKeys() {
+		return Collections.unmodifiableSet(entries.keySet());
+	}
+
+	/**
+	 * @return number of open documents, live or evicted.
+	 */
+	public int size() {
+		return entries.size();
+	}
+
+	/**
+	 * Gets the session the editor was created with. It is shown whenever no
+	 * document is active.
+	 *
+	 * @return the default session.
+	 */
+	public EditSession getDefaultSession() {
+		return defaultSession;
+	}
+
+	/**
+	 * Sets how many sessions are kept alive in JavaScript. The active session
+	 * is never evicted, nor is the session just returned by {@link #open} or
+	 * {@link #get}, so the limit may be exceeded by one until the next access.
+	 *
+	 * @param max Maximum number of live sessions.
+	 */
+	public void setMaxLiveSessions(int max) {
+		this.maxLiveSessions = Math.max(1, max);
+		enforceLimits(null);
+	}
+
+	public int getMaxLiveSessions() {
+		return maxLiveSessions;
+	}
+
+	/**
+	 * Sets the estimated JavaScript heap the live sessions may use together.
+	 * The active session, and the session just returned by {@link #open} or
+	 * {@link #get}, are never evicted.
+	 *
+	 * @param max Maximum estimated size, in bytes.
+	 */
+	public void setMaxLiveBytes(long max) {
+		this.maxLiveBytes = Math.max(0, max);
+		enforceLimits(null);
+	}
+
+	public long getMaxLiveBytes() {
+		return maxLiveBytes;
+	}
+
+	/**
+	 * Sets how many undo groups are kept when a session is evicted. Older
+	 * groups, and the redo history, are dropped.
+	 *
+	 * @param max Number of undo groups to keep.
+	 */
+	public void setMaxUndoGroups(int max) {
+		this.maxUndoGroups = Math.max(0, max);
+	}
+
+	public int getMaxUndoGroups() {
+		return maxUndoGroups;
+	}
+
+	/**
+	 * @return number of accesses to a document whose session was live.
+	 */
+	public long getHitCount() {
+		return hitCount;
+	}
+
+	/**
+	 * @return number of accesses to a document that had to be restored.
+	 */
+	public long getMissCount() {
+		return missCount;
+	}
+
+	/**
+	 * @return number of sessions evicted so far.
+	 */
+	public long getEvictionCount() {
+		return evictionCount;
+	}
+
+	/**
+	 * @return number of sessions alive in JavaScript.
+	 */
+	public int getLiveCount() {
+		int count = 0;
+		for (Entry entry : entries.values()) {
+			if (entry.session != null)
+				count++;
+		}
+		return count;
+	}
+
+	/**
+	 * @return estimated JavaScript heap used by the live sessions, in bytes.
+	 */
+	public long getLiveBytes() {
+		long bytes = 0;
+		for (Entry entry : entries.values()) {
+			if (entry.session != null)
+				bytes += entry.liveBytes;
+		}
+		return bytes;
+	}
+
+	/**
+	 * @return estimated Java heap used by the snapshots of evicted sessions, in bytes.
+	 */
+	public long getSnapshotBytes() {
+		long bytes = 0;
+		for (Entry entry : entries.values()) {
+			if (entry.snapshot != null)
+				bytes += entry.snapshot.getEstimatedBytes();
+		}
+		return bytes;
+	}
+
+	Editor getEditor() {
+		return editor.getEditor();
+	}
+
+	@SuppressWarnings("deprecation")
+	void destroy(EditSession session) {
+		session.destroy();
+	}
+
+	// Marks the entry as used, restoring its session if it was evicted
+	private EditSession use(Entry entry) {
+		entry.lastUsed = ++useCounter;
+		if (entry.session != null) {
+			hitCount++;
+			return entry.session;
+		}
+
+		missCount++;
+		SessionSnapshot snapshot = entry.snapshot;
+		JSObject session = (JSObject) getEditor().callHelper("restoreSession", getEditor().getModel(),
+				snapshot.getMeta(), snapshot.getFolds(), snapshot.getUndo(), snapshot.getText());
+		entry.session = new EditSession(session, getEditor().getMetrics());
+		entry.liveBytes = 2L * snapshot.getText().length();
+		entry.snapshot = null;
+		return entry.session;
+	}
+
+	private void evict(Entry entry) {
+		String data = (String) getEditor().callHelper("snapshotSession", entry.session.getModel(), maxUndoGroups);
+		entry.snapshot = SessionSnapshot.parse(data);
+		destroy(entry.session);
+		entry.session = null;
+		evictionCount++;
+	}
+
+	private long estimateBytes(EditSession session) {
+		Object bytes = getEditor().callHelper("estimateSessionBytes", session.getModel());
+		return bytes instanceof Number ? ((Number) bytes).longValue() : 0;
+	}
+
+	// Evicts least recently used sessions until the cache is within its
+	// limits. Neither the active entry nor the one being used are evicted.
+	private void enforceLimits(Entry using) {
+		Entry active = activeKey == null ? null : entries.get(activeKey);
+		while (getLiveCount() > maxLiveSessions || getLiveBytes() > maxLiveBytes) {
+			Entry oldest = null;
+			for (Entry entry : entries.values()) {
+				if (entry.session != null && entry != active && entry != using
+						&& (oldest == null || entry.lastUsed < oldest.lastUsed))
+					oldest = entry;
+			}
+			if (oldest == null)
+				return;
+			evict(oldest);
+		}
+	}
+}
@@ -0,0 +1,96 @@
+package dev.anarchy.ace;
+
+import dev.anarchy.ace.model.DocPos;
+
+/**
+ * Java side copy of an evicted session, used by {@link SessionManager} to
+ * free the JavaScript heap of documents that have not been used for a while.
+ * Holds the text, cursor, scroll position, folds, session options (tab size,
+ * soft tabs, wrapping...) and a compacted undo history
+ * (text changes of the most recent undo groups only; no redo history).
+ */
+public final class SessionSnapshot {
+
+	private final String mode;
+	private final int cursorRow;
+	private final int cursorColumn;
+	private final int scrollTop;
+	private final int scrollLeft;
+	private final String meta;
+	private final String folds;
+	private final String undo;
+	private final String text;
+
+	private SessionSnapshot(String meta, String folds, String undo, String text) {
+		// The session options follow the fields on a line of their own
+		int eol = meta.indexOf('\n');
+		String[] m = (eol < 0 ? meta : meta.substring(0, eol)).split(",", -1);
+		this.mode = m[0];
+		this.cursorRow = Integer.parseInt(m[1]);
+		this.cursorColumn = Integer.parseInt(m[2]);
+		this.scrollTop = Integer.parseInt(m[3]);
+		this.scrollLeft = Integer.parseInt(m[4]);
+		this.meta = meta;
+		this.folds = folds;
+		this.undo = undo;
+		this.text = text;
+	}
+
+	/**
+	 * Parses the result of <code>acefx.snapshotSession</code>.
+	 */
+	static SessionSnapshot parse(String data) {
+		int eol = data.indexOf('\n');
+		String[] lengths = data.substring(0, eol).split(",");
+		String[] sections = new String[4];
+		int pos = eol + 1;
+		for (int i = 0; i < sections.length; ++i) {
+			int length = Integer.parseInt(lengths[i]);
+			sections[i] = data.substring(pos, pos + length);
+			pos += length;
+		}
+		return new SessionSnapshot(sections[0], sections[1], sections[2], sections[3]);
+	}
+
+	/**
+	 * @return alias of the session mode, like <code>ace/mode/java</code>.
+	 */
+	public String getMode() {
+		return mode;
+	}
+
+	public String getText() {
+		return text;
+	}
+
+	public DocPos getCursor() {
+		return new DocPos(cursorRow, cursorColumn);
+	}
+
+	public int getScrollTop() {
+		return scrollTop;
+	}
+
+	public int getScrollLeft() {
+		return scrollLeft;
+	}
+
+	/**
+	 * @return estimated Java heap used by this snapshot, in bytes.
+	 */
+	public long getEstimatedBytes() {
+		return 2L * (meta.length() + folds.length() + undo.length() + text.length());
+	}
+
+	String getMeta() {
+		return meta;
+	}
+
+	String getFolds() {
+		return folds;
+	}
+
+	String getUndo() {
+		return undo;
+	}
+}
@@ -0,0 +1,150 @@
+package dev.anarchy.ace;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import dev.anarchy.ace.model.Delta;
+
+/**
+ * A document shown by several {@link AceEditor} views, e.g. the panes of a
+ * split editor. Changes made in one view are passed to the other views as
+ * deltas, so only the changed text crosses the bridge, and every view keeps
+ * its own cursor, selection and scroll position. <br/>
+ * A view shows the shared document in its current session; switching the
+ * session of a view detaches it. Must be used on the FX thread.
+ */
+public class SharedDocument {
+
+	// Lines of the document, kept up to date from the deltas of the views
+	private final List<String> lines = new ArrayList<>();
+
+	private final List<AceEditor> views = new ArrayList<>();
+
+	// Incremented for every change of the document
+	private long version;
+
+	public SharedDocument(String text) {
+		lines.addAll(Arrays.asList(normalize(text).split("\n", -1)));
+	}
+
+	/**
+	 * Shows this document in a view. The current content of the view is
+	 * replaced.
+	 *
+	 * @param view Editor to show the document in.
+	 * @throws IllegalStateException if the view already shows another shared
+	 *             document.
+	 */
+	public void attach(AceEditor view) {
+		if (view.getSharedDocument() == this)
+			return;
+		if (view.getSharedDocument() != null)
+			throw new IllegalStateException("Editor already shows another shared document");
+		view.setText(getText());
+		view.setSharedDocument(this);
+		views.add(view);
+	}
+
+	/**
+	 * Stops sharing this document with a view. The view keeps its content.
+	 *
+	 * @param view Editor to detach.
+	 */
+	public void detach(AceEditor view) {
+		if (views.remove(view))
+			view.setSharedDocument(null);
+	}
+
+	/**
+	 * @return views showing this document.
+	 */
+	public List<AceEditor> getViews() {
+		return Collections.unmodifiableList(views);
+	}
+
+	public String getText() {
+		return String.join("\n", lines);
+	}
+
+	/**
+	 * Replaces the content of the document in all views.
+	 *
+	 * @param text the new content.
+	 */
+	public void setText(String text) {
+		String[] newLines = normalize(text).split("\n", -1);
+		int lastRow = lines.size() - 1;
+		List<Delta> deltas = new ArrayList<>(2);
+		deltas.add(new Delta(false, 0, 0, lastRow, lines.get(lastRow).length(), lines.toArray(new String[0])));
+		deltas.add(new Delta(true, 0, 0, newLines.length - 1, newLines[newLines.length - 1].length(), newLines));
+		onLocalChange(null, deltas);
+	}
+
+	public int getLineCount() {
+		return lines.size();
+	}
+
+	public String getLine(int row) {
+		return lines.get(row);
+	}
+
+	/**
+	 * @return a number incremented for every change of the document.
+	 */
+	public long getVersion() {
+		return version;
+	}
+
+	/**
+	 * Called by a view with the changes made to it, or with null for changes
+	 * made through this document.
+	 */
+	void onLocalChange(AceEditor source, List<Delta> deltas) {
+		StringBuilder data = new StringBuilder();
+		for (Delta delta : deltas) {
+			apply(delta);
+			data.append(delta.serialize());
+		}
+		version++;
+
+		String serialized = data.toString();
+		for (AceEditor view : views) {
+			if (view == source)
+				continue;
+			if (view.isWebViewReady())
+				view.applySharedDeltas(serialized);
+			else
+				view.setText(getText());
+		}
+	}
+
+	private void apply(Delta delta) {
+		int row = delta.getStartRow();
+		int column = delta.getStartColumn();
+		String[] text = delta.getLines();
+		if (delta.isInsert()) {
+			String line = lines.get(row);
+			String head = line.substring(0, column);
+			String tail = line.substring(column);
+			if (text.length == 1) {
+				lines.set(row, head + text[0] + tail);
+				return;
+			}
+			lines.set(row, head + text[0]);
+			lines.addAll(row + 1, Arrays.asList(text).subList(1, text.length - 1));
+			lines.add(row + text.length - 1, text[text.length - 1] + tail);
+		} else {
+			int endRow = delta.getEndRow();
+			String head = lines.get(row).substring(0, column);
+			String tail = lines.get(endRow).substring(delta.getEndColumn());
+			lines.subList(row + 1, endRow + 1).clear();
+			lines.set(row, head + tail);
+		}
+	}
+
+	private static String normalize(String text) {
+		return text == null ? "" : text.replace("\r", "");
+	}
+}
@@ -0,0 +1,87 @@
+package dev.anarchy.ace;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+import javafx.beans.InvalidationListener;
+import javafx.scene.Node;
+import javafx.scene.Scene;
+import javafx.stage.Window;
+
+/**
+ * Tells whether a node can currently be seen: it is in a scene of a showing
+ * window, and neither it nor any of its parents is invisible, as is the case
+ * for the content of a tab that is not selected.
+ */
+class ShowingTracker {
+
+	private final Node node;
+	private final Consumer<Boolean> onChange;
+	private final InvalidationListener listener = o -> update();
+
+	// Nodes, scene and window currently observed
+	private final List<Node> observed = new ArrayList<>();
+	private Scene scene;
+	private Window window;
+
+	private boolean showing;
+
+	ShowingTracker(Node node, Consumer<Boolean> onChange) {
+		this.node = node;
+		this.onChange = onChange;
+		update();
+	}
+
+	boolean isShowing() {
+		return showing;
+	}
+
+	private void update() {
+		unobserve();
+
+		boolean visible = true;
+		for (Node n = node; n != null; n = n.getParent()) {
+			n.visibleProperty().addListener(listener);
+			n.parentProperty().addListener(listener);
+			n.sceneProperty().addListener(listener);
+			observed.add(n);
+			visible &= n.isVisible();
+		}
+		scene = node.getScene();
+		if (scene != null) {
+			scene.windowProperty().addListener(listener);
+			window = scene.getWindow();
+			if (window != null)
+				window.showingProperty().addListener(listener);
+		}
+
+		boolean now = visible && window != null && window.isShowing();
+		if (now != showing) {
+			showing = now;
+			onChange.accept(now);
+		}
+	}
+
+	private void unobserve() {
+		for (Node n : observed) {
+			n.visibleProperty().removeListener(listener);
+			n.parentProperty().removeListener(listener);
+			n.sceneProperty().removeListener(listener);
+		}
+		observed.clear();
+		if (scene != null)
+			scene.windowProperty().removeListener(listener);
+		if (window != null)
+			window.showingProperty().removeListener(listener);
+		scene = null;
+		window = null;
+	}
+
+	/**
+	 * Stops observing the node.
+	 */
+	void dispose() {
+		unobserve();
+	}
+}
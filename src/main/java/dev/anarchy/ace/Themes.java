@@ -15,6 +15,9 @@
  */
 package dev.anarchy.ace;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import dev.anarchy.ace.model.ThemeData;
 
 /**
@@ -164,4 +167,27 @@ public final class Themes {
         }
     }
 
+    private static ThemeData[] availableThemes;
+
+    /**
+     * Gets the themes whose scripts are packaged with AceFX. These are all
+     * of <code>SUPPORTED_THEMES</code>, unless AceFX was built with the slim profile.
+     *
+     * @return available themes, in the order of <code>SUPPORTED_THEMES</code>.
+     */
+    public static synchronized ThemeData[] getAvailableThemes() {
+        if (availableThemes == null) {
+            List<ThemeData> available = new ArrayList<>();
+            for (ThemeData data : SUPPORTED_THEMES) {
+                String alias = data.getAlias();
+                String script = "/ace/js/theme-" + alias.substring(alias.lastIndexOf('/') + 1) + ".js";
+                if (Themes.class.getResource(script) != null) {
+                    available.add(data);
+                }
+            }
+            availableThemes = available.toArray(new ThemeData[0]);
+        }
+        return availableThemes.clone();
+    }
+
 }
@@ -0,0 +1,58 @@
+package dev.anarchy.ace.jfr;
+
+/**
+ * Emits the AceFX Flight Recorder events. <br/>
+ * This is the Java 8 version, which records nothing. The jar is a
+ * multi-release jar: on Java 11 and later the version in
+ * <code>META-INF/versions/11</code> is used instead, which creates the events
+ * while a recording is running. <br/>
+ * Calls that begin an event return it as an opaque object, or null if the
+ * event is not recorded; it must be passed back to the matching end call.
+ */
+public final class AceJfr {
+
+    private AceJfr() {
+    }
+
+    /**
+     * Returns whether a Flight Recorder recording is running.
+     */
+    public static boolean isRecording() {
+        return false;
+    }
+
+    public static Object beginBridgeCall() {
+        return null;
+    }
+
+    public static void endBridgeCall(Object event, String editor, String call, long payloadChars) {
+    }
+
+    public static Object beginEventDispatch() {
+        return null;
+    }
+
+    public static void endEventDispatch(Object event, String editor, String upcall, long payloadChars) {
+    }
+
+    public static Object beginEditorLoad() {
+        return null;
+    }
+
+    public static void endEditorLoad(Object event, String editor, String phase, boolean success) {
+    }
+
+    public static Object beginSetText() {
+        return null;
+    }
+
+    public static void endSetText(Object event, String editor, long length, boolean incremental, int edits) {
+    }
+
+    public static Object beginClipboard() {
+        return null;
+    }
+
+    public static void endClipboard(Object event, String editor, String operation, long length) {
+    }
+}
@@ -0,0 +1,149 @@
+package dev.anarchy.ace.model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import netscape.javascript.JSException;
+import netscape.javascript.JSObject;
+
+/**
+ * Java copy of an ace document delta, as delivered by the <code>change</code>
+ * event. <br/>
+ * Deltas cross the bridge in a compact text form: a header line
+ * <code>action,startRow,startColumn,endRow,endColumn,lineCount</code> followed
+ * by the inserted or removed lines, each terminated by a newline. Lines never
+ * contain newlines themselves, so the form needs no escaping.
+ */
+public class Delta {
+
+    /**
+     * JavaScript expression turning the delta <code>d</code> into its compact
+     * text form.
+     */
+    public static final String JS_SERIALIZER = "(d.action == 'insert' ? 'i' : 'r') + ',' + d.start.row + ',' + d.start.column"
+            + " + ',' + d.end.row + ',' + d.end.column + ',' + d.lines.length + '\\n' + d.lines.join('\\n') + '\\n'";
+
+    private final boolean mInsert;
+    private final int mStartRow;
+    private final int mStartColumn;
+    private final int mEndRow;
+    private final int mEndColumn;
+    private final String[] mLines;
+
+    public Delta(boolean insert, int startRow, int startColumn, int endRow, int endColumn, String[] lines) {
+        mInsert = insert;
+        mStartRow = startRow;
+        mStartColumn = startColumn;
+        mEndRow = endRow;
+        mEndColumn = endColumn;
+        mLines = lines;
+    }
+
+    /**
+     * Reads a delta object in a single bridge call.
+     *
+     * @param delta JavaScript delta object.
+     * @return Java copy of the delta.
+     */
+    public static Delta fromJS(JSObject delta) throws JSException {
+        String data = (String) delta.eval("(function(d) { return " + JS_SERIALIZER + "; })(this)");
+        List<Delta> list = parseAll(data);
+        return list.isEmpty() ? null : list.get(0);
+    }
+
+    /**
+     * Reads an array of delta objects in a single bridge call.
+     *
+     * @param deltas JavaScript array of deltas.
+     * @return Java copies of the deltas in the same order.
+     */
+    public static List<Delta> fromJSArray(JSObject deltas) throws JSException {
+        String data = (String) deltas.eval("Array.prototype.map.call(this, function(d) { return " + JS_SERIALIZER + "; }).join('')");
+        return parseAll(data);
+    }
+
+    /**
+     * Parses any number of deltas in compact text form.
+     *
+     * @param data Concatenated compact deltas.
+     * @return list of deltas in the order they appear.
+     */
+    public static List<Delta> parseAll(String data) {
+        List<Delta> deltas = new ArrayList<>();
+        if (data == null) {
+            return deltas;
+        }
+        int pos = 0;
+        while (pos < data.length()) {
+            int eol = data.indexOf('\n', pos);
+            int[] header = RangeList.parseInts(data.substring(pos + 2, eol), 5);
+            boolean insert = data.charAt(pos) == 'i';
+            pos = eol + 1;
+
+            String[] lines = new String[header[4]];
+            for (int i = 0; i < lines.length; ++i) {
+                eol = data.indexOf('\n', pos);
+                lines[i] = data.substring(pos, eol);
+                pos = eol + 1;
+            }
+            deltas.add(new Delta(insert, header[0], header[1], header[2], header[3], lines));
+        }
+        return deltas;
+    }
+
+    /**
+     * @return true for an insertion; false for a removal.
+     */
+    public boolean isInsert() {
+        return mInsert;
+    }
+
+    public int getStartRow() {
+        return mStartRow;
+    }
+
+    public int getStartColumn() {
+        return mStartColumn;
+    }
+
+    public int getEndRow() {
+        return mEndRow;
+    }
+
+    public int getEndColumn() {
+        return mEndColumn;
+    }
+
+    /**
+     * Gets the inserted or removed lines. Joined with newlines they form the
+     * changed text.
+     *
+     * @return lines of the change.
+     */
+    public String[] getLines() {
+        return mLines;
+    }
+
+    /**
+     * Gets the delta in compact text form.
+     *
+     * @return text form understood by {@link #parseAll(String)}.
+     */
+    public String serialize() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(mInsert ? 'i' : 'r').append(',')
+                .append(mStartRow).append(',').append(mStartColumn).append(',')
+                .append(mEndRow).append(',').append(mEndColumn).append(',')
+                .append(mLines.length).append('\n');
+        for (String line : mLines) {
+            sb.append(line).append('\n');
+        }
+        return sb.toString();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("{action:'%s', start:{row: %d, column: %d}, end:{row: %d, column: %d}, lines:%d}",
+                mInsert ? "insert" : "remove", mStartRow, mStartColumn, mEndRow, mEndColumn, mLines.length);
+    }
+}
@@ -18,13 +18,14 @@ package dev.anarchy.ace.model;
 import netscape.javascript.JSObject;
 
 /**
+ * Immutable position in a document.
  *
  * @author Dipu
  */
-public class DocPos {
+public final class DocPos implements Comparable<DocPos> {
 
-    private int mRow;
-    private int mColumn;
+    private final int mRow;
+    private final int mColumn;
 
     public DocPos() {
         mRow = 0;
@@ -37,8 +38,10 @@ public class DocPos {
     }
 
     public DocPos(JSObject arg) {
-        this.mRow = (int) arg.getMember("row");
-        this.mColumn = (int) arg.getMember("column");
+        // Read both coordinates in one crossing; the column may be Infinity
+        int[] values = RangeList.parseInts((String) arg.eval("this.row + ',' + this.column"), 2);
+        this.mRow = values[0];
+        this.mColumn = values[1];
     }
 
     public int getRow() {
@@ -49,12 +52,66 @@ public class DocPos {
         return mColumn;
     }
 
-    public void setRow(int row) {
-        this.mRow = row;
+    /**
+     * Packs a row and column into a single long. Packed positions compare in
+     * document order as long as row and column are non-negative.
+     *
+     * @param row Row of the position.
+     * @param column Column of the position.
+     * @return the packed position.
+     */
+    public static long pack(int row, int column) {
+        return ((long) row << 32) | (column & 0xFFFFFFFFL);
+    }
+
+    /**
+     * @param packed Position created by {@link #pack(int, int)}.
+     * @return row of the packed position.
+     */
+    public static int unpackRow(long packed) {
+        return (int) (packed >>> 32);
+    }
+
+    /**
+     * @param packed Position created by {@link #pack(int, int)}.
+     * @return column of the packed position.
+     */
+    public static int unpackColumn(long packed) {
+        return (int) packed;
+    }
+
+    /**
+     * Gets this position packed into a single long.
+     *
+     * @return the packed position.
+     */
+    public long pack() {
+        return pack(mRow, mColumn);
     }
 
-    public void setColumn(int col) {
-        this.mColumn = col;
+    @Override
+    public int compareTo(DocPos other) {
+        if (mRow != other.mRow) {
+            return Integer.compare(mRow, other.mRow);
+        }
+        return Integer.compare(mColumn, other.mColumn);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (!(obj instanceof DocPos)) {
+            return false;
+        }
+        DocPos other = (DocPos) obj;
+        return mRow == other.mRow && mColumn == other.mColumn;
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * mRow + mColumn;
     }
 
     @Override
@@ -19,6 +19,7 @@ import java.util.ArrayList;
 import java.util.Map;
 
 import dev.anarchy.ace.util.Commons;
+import dev.anarchy.ace.util.BridgeMetrics;
 import netscape.javascript.JSException;
 import netscape.javascript.JSObject;
 
@@ -29,7 +30,9 @@ import netscape.javascript.JSObject;
 public class EditSession {
 
     private final JSObject mSession;
+    private final BridgeMetrics mMetrics;
     private UndoManager mUndoManager;
+    private boolean mDestroyed;
 
     /**
      * Creates a new wrapper for EditorSession in ace editor.
@@ -37,9 +40,20 @@ public class EditSession {
      * @param session Main object to wrap.
      */
     public EditSession(JSObject session) throws JSException {
+        this(session, null);
+    }
+
+    /**
+     * Creates a new wrapper for EditorSession in ace editor.
+     *
+     * @param session Main object to wrap.
+     * @param metrics Metrics recording the calls made through this session, or null.
+     */
+    public EditSession(JSObject session, BridgeMetrics metrics) throws JSException {
         mSession = session;
-        JSObject undoManager = (JSObject) session.call("getUndoManager");
-        mUndoManager = new UndoManager(undoManager);
+        mMetrics = metrics;
+        JSObject undoManager = (JSObject) call("getUndoManager");
+        mUndoManager = new UndoManager(undoManager, metrics);
     }
 
     /**
@@ -60,7 +74,7 @@ public class EditSession {
      */
     @Deprecated
     public Object addDynamicMarker(JSObject marker, Boolean inFront) throws JSException {
-        return mSession.call("addDynamicMarker", marker, inFront);
+        return call("addDynamicMarker", marker, inFront);
     }
 
     /**
@@ -71,7 +85,7 @@ public class EditSession {
      * @return Fold that has been applied.
      */
     public Object addFold(Object placeholder, JSObject range) {
-        return mSession.call("addFold", placeholder, range);
+        return call("addFold", placeholder, range);
     }
 
     /**
@@ -81,7 +95,7 @@ public class EditSession {
      * @param className Required. The class to add
      */
     public void addGutterDecoration(Integer row, String className) throws JSException {
-        mSession.call("addGutterDecoration", row, className);
+        call("addGutterDecoration", row, className);
     }
 
     /**
@@ -97,11 +111,11 @@ public class EditSession {
      */
     @Deprecated
     public int addMarker(Range range, String clazz, String type, Boolean inFront) throws JSException {
-        return (int) mSession.call("addMarker", Commons.getObject(mSession, range), clazz, type, inFront);
+        return (int) call("addMarker", object(range), clazz, type, inFront);
     }
 
     public boolean adjustWrapLimit(Integer limit, boolean printMargin) throws JSException {
-        return (boolean) mSession.call("adjustWrapLimit", limit, printMargin);
+        return (boolean) call("adjustWrapLimit", limit, printMargin);
     }
 
     /**
@@ -109,7 +123,7 @@ public class EditSession {
      * the 'changeAnnotation' event.
      */
     public void clearAnnotations() throws JSException {
-        mSession.call("clearAnnotations");
+        call("clearAnnotations");
     }
 
     /**
@@ -119,7 +133,7 @@ public class EditSession {
      * @param row Required. A row index
      */
     public void clearBreakpoint(Integer row) throws JSException {
-        mSession.call("clearBreakpoint", row);
+        call("clearBreakpoint", row);
     }
 
     /**
@@ -127,12 +141,25 @@ public class EditSession {
      * 'changeBreakpoint' event.
      */
     public void clearBreakpoints() throws JSException {
-        mSession.call("clearBreakpoints");
+        call("clearBreakpoints");
     }
 
+    /**
+     * Destroys the session. Any later use of this wrapper throws an
+     * {@link IllegalStateException}, so edits can not go to a document that
+     * is no longer shown or saved anywhere.
+     */
     @Deprecated
     public void destroy() {
-        mSession.call("destroy");
+        call("destroy");
+        mDestroyed = true;
+    }
+
+    /**
+     * @return true once {@link #destroy()} has been called.
+     */
+    public boolean isDestroyed() {
+        return mDestroyed;
     }
 
     /**
@@ -143,7 +170,7 @@ public class EditSession {
      * @return the screen column.
      */
     public int documentToScreenColumn(Integer docRow, Integer docColumn) throws JSException {
-        return (int) mSession.call("documentToScreenColumn", docRow, docColumn);
+        return (int) call("documentToScreenColumn", docRow, docColumn);
     }
 
     /**
@@ -156,7 +183,7 @@ public class EditSession {
      * @return screen coordinates.
      */
     public DocPos documentToScreenPosition(Integer docRow, Integer docColumn) throws JSException {
-        return new DocPos((JSObject) mSession.call("documentToScreenPosition", docRow, docColumn));
+        return new DocPos((JSObject) call("documentToScreenPosition", docRow, docColumn));
     }
 
     /**
@@ -167,7 +194,7 @@ public class EditSession {
      * @return the screen row.
      */
     public int documentToScreenRow(Integer docRow, Integer docColumn) throws JSException {
-        return (int) mSession.call("documentToScreenRow", docRow, docColumn);
+        return (int) call("documentToScreenRow", docRow, docColumn);
     }
 
     /**
@@ -178,12 +205,12 @@ public class EditSession {
      * @return number of lines copied.
      */
     public int duplicateLines(Integer firstRow, Integer lastRow) throws JSException {
-        return (int) mSession.call("duplicateLines", firstRow, lastRow);
+        return (int) call("duplicateLines", firstRow, lastRow);
     }
 
     @Deprecated
     public void expandFold(JSObject fold) {
-        mSession.call("expandFold", fold);
+        call("expandFold", fold);
     }
 
     /**
@@ -195,7 +222,7 @@ public class EditSession {
      */
     @Deprecated
     public DocPos findMatchingBracket(DocPos position, Character chr) {
-        return new DocPos((JSObject) mSession.call("findMatchingBracket", Commons.getObject(mSession, position), chr));
+        return new DocPos((JSObject) call("findMatchingBracket", object(position), chr));
     }
 
     /**
@@ -208,7 +235,7 @@ public class EditSession {
      * @param depth Depth of the foldable region.
      */
     public void foldAll(Integer startRow, Integer endRow, Integer depth) {
-        mSession.call("foldAll", startRow, endRow, depth);
+        call("foldAll", startRow, endRow, depth);
     }
 
     /**
@@ -219,11 +246,21 @@ public class EditSession {
      * @return the range of a word, including its right whitespace.
      */
     public JSObject getAWordRange(Integer row, Integer column) {
-        return (JSObject) mSession.call("getAWordRange", row, column);
+        return (JSObject) call("getAWordRange", row, column);
     }
 
     public JSObject getAllFolds() {
-        return (JSObject) mSession.call("getAllFolds");
+        return (JSObject) call("getAllFolds");
+    }
+
+    /**
+     * Gets the ranges of all folds in the session, read in a single bridge
+     * call.
+     *
+     * @return list of fold ranges.
+     */
+    public RangeList getFoldRanges() {
+        return RangeList.fromJS((JSObject) call("getAllFolds"));
     }
 
     /**
@@ -233,12 +270,12 @@ public class EditSession {
      */
     @Deprecated
     public JSObject getAnnotations() throws JSException {
-        return (JSObject) mSession.call("getAnnotations");
+        return (JSObject) call("getAnnotations");
     }
 
     @Deprecated
     public Range getBracketRange(DocPos pos) {
-        JSObject obj = (JSObject) mSession.call("getBracketRange", Commons.getObject(mSession, pos));
+        JSObject obj = (JSObject) call("getBracketRange", object(pos));
         return obj == null ? null : new Range(obj);
     }
 
@@ -248,7 +285,7 @@ public class EditSession {
      * @return an array of numbers, indicating which rows have breakpoints.
      */
     public int getBreakpoints() throws JSException {
-        return (int) mSession.call("getBreakpoints");
+        return (int) call("getBreakpoints");
     }
 
     /**
@@ -260,12 +297,12 @@ public class EditSession {
      */
     @Deprecated
     public Range getCommentFoldRange(Integer row, Integer column, Integer dir) {
-        return new Range((JSObject) mSession.call("getCommentFoldRange", row, column, dir));
+        return new Range((JSObject) call("getCommentFoldRange", row, column, dir));
     }
 
     @Deprecated
     public JSObject getDisplayLine(Integer endRow, Integer endColumn, Integer startRow, Integer startColumn) {
-        return (JSObject) mSession.call("getDisplayLine", endRow, endColumn, startRow, startColumn);
+        return (JSObject) call("getDisplayLine", endRow, endColumn, startRow, startColumn);
     }
 
     /**
@@ -275,7 +312,7 @@ public class EditSession {
      */
     @Deprecated
     private JSObject getDocument() throws JSException {
-        return (JSObject) mSession.call("getDocument");
+        return (JSObject) call("getDocument");
     }
 
     /**
@@ -287,7 +324,7 @@ public class EditSession {
      * @return the column position of the last screen row.
      */
     public int getDocumentLastRowColumn(Integer docRow, Integer docColumn) throws JSException {
-        return (int) mSession.call("getDocumentLastRowColumn", docRow, docColumn);
+        return (int) call("getDocumentLastRowColumn", docRow, docColumn);
     }
 
     /**
@@ -299,22 +336,22 @@ public class EditSession {
      * @return the document position of the last row.
      */
     public int getDocumentLastRowColumnPosition(Integer docRow, Integer docColumn) throws JSException {
-        return (int) mSession.call("getDocumentLastRowColumnPosition", docRow, docColumn);
+        return (int) call("getDocumentLastRowColumnPosition", docRow, docColumn);
     }
 
     @Deprecated
     public JSObject getFoldAt(Integer row, Integer column, Integer side) throws JSException {
-        return (JSObject) mSession.call("getFoldAt", row, column, side);
+        return (JSObject) call("getFoldAt", row, column, side);
     }
 
     @Deprecated
     public JSObject getFoldDisplayLine(JSObject foldLine, Integer endRow, Integer endColumn, Integer startRow, Integer startColumn) {
-        return (JSObject) mSession.call("getFoldDisplayLine", foldLine, endRow, endColumn, startRow, startColumn);
+        return (JSObject) call("getFoldDisplayLine", foldLine, endRow, endColumn, startRow, startColumn);
     }
 
     @Deprecated
     public JSObject getFoldLine(Integer docRow, JSObject startFoldLine) {
-        return (JSObject) mSession.call("getFoldLine", docRow, startFoldLine);
+        return (JSObject) call("getFoldLine", docRow, startFoldLine);
     }
 
     /**
@@ -328,22 +365,22 @@ public class EditSession {
      */
     @Deprecated
     public String getFoldStringAt(Integer row, Integer column, Integer trim, JSObject foldLine) {
-        return (String) mSession.call("getFoldStringAt", row, column, trim, foldLine);
+        return (String) call("getFoldStringAt", row, column, trim, foldLine);
     }
 
     @Deprecated
     public int getFoldedRowCount(Integer first, Integer last) {
-        return (int) mSession.call("getFoldedRowCount", first, last);
+        return (int) call("getFoldedRowCount", first, last);
     }
 
     @Deprecated
     public JSObject getFoldsInRange(Range range) {
-        return (JSObject) mSession.call("getFoldsInRange", Commons.getObject(mSession, range));
+        return (JSObject) call("getFoldsInRange", object(range));
     }
 
     @Deprecated
     public JSObject getFoldsInRangeList(ArrayList<Range> range) {
-        return (JSObject) mSession.call("getFoldsInRangeList", Commons.getObjectByList(mSession, range));
+        return (JSObject) call("getFoldsInRangeList", Commons.getObjectByList(mSession, range));
     }
 
     /**
@@ -352,7 +389,7 @@ public class EditSession {
      * @return the number of rows in the document.
      */
     public int getLength() throws JSException {
-        return (int) mSession.call("getLength");
+        return (int) call("getLength");
     }
 
     /**
@@ -362,12 +399,12 @@ public class EditSession {
      * @return a verbatim copy of the given line as it is in the document
      */
     public String getLine(Integer row) throws JSException {
-        return (String) mSession.call("getLine", row);
+        return (String) call("getLine", row);
     }
 
     @Deprecated
     public String getLineWidgetMaxWidth() throws JSException {
-        return (String) mSession.call("getLineWidgetMaxWidth");
+        return (String) call("getLineWidgetMaxWidth");
     }
 
     /**
@@ -380,7 +417,7 @@ public class EditSession {
      */
     @Deprecated
     public JSObject getLines(Integer firstRow, Integer lastRow) throws JSException {
-        return (JSObject) mSession.call("getLines", firstRow, lastRow);
+        return (JSObject) call("getLines", firstRow, lastRow);
     }
 
     /**
@@ -393,7 +430,7 @@ public class EditSession {
      */
     @Deprecated
     public JSObject getMarkers(Boolean inFront) throws JSException {
-        return (JSObject) mSession.call("getMarkers", inFront);
+        return (JSObject) call("getMarkers", inFront);
     }
 
     /**
@@ -403,19 +440,19 @@ public class EditSession {
      */
     @Deprecated
     public String getMode() throws JSException {
-        return (String) mSession.eval("this.getMode().$id");
+        return (String) eval("this.getMode().$id");
     }
 
     /**
      * @return the current new line mode.
      */
     public String getNewLineMode() throws JSException {
-        return (String) mSession.call("getNewLineMode");
+        return (String) call("getNewLineMode");
     }
 
     @Deprecated
     public JSObject getNextFoldLine(Integer docRow, JSObject startFoldLine) {
-        return (JSObject) mSession.call("getNextFoldLine", docRow, startFoldLine);
+        return (JSObject) call("getNextFoldLine", docRow, startFoldLine);
     }
 
     /**
@@ -426,7 +463,7 @@ public class EditSession {
      */
     @Deprecated
     public Object getOption(String name) {
-        return mSession.call("getOption", name);
+        return call("getOption", name);
     }
 
     /**
@@ -437,29 +474,29 @@ public class EditSession {
      */
     @Deprecated
     public Object getOptions(Object optionNames) {
-        return mSession.call("getOptions", optionNames);
+        return call("getOptions", optionNames);
     }
 
     /**
      * @return true if overwrites are enabled; false otherwise.
      */
     public boolean getOverwrite() throws JSException {
-        return (boolean) mSession.call("getOverwrite");
+        return (boolean) call("getOverwrite");
     }
 
     @Deprecated
     public JSObject getParentFoldRangeData(Integer docRow, Boolean ignoreCurrent) {
-        return (JSObject) mSession.call("getParentFoldRangeData", docRow, ignoreCurrent);
+        return (JSObject) call("getParentFoldRangeData", docRow, ignoreCurrent);
     }
 
     @Deprecated
     public int getRowFoldEnd(Integer docRow, Integer startFoldRow) throws JSException {
-        return (int) mSession.call("getRowFoldEnd", docRow, startFoldRow);
+        return (int) call("getRowFoldEnd", docRow, startFoldRow);
     }
 
     @Deprecated
     public int getRowFoldStart(Integer docRow, Integer startFoldRow) throws JSException {
-        return (int) mSession.call("getRowFoldStart", docRow, startFoldRow);
+        return (int) call("getRowFoldStart", docRow, startFoldRow);
     }
 
     /**
@@ -467,12 +504,12 @@ public class EditSession {
      * @param row Required. The row number to check
      */
     public int getRowLength(Integer row) throws JSException {
-        return (int) mSession.call("getRowLength", row);
+        return (int) call("getRowLength", row);
     }
 
     @Deprecated
     public int getRowLineCount(Integer row) throws JSException {
-        return (int) mSession.call("getRowFoldStart", row);
+        return (int) call("getRowFoldStart", row);
     }
 
     /**
@@ -483,12 +520,12 @@ public class EditSession {
      */
     @Deprecated
     public String getRowSplitData(Integer row) throws JSException {
-        return (String) mSession.call("getRowSplitData", row);
+        return (String) call("getRowSplitData", row);
     }
 
     @Deprecated
     public int getRowWrapIndent(Integer screenRow) throws JSException {
-        return (int) mSession.call("getRowWrapIndent", screenRow);
+        return (int) call("getRowWrapIndent", screenRow);
     }
 
     /**
@@ -500,7 +537,7 @@ public class EditSession {
      * screen row.
      */
     public int getScreenLastRowColumn(Integer screenRow) throws JSException {
-        return (int) mSession.call("getScreenLastRowColumn", screenRow);
+        return (int) call("getScreenLastRowColumn", screenRow);
     }
 
     /**
@@ -509,7 +546,7 @@ public class EditSession {
      * @return the length of the screen.
      */
     public int getScreenLength() throws JSException {
-        return (int) mSession.call("getScreenLength");
+        return (int) call("getScreenLength");
     }
 
     /**
@@ -519,7 +556,7 @@ public class EditSession {
      * @return the distance to the next tab stop at the specified screen column.
      */
     public int getScreenTabSize(Integer screenColumn) throws JSException {
-        return (int) mSession.call("getScreenTabSize", screenColumn);
+        return (int) call("getScreenTabSize", screenColumn);
     }
 
     /**
@@ -528,7 +565,7 @@ public class EditSession {
      * @return the width of the screen.
      */
     public int getScreenWidth() throws JSException {
-        return (int) mSession.call("getScreenWidth");
+        return (int) call("getScreenWidth");
     }
 
     /**
@@ -538,7 +575,7 @@ public class EditSession {
      * @return the value of the distance
      */
     public int getScrollLeft() throws JSException {
-        return (int) mSession.call("getScrollLeft");
+        return (int) call("getScrollLeft");
     }
 
     /**
@@ -548,7 +585,7 @@ public class EditSession {
      * @return the value of the distance
      */
     public int getScrollTop() throws JSException {
-        return (int) mSession.call("getScrollTop");
+        return (int) call("getScrollTop");
     }
 
     /**
@@ -558,7 +595,7 @@ public class EditSession {
      */
     @Deprecated
     public JSObject getSelection() throws JSException {
-        return (JSObject) mSession.call("getSelection");
+        return (JSObject) call("getSelection");
     }
 
     /**
@@ -568,7 +605,7 @@ public class EditSession {
      */
     @Deprecated
     public JSObject getSelectionMarkers() throws JSException {
-        return (JSObject) mSession.call("getSelectionMarkers");
+        return (JSObject) call("getSelectionMarkers");
     }
 
     /**
@@ -579,7 +616,7 @@ public class EditSession {
      */
     @Deprecated
     public JSObject getState(Integer row) throws JSException {
-        return (JSObject) mSession.call("getState", row);
+        return (JSObject) call("getState", row);
     }
 
     /**
@@ -588,7 +625,7 @@ public class EditSession {
      * @return the current tab size.
      */
     public int getTabSize() throws JSException {
-        return (int) mSession.call("getTabSize");
+        return (int) call("getTabSize");
     }
 
     /**
@@ -599,7 +636,7 @@ public class EditSession {
      * @return the current value for tabs.
      */
     public String getTabString() throws JSException {
-        return (String) mSession.call("getTabString");
+        return (String) call("getTabString");
     }
 
     /**
@@ -611,7 +648,7 @@ public class EditSession {
      */
     @Deprecated
     public String getTextRange(JSObject range) throws JSException {
-        return (String) mSession.call("getTextRange", range.toString());
+        return (String) call("getTextRange", range.toString());
     }
 
     /**
@@ -624,7 +661,7 @@ public class EditSession {
      */
     @Deprecated
     public JSObject getTokenAt(Integer row, Integer column) throws JSException {
-        return (JSObject) mSession.call("getTokenAt", row, column);
+        return (JSObject) call("getTokenAt", row, column);
     }
 
     /**
@@ -635,7 +672,7 @@ public class EditSession {
      */
     @Deprecated
     public JSObject getTokens(Integer row) throws JSException {
-        return (JSObject) mSession.call("getTokens", row);
+        return (JSObject) call("getTokens", row);
     }
 
     /**
@@ -644,6 +681,7 @@ public class EditSession {
      * @return the current undo manager.
      */
     public UndoManager getUndoManager() throws JSException {
+        checkLive();
         return mUndoManager;
     }
 
@@ -653,7 +691,7 @@ public class EditSession {
      * @return true if soft tabs are being used, false otherwise.
      */
     public boolean getUseSoftTabs() throws JSException {
-        return (boolean) mSession.call("getUseSoftTabs");
+        return (boolean) call("getUseSoftTabs");
     }
 
     /**
@@ -662,7 +700,7 @@ public class EditSession {
      * @return true if workers are being used.
      */
     public boolean getUseWorker() throws JSException {
-        return (boolean) mSession.call("getUseWorker");
+        return (boolean) call("getUseWorker");
     }
 
     /**
@@ -671,7 +709,7 @@ public class EditSession {
      * @return true if wrap mode is being used; false otherwise.
      */
     public boolean getUseWrapMode() throws JSException {
-        return (boolean) mSession.call("getUseWrapMode");
+        return (boolean) call("getUseWrapMode");
     }
 
     /**
@@ -680,7 +718,7 @@ public class EditSession {
      * @return the current Document as a string.
      */
     public String getValue() throws JSException {
-        return (String) mSession.call("getValue");
+        return (String) call("getValue");
     }
 
     /**
@@ -693,7 +731,7 @@ public class EditSession {
      */
     @Deprecated
     public JSObject getWordRange(Integer row, Integer column) throws JSException {
-        return (JSObject) mSession.call("getWordRange", row, column);
+        return (JSObject) call("getWordRange", row, column);
     }
 
     /**
@@ -702,7 +740,7 @@ public class EditSession {
      * @return the value of wrap limit.
      */
     public int getWrapLimit() throws JSException {
-        return (int) mSession.call("getWrapLimit");
+        return (int) call("getWrapLimit");
     }
 
     /**
@@ -714,7 +752,7 @@ public class EditSession {
      */
     @Deprecated
     public JSObject getWrapLimitRange() throws JSException {
-        return (JSObject) mSession.call("getWrapLimitRange");
+        return (JSObject) call("getWrapLimitRange");
     }
 
     /**
@@ -724,7 +762,7 @@ public class EditSession {
      */
     @Deprecated
     public void highlight(String regExp) throws JSException {
-        mSession.call("highlight", regExp);
+        call("highlight", regExp);
     }
 
     /**
@@ -738,7 +776,7 @@ public class EditSession {
      */
     @Deprecated
     public JSObject highlightLines(Integer startRow, Integer endRow, String clazz, Boolean inFront) throws JSException {
-        return (JSObject) mSession.call("highlightLines", startRow, endRow, clazz, inFront);
+        return (JSObject) call("highlightLines", startRow, endRow, clazz, inFront);
     }
 
     /**
@@ -751,7 +789,7 @@ public class EditSession {
      * @param indentString Required. The indent token
      */
     public void indentRows(int startRow, int endRow, String indentString) throws JSException {
-        mSession.call("indentRows", startRow, endRow, indentString);
+        call("indentRows", startRow, endRow, indentString);
     }
 
     /**
@@ -763,7 +801,18 @@ public class EditSession {
      */
     @Deprecated
     public void insert(JSObject position, String text) throws JSException {
-        mSession.call("insert", position, text);
+        call("insert", position, text);
+    }
+
+    /**
+     * Converts an absolute character offset in the document to a position.
+     *
+     * @param index Required. An index in the document
+     * @param startRow Required. The row from which to start the conversion
+     * @return the position of the index.
+     */
+    public DocPos indexToPosition(Integer index, Integer startRow) throws JSException {
+        return new DocPos((JSObject) document("indexToPosition", index, startRow));
     }
 
     /**
@@ -772,7 +821,7 @@ public class EditSession {
      * @return
      */
     public boolean isRowFolded(Integer docRow, Integer startFoldRow) throws JSException {
-        return (boolean) mSession.call("isRowFolded", docRow, startFoldRow);
+        return (boolean) call("isRowFolded", docRow, startFoldRow);
     }
 
     /**
@@ -783,11 +832,11 @@ public class EditSession {
      */
     @Deprecated
     public boolean isTabStop(JSObject position) throws JSException {
-        return (boolean) mSession.call("isTabStop", position);
+        return (boolean) call("isTabStop", position);
     }
 
     public void markUndoGroup() {
-        mSession.call("markUndoGroup");
+        call("markUndoGroup");
     }
 
     /**
@@ -799,7 +848,7 @@ public class EditSession {
      * @return number of lines moved.
      */
     public int moveLinesDown(Integer firstRow, Integer lastRow) throws JSException {
-        return (int) mSession.call("moveLinesDown", firstRow, lastRow);
+        return (int) call("moveLinesDown", firstRow, lastRow);
     }
 
     /**
@@ -811,7 +860,7 @@ public class EditSession {
      * @return number of lines moved.
      */
     public int moveLinesUp(Integer firstRow, Integer lastRow) throws JSException {
-        return (int) mSession.call("moveLinesUp", firstRow, lastRow);
+        return (int) call("moveLinesUp", firstRow, lastRow);
     }
 
     /**
@@ -827,17 +876,17 @@ public class EditSession {
      */
     @Deprecated
     public JSObject moveText(JSObject fromRange, DocPos toPosition) throws JSException {
-        return (JSObject) mSession.call("moveText", fromRange.toString(), toPosition.toString());
+        return (JSObject) call("moveText", fromRange.toString(), toPosition.toString());
     }
 
     @Deprecated
     public void off(String eventName, Object callback) throws JSException {
-        mSession.call("off", eventName, callback);
+        call("off", eventName, callback);
     }
 
     @Deprecated
     public void on(String eventName, Object callback, Boolean capturing) throws JSException {
-        mSession.call("off", eventName, callback, capturing);
+        call("off", eventName, callback, capturing);
     }
 
     //
@@ -857,13 +906,25 @@ public class EditSession {
      */
     @Deprecated
     public void outdentRows(JSObject range) throws JSException {
-        mSession.call("outdentRows", range.toString());
+        call("outdentRows", range.toString());
+    }
+
+    /**
+     * Converts a position in the document to an absolute character offset.
+     *
+     * @param pos Required. The position to convert
+     * @param startRow Required. The row from which to start the conversion
+     * @return the absolute offset of the position.
+     */
+    public int positionToIndex(DocPos pos, Integer startRow) throws JSException {
+        return (int) document("positionToIndex", object(pos), startRow);
     }
 
     /**
      * Same as getUndoManager().redo(true)
      */
     public void redo() throws JSException {
+        checkLive();
         mUndoManager.redo(true);
     }
 
@@ -874,7 +935,7 @@ public class EditSession {
      */
     @Deprecated
     private JSObject redoChanges(JSObject deltas, Boolean dontSelect) {
-        return (JSObject) mSession.call("redoChanges", deltas, dontSelect);
+        return (JSObject) call("redoChanges", deltas, dontSelect);
     }
 
     /**
@@ -885,17 +946,17 @@ public class EditSession {
      */
     @Deprecated
     public JSObject remove(JSObject range) throws JSException {
-        return (JSObject) mSession.call("remove", range.toString());
+        return (JSObject) call("remove", range.toString());
     }
 
     @Deprecated
     public void removeFold(JSObject fold) {
-        mSession.call("removeFold", fold);
+        call("removeFold", fold);
     }
 
     @Deprecated
     public void removeFullLines(Integer firstRow, Integer lastRow) {
-        mSession.call("removeFold", firstRow, lastRow);
+        call("removeFold", firstRow, lastRow);
     }
 
     /**
@@ -905,7 +966,7 @@ public class EditSession {
      * @param className Required. The class to add
      */
     public void removeGutterDecoration(Integer row, String className) throws JSException {
-        mSession.call("removeGutterDecoration", row, className);
+        call("removeGutterDecoration", row, className);
     }
 
     /**
@@ -916,7 +977,7 @@ public class EditSession {
      * @param markerId Required. A number representing a marker
      */
     public void removeMarker(Integer markerId) throws JSException {
-        mSession.call("removeMarker", markerId);
+        call("removeMarker", markerId);
     }
 
     /**
@@ -928,14 +989,14 @@ public class EditSession {
      */
     @Deprecated
     public JSObject replace(JSObject range, String text) throws JSException {
-        return (JSObject) mSession.call("replace", range.toString(), text);
+        return (JSObject) call("replace", range.toString(), text);
     }
 
     /**
      * Clear caches. Clears wrap data, row caches, tokenizer etc.
      */
     public void resetCaches() throws JSException {
-        mSession.call("resetCaches");
+        call("resetCaches");
     }
 
     /**
@@ -961,7 +1022,7 @@ public class EditSession {
      * @return the converted coordinate.
      */
     public DocPos screenToDocumentPosition(Integer screenRow, Integer screenColumn) throws JSException {
-        return new DocPos((JSObject) mSession.call("screenToDocumentPosition", screenRow, screenColumn));
+        return new DocPos((JSObject) call("screenToDocumentPosition", screenRow, screenColumn));
     }
 
     /**
@@ -985,7 +1046,7 @@ public class EditSession {
      */
     @Deprecated
     public void setAnnotations(JSObject annotations) throws JSException {
-        mSession.call("setAnnotations", annotations);
+        call("setAnnotations", annotations);
     }
 
     /**
@@ -996,7 +1057,7 @@ public class EditSession {
      * @param className Required. Class of the breakpoint
      */
     public void setBreakpoint(Integer row, String className) throws JSException {
-        mSession.call("setBreakpoint", row, className);
+        call("setBreakpoint", row, className);
     }
 
     /**
@@ -1007,7 +1068,7 @@ public class EditSession {
      */
     @Deprecated
     public void setBreakpoints(JSObject rows) throws JSException {
-        mSession.call("setBreakpoints", rows);
+        call("setBreakpoints", rows);
     }
 
     /**
@@ -1018,12 +1079,12 @@ public class EditSession {
      */
     @Deprecated
     public void setDocument(JSObject doc) {
-        mSession.call("setDocument", doc);
+        call("setDocument", doc);
     }
 
     @Deprecated
     public void setFoldStyle(JSObject style) {
-        mSession.call("setFoldStyle", style);
+        call("setFoldStyle", style);
     }
 
     /**
@@ -1035,7 +1096,7 @@ public class EditSession {
      */
     @Deprecated
     public void setMode(String mode) { 
-        mSession.call("setMode", mode);
+        call("setMode", mode);
     } 
 
     /**
@@ -1045,12 +1106,12 @@ public class EditSession {
      * windows, unix, or auto
      */
     public void setNewLineMode(String newLineMode) throws JSException {
-        mSession.call("setNewLineMode", newLineMode);
+        call("setNewLineMode", newLineMode);
     }
 
     @Deprecated
     public void setOption(String name, Object value) throws JSException {
-        mSession.call("setOption", name, value);
+        call("setOption", name, value);
     }
 
     @Deprecated
@@ -1067,7 +1128,7 @@ public class EditSession {
      * false to disable.
      */
     public void setOverwrite(Boolean overwrite) throws JSException {
-        mSession.call("setOverwrite", overwrite);
+        call("setOverwrite", overwrite);
     }
 
     /**
@@ -1077,7 +1138,7 @@ public class EditSession {
      * @param scrollLeft Required. The new scroll left value.
      */
     public void setScrollLeft(Integer scrollLeft) throws JSException {
-        mSession.call("setScrollLeft", scrollLeft);
+        call("setScrollLeft", scrollLeft);
     }
 
     /**
@@ -1087,7 +1148,7 @@ public class EditSession {
      * @param scrollTop Required. The new scroll top value.
      */
     public void setScrollTop(Integer scrollTop) throws JSException {
-        mSession.call("setScrollTop", scrollTop);
+        call("setScrollTop", scrollTop);
     }
 
     /**
@@ -1098,7 +1159,7 @@ public class EditSession {
      * @param tabSize Required. The new scroll top value
      */
     public void setTabSize(Integer tabSize) throws JSException {
-        mSession.call("setTabSize", tabSize);
+        call("setTabSize", tabSize);
     }
 
     /**
@@ -1106,8 +1167,8 @@ public class EditSession {
      */
     @Deprecated
     public void setUndoManager(JSObject undoManager) {
-        mSession.call("setUndoManager", undoManager);
-        mUndoManager = new UndoManager(undoManager);
+        call("setUndoManager", undoManager);
+        mUndoManager = new UndoManager(undoManager, mMetrics);
     }
 
     /**
@@ -1117,7 +1178,7 @@ public class EditSession {
      * change
      */
     public void setUndoSelect(Boolean enable) throws JSException {
-        mSession.call("setUndoSelect", enable);
+        call("setUndoSelect", enable);
     }
 
     /**
@@ -1128,7 +1189,7 @@ public class EditSession {
      * tabs
      */
     public void setUseSoftTabs(Boolean useSoftTabs) throws JSException {
-        mSession.call("setUseSoftTabs", useSoftTabs);
+        call("setUseSoftTabs", useSoftTabs);
     }
 
     /**
@@ -1137,7 +1198,7 @@ public class EditSession {
      * @param useWorker Required. Set to true to use a worker
      */
     public void setUseWorker(Boolean useWorker) throws JSException {
-        mSession.call("setUseWorker", useWorker);
+        call("setUseWorker", useWorker);
     }
 
     /**
@@ -1147,7 +1208,7 @@ public class EditSession {
      * @param useWrapMode Required. Enable (or disable) wrap mode
      */
     public void setUseWrapMode(Boolean useWrapMode) throws JSException {
-        mSession.call("setUseWrapMode", useWrapMode);
+        call("setUseWrapMode", useWrapMode);
     }
 
     /**
@@ -1156,7 +1217,7 @@ public class EditSession {
      * @param text Required. The new text to place
      */
     public void setValue(String text) throws JSException {
-        mSession.call("setValue", text);
+        call("setValue", text);
     }
 
     /**
@@ -1169,7 +1230,7 @@ public class EditSession {
      * @param max Required. The maximum wrap value (the right side wrap)
      */
     public void setWrapLimitRange(Integer min, Integer max) throws JSException {
-        mSession.call("setWrapLimitRange", min, max);
+        call("setWrapLimitRange", min, max);
     }
 
     /**
@@ -1179,7 +1240,7 @@ public class EditSession {
      */
     @Override
     public String toString() throws JSException {
-        return (String) mSession.call("toString");
+        return (String) call("toString");
     }
 
     /**
@@ -1188,31 +1249,32 @@ public class EditSession {
      * @param tryToUnfold true if unfold the folded regions.
      */
     public void toggleFold(Boolean tryToUnfold) {
-        mSession.call("toggleFold", tryToUnfold);
+        call("toggleFold", tryToUnfold);
     }
 
     @Deprecated
     public void toggleFoldWidget(JSObject toggleParent) {
-        mSession.call("toggleFoldWidget", toggleParent);
+        call("toggleFoldWidget", toggleParent);
     }
 
     /**
      * Sets the value of overwrite to the opposite of whatever it currently is.
      */
     public void toggleOverwrite() throws JSException {
-        mSession.call("toggleOverwrite");
+        call("toggleOverwrite");
     }
 
     /**
      * Same as getUndoManager.undo(true)
      */
     public void undo() throws JSException {
+        checkLive();
         mUndoManager.undo(true);
     }
 
     @Deprecated
     public void unfold(Object location, Boolean expandInner) {
-        mSession.call("unfold", location, expandInner);
+        call("unfold", location, expandInner);
     }
 
     /**
@@ -1224,6 +1286,31 @@ public class EditSession {
      */
     @Deprecated
     public JSObject undoChanges(JSObject deltas, Boolean dontSelect) {
-        return (JSObject) mSession.call("undoChanges", deltas, dontSelect);
+        return (JSObject) call("undoChanges", deltas, dontSelect);
+    }
+
+    private void checkLive() {
+        if (mDestroyed) {
+            throw new IllegalStateException("Session has been destroyed");
+        }
+    }
+
+    private Object call(String method, Object... args) throws JSException {
+        checkLive();
+        return BridgeMetrics.call(mMetrics, "EditSession", mSession, method, args);
+    }
+
+    private Object eval(String script) throws JSException {
+        checkLive();
+        return BridgeMetrics.eval(mMetrics, "EditSession", mSession, script);
+    }
+
+    private JSObject object(Object object) throws JSException {
+        checkLive();
+        return BridgeMetrics.getObject(mMetrics, "EditSession", mSession, object);
+    }
+
+    private Object document(String method, Object... args) throws JSException {
+        return BridgeMetrics.call(mMetrics, "Document", getDocument(), method, args);
     }
 }
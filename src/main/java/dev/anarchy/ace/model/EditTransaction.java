@@ -0,0 +1,152 @@
+package dev.anarchy.ace.model;
+
+import dev.anarchy.ace.util.Commons;
+
+/**
+ * Records a group of document edits to be applied together by
+ * {@link Editor#transaction(java.util.function.Consumer)}. <br/>
+ * Nothing is sent to the editor while edits are recorded, so reading the
+ * document inside a transaction returns its state from before the
+ * transaction. Edits are applied in the order they were recorded, and every
+ * position refers to the document as left by the previous edit.
+ */
+public class EditTransaction {
+
+    private final StringBuilder mOps = new StringBuilder("[");
+    private int mCount;
+
+    EditTransaction() {
+    }
+
+    /**
+     * Inserts a block of text at the indicated position.
+     *
+     * @param row Row to insert at.
+     * @param column Column to insert at.
+     * @param text Text to insert, null inserts nothing.
+     * @return this transaction.
+     */
+    public EditTransaction insert(int row, int column, String text) {
+        begin("insert").append(',').append(row).append(',').append(column).append(',');
+        Commons.appendJSString(mOps, text == null ? "" : text);
+        return end();
+    }
+
+    /**
+     * Removes the range from the document.
+     *
+     * @param range Range to remove.
+     * @return this transaction.
+     */
+    public EditTransaction remove(Range range) {
+        appendRange(begin("remove"), range);
+        return end();
+    }
+
+    /**
+     * Replaces a range in the document with the new text.
+     *
+     * @param range Range to replace.
+     * @param text The new text to use as a replacement, null removes the range.
+     * @return this transaction.
+     */
+    public EditTransaction replace(Range range, String text) {
+        appendRange(begin("replace"), range).append(',');
+        Commons.appendJSString(mOps, text == null ? "" : text);
+        return end();
+    }
+
+    /**
+     * Indents all the rows, from startRow to endRow (inclusive), by prefixing
+     * each row with indentString. A null indentString leaves the rows as they are.
+     *
+     * @see EditSession#indentRows(int, int, String)
+     * @return this transaction.
+     */
+    public EditTransaction indentRows(int startRow, int endRow, String indentString) {
+        begin("indentRows").append(',').append(startRow).append(',').append(endRow).append(',');
+        Commons.appendJSString(mOps, indentString == null ? "" : indentString);
+        return end();
+    }
+
+    /**
+     * Outdents all the rows from startRow to endRow (inclusive).
+     *
+     * @return this transaction.
+     */
+    public EditTransaction outdentRows(int startRow, int endRow) {
+        return rows("outdentRows", startRow, endRow);
+    }
+
+    /**
+     * @see EditSession#moveLinesUp(Integer, Integer)
+     * @return this transaction.
+     */
+    public EditTransaction moveLinesUp(int firstRow, int lastRow) {
+        return rows("moveLinesUp", firstRow, lastRow);
+    }
+
+    /**
+     * @see EditSession#moveLinesDown(Integer, Integer)
+     * @return this transaction.
+     */
+    public EditTransaction moveLinesDown(int firstRow, int lastRow) {
+        return rows("moveLinesDown", firstRow, lastRow);
+    }
+
+    /**
+     * @see EditSession#duplicateLines(Integer, Integer)
+     * @return this transaction.
+     */
+    public EditTransaction duplicateLines(int firstRow, int lastRow) {
+        return rows("duplicateLines", firstRow, lastRow);
+    }
+
+    /**
+     * Removes all the lines from firstRow to lastRow (inclusive).
+     *
+     * @return this transaction.
+     */
+    public EditTransaction removeFullLines(int firstRow, int lastRow) {
+        return rows("removeFullLines", firstRow, lastRow);
+    }
+
+    /**
+     * @return number of edits recorded so far.
+     */
+    public int size() {
+        return mCount;
+    }
+
+    /**
+     * @return the recorded edits as a JSON array.
+     */
+    String toJSON() {
+        return mOps.toString() + "]";
+    }
+
+    private EditTransaction rows(String op, int firstRow, int lastRow) {
+        begin(op).append(',').append(firstRow).append(',').append(lastRow);
+        return end();
+    }
+
+    private StringBuilder begin(String op) {
+        if (mCount > 0) {
+            mOps.append(',');
+        }
+        return mOps.append("[\"").append(op).append('"');
+    }
+
+    private EditTransaction end() {
+        mOps.append(']');
+        ++mCount;
+        return this;
+    }
+
+    private StringBuilder appendRange(StringBuilder sb, Range range) {
+        return sb.append(',').append(range.getStart().getRow())
+                .append(',').append(range.getStart().getColumn())
+                .append(',').append(range.getEnd().getRow())
+                .append(',').append(range.getEnd().getColumn());
+    }
+}
@@ -15,9 +15,14 @@
  */
 package dev.anarchy.ace.model;
 
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
 import java.util.Map;
+import java.util.function.Consumer;
 
 import dev.anarchy.ace.util.Commons;
+import dev.anarchy.ace.util.BridgeMetrics;
 import netscape.javascript.JSException;
 import netscape.javascript.JSObject;
 
@@ -28,12 +33,24 @@ import netscape.javascript.JSObject;
 public class Editor {
 
     private final JSObject mEditor;
+    private final BridgeMetrics mMetrics;
     private EditSession mEditSession;
+    private JSObject mHelpers;
 
     public Editor(final JSObject editor) throws JSException {
+        this(editor, null);
+    }
+
+    /**
+     * @param editor Editor object to wrap.
+     * @param metrics Metrics recording the calls made through this editor,
+     * its sessions and undo managers, or null.
+     */
+    public Editor(final JSObject editor, BridgeMetrics metrics) throws JSException {
         mEditor = editor;
-        JSObject session = (JSObject) editor.call("getSession");
-        mEditSession = new EditSession(session);
+        mMetrics = metrics;
+        JSObject session = (JSObject) call("getSession");
+        mEditSession = new EditSession(session, metrics);
     }
 
     /**
@@ -45,6 +62,152 @@ public class Editor {
         return mEditor;
     }
 
+    /**
+     * @return metrics recording the calls made through this editor, or null.
+     */
+    public final BridgeMetrics getMetrics() {
+        return mMetrics;
+    }
+
+    /**
+     * Gets the AceFX helper object of the page hosting this editor.
+     *
+     * @return the <code>acefx</code> helper object.
+     */
+    public final JSObject getHelpers() throws JSException {
+        if (mHelpers == null) {
+            mHelpers = (JSObject) eval("acefx");
+        }
+        return mHelpers;
+    }
+
+    /**
+     * Applies a group of edits as one transaction. The body records the
+     * edits, which are then sent to the editor in a single call and applied
+     * with the renderer frozen. The transaction forms a single undo group,
+     * raises a single change event and is rendered once at the end.
+     *
+     * @param body Records the edits to apply.
+     */
+    public void transaction(Consumer<EditTransaction> body) throws JSException {
+        EditTransaction tx = new EditTransaction();
+        body.accept(tx);
+        if (tx.size() > 0) {
+            callHelper("transaction", mEditor, tx.toJSON());
+        }
+    }
+
+    /**
+     * Applies many edits in a single call without moving the cursor or
+     * scrolling. The edits must not overlap; they are sorted and applied
+     * bottom-up, as one undo group with a single change event and a single
+     * render. Several insertions at the same position are applied in the
+     * order given.
+     *
+     * @param edits Edits to apply. Positions refer to the document before any
+     * of the edits.
+     * @return the range covered by each replacement text in the resulting
+     * document, in the order of the given edits.
+     * @throws IllegalArgumentException if two edits overlap.
+     */
+    public RangeList applyEdits(List<TextEdit> edits) throws JSException {
+        int count = edits.size();
+        Integer[] order = sortEdits(edits);
+
+        StringBuilder json = new StringBuilder("[");
+        for (int i = count - 1; i >= 0; --i) {
+            TextEdit edit = edits.get(order[i]);
+            if (i < count - 1) json.append(',');
+            json.append('[').append(edit.getStartRow()).append(',').append(edit.getStartColumn())
+                    .append(',').append(edit.getEndRow()).append(',').append(edit.getEndColumn()).append(',');
+            Commons.appendJSString(json, edit.getText());
+            json.append(']');
+        }
+        json.append(']');
+        if (count > 0) {
+            callHelper("applyEdits", mEditor, json.toString());
+        }
+
+        return mapEdits(edits, order);
+    }
+
+    /**
+     * Sorts edits by their start and then their end, so an insertion comes
+     * before a replacement starting at the same position. Edits touching only
+     * at a boundary do not overlap.
+     *
+     * @param edits Edits to sort.
+     * @return indices of the edits in document order.
+     * @throws IllegalArgumentException if two edits overlap.
+     */
+    static Integer[] sortEdits(List<TextEdit> edits) {
+        int count = edits.size();
+        Integer[] order = new Integer[count];
+        for (int i = 0; i < count; ++i) {
+            order[i] = i;
+        }
+        Arrays.sort(order, Comparator.<Integer>comparingLong(i -> edits.get(i).getStart())
+                .thenComparingLong(i -> edits.get(i).getEnd()));
+        for (int i = 1; i < count; ++i) {
+            TextEdit prev = edits.get(order[i - 1]);
+            TextEdit next = edits.get(order[i]);
+            if (next.getStart() < prev.getEnd()) {
+                throw new IllegalArgumentException("Overlapping edits: " + prev + " and " + next);
+            }
+        }
+        return order;
+    }
+
+    /**
+     * Maps every edit to the range its text covers once all edits are applied.
+     *
+     * @param edits Edits, positions referring to the document before them.
+     * @param order Indices of the edits in document order.
+     * @return the range of each replacement text, in the order of the edits.
+     */
+    static RangeList mapEdits(List<TextEdit> edits, Integer[] order) {
+        int count = edits.size();
+
+        // Map every edit to its place in the new document. Edits before it
+        // shift its rows, and an edit ending on its starting row shifts its
+        // column as well.
+        int[] mapped = new int[count * 4];
+        int rowShift = 0;
+        int lastEndRow = -1;
+        int columnShift = 0;
+        for (int i = 0; i < count; ++i) {
+            TextEdit edit = edits.get(order[i]);
+            int startRow = edit.getStartRow() + rowShift;
+            int startColumn = edit.getStartColumn() + (edit.getStartRow() == lastEndRow ? columnShift : 0);
+
+            String text = edit.getText();
+            int lines = 0;
+            int lastLine = -1;
+            for (int j = text.indexOf('\n'); j >= 0; j = text.indexOf('\n', j + 1)) {
+                ++lines;
+                lastLine = j;
+            }
+            int endRow = startRow + lines;
+            int endColumn = lines == 0 ? startColumn + text.length() : text.length() - lastLine - 1;
+
+            int slot = order[i] * 4;
+            mapped[slot] = startRow;
+            mapped[slot + 1] = startColumn;
+            mapped[slot + 2] = endRow;
+            mapped[slot + 3] = endColumn;
+
+            rowShift += lines - (edit.getEndRow() - edit.getStartRow());
+            lastEndRow = edit.getEndRow();
+            columnShift = endColumn - edit.getEndColumn();
+        }
+
+        RangeList result = new RangeList(count);
+        for (int i = 0; i < count; ++i) {
+            result.add(mapped[i * 4], mapped[i * 4 + 1], mapped[i * 4 + 2], mapped[i * 4 + 3]);
+        }
+        return result;
+    }
+
     /**
      * Adds the selection and cursor.
      *
@@ -53,42 +216,42 @@ public class Editor {
      */
     @Deprecated
     public JSObject addSelectionMarker(JSObject orientedRange) throws JSException {
-        return (JSObject) mEditor.call("addSelectionMarker", orientedRange);
+        return (JSObject) call("addSelectionMarker", orientedRange);
     }
 
     /**
      * Aligns the cursors or selected text.
      */
     public void alignCursors() throws JSException {
-        mEditor.call("alignCursors");
+        call("alignCursors");
     }
 
     /**
      * Out-dents the current line.
      */
     public void blockIndent() throws JSException {
-        mEditor.call("blockIndent");
+        call("blockIndent");
     }
 
     /**
      * Out-dents the current line.
      */
     public void blockOutdent() throws JSException {
-        mEditor.call("blockOutdent");
+        call("blockOutdent");
     }
 
     /**
      * Blurs the current textInput.
      */
     public void blur() throws JSException {
-        mEditor.call("blur");
+        call("blur");
     }
 
     /**
      * Attempts to center the current selection on the screen.
      */
     public void centerSelection() throws JSException {
-        mEditor.call("centerSelection");
+        call("centerSelection");
     }
 
     /**
@@ -96,21 +259,21 @@ public class Editor {
      * 'changeSelection' event.
      */
     public void clearSelection() throws JSException {
-        mEditor.call("clearSelection");
+        call("clearSelection");
     }
 
     /**
      * Copies all the selected lines down one row.
      */
     public void copyLinesDown() throws JSException {
-        mEditor.call("copyLinesDown");
+        call("copyLinesDown");
     }
 
     /**
      * Copies all the selected lines up one row.
      */
     public void copyLinesUp() throws JSException {
-        mEditor.call("copyLinesUp");
+        call("copyLinesUp");
     }
 
     /**
@@ -118,14 +281,14 @@ public class Editor {
      */
     @Deprecated
     public void destroy() throws JSException {
-        mEditor.call("destroy");
+        call("destroy");
     }
 
     /**
      * Duplicate the selected text.
      */
     public void duplicateSelection() throws JSException {
-        mEditor.call("duplicateSelection");
+        call("duplicateSelection");
     }
 
     /**
@@ -137,14 +300,14 @@ public class Editor {
      * @return true if executed successfully.
      */
     public boolean execCommand(String command) throws JSException {
-        return (boolean) mEditor.call("execCommand", command);
+        return (boolean) call("execCommand", command);
     }
 
     /**
      * Removes all the selections except the last added one.
      */
     public void exitMultiSelectMode() throws JSException {
-        mEditor.call("exitMultiSelectMode");
+        call("exitMultiSelectMode");
     }
 
     /**
@@ -157,7 +320,7 @@ public class Editor {
      * @param animate If true animate scrolling. Leave null if unsure.
      */
     public void find(String needle, SearchOptions options, Boolean animate) throws JSException {
-        mEditor.call("find", needle, Commons.getObject(mEditor, options), animate);
+        call("find", needle, object(options), animate);
     }
 
     /**
@@ -169,7 +332,23 @@ public class Editor {
      * @return
      */
     public int findAll(String needle, SearchOptions options, Boolean keeps) throws JSException {
-        return (int) mEditor.call("findAll", needle, Commons.getObject(mEditor, options), keeps);
+        return (int) call("findAll", needle, object(options), keeps);
+    }
+
+    /**
+     * Finds all the occurences of needle without selecting them or moving the
+     * cursor.
+     *
+     * @param needle Required. The text to search for
+     * @param options Required. An object defining various search properties
+     * @return ranges of all matches in document order.
+     */
+    public RangeList findAllRanges(String needle, SearchOptions options) throws JSException {
+        JSObject opts = object(options);
+        opts.setMember("needle", needle);
+        JSObject search = (JSObject) eval("new (ace.require('ace/search').Search)()");
+        BridgeMetrics.call(mMetrics, "Search", search, "set", opts);
+        return RangeList.fromJS((JSObject) BridgeMetrics.call(mMetrics, "Search", search, "findAll", mEditSession.getModel()));
     }
 
     /**
@@ -180,7 +359,7 @@ public class Editor {
      * @param animate Required. If true animate scrolling
      */
     public void findNext(SearchOptions options, Boolean animate) throws JSException {
-        mEditor.call("findNext", Commons.getObject(mEditor, options), animate);
+        call("findNext", object(options), animate);
     }
 
     /**
@@ -191,14 +370,14 @@ public class Editor {
      * @param animate Required. If true animate scrolling
      */
     public void findPrevious(SearchOptions options, Boolean animate) throws JSException {
-        mEditor.call("findPrevious", Commons.getObject(mEditor, options), animate);
+        call("findPrevious", object(options), animate);
     }
 
     /**
      * Brings the current textInput into focus.
      */
     public void focus() throws JSException {
-        mEditor.call("focus");
+        call("focus");
     }
 
     /**
@@ -209,7 +388,7 @@ public class Editor {
      */
     @Deprecated
     public void forEachSelection(String cmd, String args) throws JSException {
-        mEditor.call("forEachSelection", cmd, args);
+        call("forEachSelection", cmd, args);
     }
 
     /**
@@ -218,7 +397,7 @@ public class Editor {
      * @return true if renderer has animated scroll
      */
     public boolean getAnimatedScroll() throws JSException {
-        return (boolean) mEditor.call("getAnimatedScroll");
+        return (boolean) call("getAnimatedScroll");
     }
 
     /**
@@ -229,7 +408,7 @@ public class Editor {
      * @return true if the behaviors are currently enabled.
      */
     public boolean getBehavioursEnabled() throws JSException {
-        return (boolean) mEditor.call("getBehavioursEnabled");
+        return (boolean) call("getBehavioursEnabled");
     }
 
     /**
@@ -238,7 +417,7 @@ public class Editor {
      * @return The string of text currently highlighted.
      */
     public String getCopyText() throws JSException {
-        return (String) mEditor.call("getCopyText");
+        return (String) call("getCopyText");
     }
 
     /**
@@ -247,7 +426,7 @@ public class Editor {
      * @return position of the cursor in the document.
      */
     public DocPos getCursorPositionScreen() throws JSException {
-        return new DocPos((JSObject) mEditor.call("getCursorPositionScreen"));
+        return new DocPos((JSObject) call("getCursorPositionScreen"));
     }
 
     /**
@@ -256,7 +435,7 @@ public class Editor {
      * @return true if display indent guide is enabled.
      */
     public boolean getDisplayIndentGuides() throws JSException {
-        return (boolean) mEditor.call("getDisplayIndentGuides");
+        return (boolean) call("getDisplayIndentGuides");
     }
 
     /**
@@ -265,7 +444,7 @@ public class Editor {
      * @return drag delay in milliseconds.
      */
     public int getDragDelay() throws JSException {
-        return (int) mEditor.call("getDragDelay");
+        return (int) call("getDragDelay");
     }
 
     /**
@@ -274,7 +453,7 @@ public class Editor {
      * @return true if fade fold widget is enabled.
      */
     public boolean getFadeFoldWidgets() throws JSException {
-        return (boolean) mEditor.call("getFadeFoldWidgets");
+        return (boolean) call("getFadeFoldWidgets");
     }
 
     /**
@@ -283,7 +462,7 @@ public class Editor {
      * @return index of first visible row.
      */
     public int getFirstVisibleRow() throws JSException {
-        return (int) mEditor.call("getFirstVisibleRow");
+        return (int) call("getFirstVisibleRow");
     }
 
     /**
@@ -292,7 +471,7 @@ public class Editor {
      * @return true if current lines are always highlighted.
      */
     public boolean getHighlightActiveLine() throws JSException {
-        return (boolean) mEditor.call("getHighlightActiveLine");
+        return (boolean) call("getHighlightActiveLine");
     }
 
     /**
@@ -301,7 +480,7 @@ public class Editor {
      * @return rue if gutter lines are always highlighted.
      */
     public boolean getHighlightGutterLine() throws JSException {
-        return (boolean) mEditor.call("getHighlightGutterLine");
+        return (boolean) call("getHighlightGutterLine");
     }
 
     /**
@@ -310,7 +489,7 @@ public class Editor {
      * @return true if currently highlighted words are to be highlighted.
      */
     public boolean getHighlightSelectedWord() throws JSException {
-        return (boolean) mEditor.call("getHighlightSelectedWord");
+        return (boolean) call("getHighlightSelectedWord");
     }
 
     /**
@@ -320,7 +499,7 @@ public class Editor {
      */
     @Deprecated
     public JSObject getKeyboardHandler() throws JSException {
-        return (JSObject) mEditor.call("getKeyboardHandler");
+        return (JSObject) call("getKeyboardHandler");
     }
 
     /**
@@ -331,7 +510,7 @@ public class Editor {
      */
     @Deprecated
     public SearchOptions getLastSearchOptions() throws JSException {
-        return new SearchOptions((JSObject) mEditor.call("getLastSearchOptions"));
+        return new SearchOptions((JSObject) call("getLastSearchOptions"));
     }
 
     /**
@@ -340,7 +519,7 @@ public class Editor {
      * @return the keyboard handler, such as "vim" or "windows".
      */
     public int getLastVisibleRow() throws JSException {
-        return (int) mEditor.call("getLastVisibleRow");
+        return (int) call("getLastVisibleRow");
     }
 
     /**
@@ -351,7 +530,7 @@ public class Editor {
      * @return
      */
     public Integer getNumberAt(Integer row, Integer column) throws JSException {
-        return (Integer) mEditor.call("getNumberAt");
+        return (Integer) call("getNumberAt");
     }
 
     /**
@@ -362,7 +541,7 @@ public class Editor {
      */
     @Deprecated
     public Object getOption(String name) {
-        return mEditor.call("getOption", name);
+        return call("getOption", name);
     }
 
     /**
@@ -373,7 +552,7 @@ public class Editor {
      */
     @Deprecated
     public Object getOptions(Object optionNames) {
-        return mEditor.call("getOptions", optionNames);
+        return call("getOptions", optionNames);
     }
 
     /**
@@ -382,7 +561,7 @@ public class Editor {
      * @return true if overwrites are enabled; false otherwise.
      */
     public boolean getOverwrite() throws JSException {
-        return (boolean) mEditor.call("getOverwrite");
+        return (boolean) call("getOverwrite");
     }
 
     /**
@@ -391,7 +570,7 @@ public class Editor {
      * @return
      */
     public int getPrintMarginColumn() throws JSException {
-        return (int) mEditor.call("getPrintMarginColumn");
+        return (int) call("getPrintMarginColumn");
     }
 
     /**
@@ -400,7 +579,7 @@ public class Editor {
      * @return
      */
     public boolean getReadOnly() throws JSException {
-        return (boolean) mEditor.call("getReadOnly");
+        return (boolean) call("getReadOnly");
     }
 
     /**
@@ -410,7 +589,7 @@ public class Editor {
      * @return
      */
     public int getScrollSpeed() throws JSException {
-        return (int) mEditor.call("getScrollSpeed");
+        return (int) call("getScrollSpeed");
     }
 
     /**
@@ -419,7 +598,7 @@ public class Editor {
      * @return the text that has been selected.
      */
     public String getSelectedText() throws JSException {
-        return (String) mEditor.call("getSelectedText");
+        return (String) call("getSelectedText");
     }
 
     /**
@@ -429,7 +608,17 @@ public class Editor {
      */
     @Deprecated
     public Object getSelection() throws JSException {
-        return (mEditor.call("getSelection"));
+        return (call("getSelection"));
+    }
+
+    /**
+     * Returns the ranges of all selections, one per cursor when multiple
+     * cursors are in use. The ranges are read in a single bridge call.
+     *
+     * @return list of all selected ranges.
+     */
+    public RangeList getSelectionRanges() throws JSException {
+        return RangeList.fromJS((JSObject) eval("this.selection.getAllRanges()"));
     }
 
     /**
@@ -438,7 +627,7 @@ public class Editor {
      * @return Range for the selected text
      */
     public Range getSelectionRange() throws JSException {
-        return new Range((JSObject) mEditor.call("getSelectionRange"));
+        return new Range((JSObject) call("getSelectionRange"));
     }
 
     /**
@@ -447,7 +636,7 @@ public class Editor {
      * @return
      */
     public String getSelectionStyle() throws JSException {
-        return (String) mEditor.call("getSelectionStyle");
+        return (String) call("getSelectionStyle");
     }
 
     /**
@@ -465,7 +654,7 @@ public class Editor {
      * @return
      */
     public boolean getShowFoldWidgets() throws JSException {
-        return (boolean) mEditor.call("getShowFoldWidgets");
+        return (boolean) call("getShowFoldWidgets");
     }
 
     /**
@@ -474,7 +663,7 @@ public class Editor {
      * @return
      */
     public boolean getShowInvisibles() throws JSException {
-        return (boolean) mEditor.call("getShowInvisibles");
+        return (boolean) call("getShowInvisibles");
     }
 
     /**
@@ -483,7 +672,7 @@ public class Editor {
      * @return
      */
     public boolean getShowPrintMargin() throws JSException {
-        return (boolean) mEditor.call("getShowPrintMargin");
+        return (boolean) call("getShowPrintMargin");
     }
 
     /**
@@ -493,7 +682,7 @@ public class Editor {
      */
     @Deprecated
     public String getTheme() throws JSException {
-        return (String) mEditor.call("getTheme");
+        return (String) call("getTheme");
     }
 
     /**
@@ -502,7 +691,7 @@ public class Editor {
      * @return
      */
     public String getValue() throws JSException {
-        return (String) mEditor.call("getValue");
+        return (String) call("getValue");
     }
 
     /**
@@ -511,7 +700,7 @@ public class Editor {
      * @return
      */
     public boolean getWrapBehavioursEnabled() throws JSException {
-        return (boolean) mEditor.call("getWrapBehavioursEnabled");
+        return (boolean) call("getWrapBehavioursEnabled");
     }
 
     /**
@@ -523,7 +712,7 @@ public class Editor {
      * @param animate Required. If true animates scrolling
      */
     public void gotoLine(Integer lineNumber, Integer column, Boolean animate) throws JSException {
-        mEditor.call("gotoLine", lineNumber, column, animate);
+        call("gotoLine", lineNumber, column, animate);
     }
 
     /**
@@ -531,7 +720,7 @@ public class Editor {
      * cursor position.
      */
     public void gotoPageDown() throws JSException {
-        mEditor.call("gotoPageDown");
+        call("gotoPageDown");
     }
 
     /**
@@ -539,14 +728,14 @@ public class Editor {
      * cursor position.
      */
     public void gotoPageUp() throws JSException {
-        mEditor.call("gotoPageUp");
+        call("gotoPageUp");
     }
 
     /**
      * Indents the current line.
      */
     public void indent() throws JSException {
-        mEditor.call("indent");
+        call("indent");
     }
 
     /**
@@ -555,7 +744,7 @@ public class Editor {
      * @param text Required. The new text to add.
      */
     public void insert(String text) throws JSException {
-        mEditor.call("insert", text);
+        call("insert", text);
     }
 
     /**
@@ -576,7 +765,7 @@ public class Editor {
      * @return true if the current textInput is in focus.
      */
     public boolean isFocused() throws JSException {
-        return (boolean) mEditor.call("isFocused");
+        return (boolean) call("isFocused");
     }
 
     /**
@@ -586,7 +775,7 @@ public class Editor {
      * @return true if the entire row is currently visible on the screen.
      */
     public boolean isRowFullyVisible(Integer row) throws JSException {
-        return (boolean) mEditor.call("isRowFullyVisible", row);
+        return (boolean) call("isRowFullyVisible", row);
     }
 
     /**
@@ -596,7 +785,7 @@ public class Editor {
      * @return true if the row is currently visible on the screen.
      */
     public boolean isRowVisible(Integer row) throws JSException {
-        return (boolean) mEditor.call("isRowVisible", row);
+        return (boolean) call("isRowVisible", row);
     }
 
     /**
@@ -604,7 +793,7 @@ public class Editor {
      */
     @Deprecated
     public void jumpToMatching(JSObject select) throws JSException {
-        mEditor.call("jumpToMatching", select);
+        call("jumpToMatching", select);
     }
 
     /**
@@ -615,7 +804,7 @@ public class Editor {
      * negative to decrease value)
      */
     public void modifyNumber(Integer amount) throws JSException {
-        mEditor.call("modifyNumber", amount);
+        call("modifyNumber", amount);
     }
 
     /**
@@ -626,7 +815,7 @@ public class Editor {
      * @param column Required. The columns to move.
      */
     public void moveCursorTo(Integer row, Integer column) throws JSException {
-        mEditor.call("moveCursorTo", row, column);
+        call("moveCursorTo", row, column);
     }
 
     /**
@@ -635,21 +824,21 @@ public class Editor {
      * @param pos Required. An object with two properties, row and column
      */
     public void moveCursorToPosition(DocPos pos) throws JSException {
-        mEditor.call("moveCursorToPosition", Commons.getObject(mEditor, pos.toString()));
+        call("moveCursorToPosition", object(pos.toString()));
     }
 
     /**
      * Shifts all the selected lines down one row.
      */
     public void moveLinesDown() throws JSException {
-        mEditor.call("moveLinesDown");
+        call("moveLinesDown");
     }
 
     /**
      * Shifts all the selected lines up one row.
      */
     public void moveLinesUp() throws JSException {
-        mEditor.call("moveLinesUp");
+        call("moveLinesUp");
     }
 
     /**
@@ -662,9 +851,9 @@ public class Editor {
      * @param copy True to leave a copy of original text; False otherwise.
      */
     public void moveText(Range fromRange, DocPos toPosition, Boolean copy) {
-        mEditor.call("moveText",
-                Commons.getObject(mEditor, fromRange),
-                Commons.getObject(mEditor, toPosition), copy);
+        call("moveText",
+                object(fromRange),
+                object(toPosition), copy);
     }
 
     /**
@@ -674,7 +863,7 @@ public class Editor {
      * @param times Required. The number of times to change navigation
      */
     public void navigateDown(Integer times) throws JSException {
-        mEditor.call("navigateDown", times);
+        call("navigateDown", times);
     }
 
     /**
@@ -682,7 +871,7 @@ public class Editor {
      * de-select the current selection.
      */
     public void navigateFileEnd() throws JSException {
-        mEditor.call("navigateFileEnd");
+        call("navigateFileEnd");
     }
 
     /**
@@ -690,7 +879,7 @@ public class Editor {
      * de-select the current selection.
      */
     public void navigateFileStart() throws JSException {
-        mEditor.call("navigateFileStart");
+        call("navigateFileStart");
     }
 
     /**
@@ -700,7 +889,7 @@ public class Editor {
      * @param times Required. The number of times to change navigation
      */
     public void navigateLeft(Integer times) throws JSException {
-        mEditor.call("navigateLeft", times);
+        call("navigateLeft", times);
     }
 
     /**
@@ -708,7 +897,7 @@ public class Editor {
      * de-select the current selection.
      */
     public void navigateLineEnd() throws JSException {
-        mEditor.call("navigateLineEnd");
+        call("navigateLineEnd");
     }
 
     /**
@@ -716,7 +905,7 @@ public class Editor {
      * de-select the current selection.
      */
     public void navigateLineStart() throws JSException {
-        mEditor.call("navigateLineStart");
+        call("navigateLineStart");
     }
 
     /**
@@ -726,7 +915,7 @@ public class Editor {
      * @param times Required. The number of times to change navigation
      */
     public void navigateRight(Integer times) throws JSException {
-        mEditor.call("navigateRight", times);
+        call("navigateRight", times);
     }
 
     /**
@@ -737,7 +926,7 @@ public class Editor {
      * @param column Required. The columns to move.
      */
     public void navigateTo(Integer row, Integer column) throws JSException {
-        mEditor.call("navigateTo", row, column);
+        call("navigateTo", row, column);
     }
 
     /**
@@ -747,7 +936,7 @@ public class Editor {
      * @param times
      */
     public void navigateUp(Integer times) throws JSException {
-        mEditor.call("navigateUp", times);
+        call("navigateUp", times);
     }
 
     /**
@@ -755,7 +944,7 @@ public class Editor {
      * position. Note that this does de-select the current selection.
      */
     public void navigateWordLeft() throws JSException {
-        mEditor.call("navigateWordLeft");
+        call("navigateWordLeft");
     }
 
     /**
@@ -763,17 +952,17 @@ public class Editor {
      * position. Note that this does de-select the current selection.
      */
     public void navigateWordRight() throws JSException {
-        mEditor.call("navigateWordRight");
+        call("navigateWordRight");
     }
 
     @Deprecated
     public void off(String eventName, Object callback) throws JSException {
-        mEditor.call("off", eventName, callback);
+        call("off", eventName, callback);
     }
 
     @Deprecated
     public void on(String eventName, Object callback, Boolean capturing) throws JSException {
-        mEditor.call("off", eventName, callback, capturing);
+        call("off", eventName, callback, capturing);
     }
 
     /*
@@ -811,7 +1000,7 @@ public class Editor {
      * change.
      */
     public void redo() throws JSException {
-        mEditor.call("redo");
+        call("redo");
     }
 
     /**
@@ -822,14 +1011,14 @@ public class Editor {
      * "left" or "right"
      */
     public void remove(String dir) throws JSException {
-        mEditor.call("remove", dir);
+        call("remove", dir);
     }
 
     /**
      * Removes all the lines in the current selection
      */
     public void removeLines() throws JSException {
-        mEditor.call("removeLines");
+        call("removeLines");
     }
 
     /**
@@ -839,7 +1028,7 @@ public class Editor {
      */
     @Deprecated
     public void removeSelectionMarker(Range range) throws JSException {
-        mEditor.call("removeSelectionMarker", Commons.getObject(mEditor, range.toString()));
+        call("removeSelectionMarker", object(range.toString()));
     }
 
     /**
@@ -847,7 +1036,7 @@ public class Editor {
      * end of the line.
      */
     public void removeToLineEnd() throws JSException {
-        mEditor.call("removeToLineEnd");
+        call("removeToLineEnd");
     }
 
     /**
@@ -855,21 +1044,21 @@ public class Editor {
      * start of the line.
      */
     public void removeToLineStart() throws JSException {
-        mEditor.call("removeToLineStart");
+        call("removeToLineStart");
     }
 
     /**
      * Removes the word directly to the left of the current selection.
      */
     public void removeWordLeft() throws JSException {
-        mEditor.call("removeWordLeft");
+        call("removeWordLeft");
     }
 
     /**
      * Removes the word directly to the right of the current selection.
      */
     public void removeWordRight() throws JSException {
-        mEditor.call("removeWordRight");
+        call("removeWordRight");
     }
 
     /**
@@ -880,7 +1069,7 @@ public class Editor {
      * @param options Required. The Search options to use
      */
     public void replace(String replacement, SearchOptions options) throws JSException {
-        mEditor.call("replace", replacement, Commons.getObject(mEditor, options));
+        call("replace", replacement, object(options));
     }
 
     /**
@@ -890,7 +1079,7 @@ public class Editor {
      * @param options Required. The Search options to use
      */
     public void replaceAll(String replacement, SearchOptions options) throws JSException {
-        mEditor.call("replaceAll", replacement, Commons.getObject(mEditor, options));
+        call("replaceAll", replacement, object(options));
     }
 
     /**
@@ -900,7 +1089,7 @@ public class Editor {
      * and width haven't changed
      */
     public void resize(Boolean force) throws JSException {
-        mEditor.call("resize", force);
+        call("resize", force);
     }
 
     /**
@@ -910,7 +1099,7 @@ public class Editor {
      * @param animate Required. true to animate.
      */
     public void revealRange(Range range, Boolean animate) throws JSException {
-        mEditor.call("revealRange", Commons.getObject(mEditor, range), animate);
+        call("revealRange", object(range), animate);
     }
 
     /**
@@ -918,7 +1107,7 @@ public class Editor {
      * cursor position.
      */
     public void scrollPageDown() throws JSException {
-        mEditor.call("scrollPageDown");
+        call("scrollPageDown");
     }
 
     /**
@@ -926,7 +1115,7 @@ public class Editor {
      * cursor position.
      */
     public void scrollPageUp() throws JSException {
-        mEditor.call("scrollPageUp");
+        call("scrollPageUp");
     }
 
     /**
@@ -940,7 +1129,7 @@ public class Editor {
      */
     @Deprecated
     public void scrollToLine(Integer line, Boolean center, Boolean animate, Object callback) {
-        mEditor.call("scrollToLine", line, center, animate, callback);
+        call("scrollToLine", line, center, animate, callback);
     }
 
     /**
@@ -949,14 +1138,14 @@ public class Editor {
      * @param row Required. Row number.
      */
     public void scrollToRow(Integer row) throws JSException {
-        mEditor.call("resize", row);
+        call("resize", row);
     }
 
     /**
      * Selects all the text in editor.
      */
     public void selectAll() throws JSException {
-        mEditor.call("selectAll");
+        call("selectAll");
     }
 
     /**
@@ -968,7 +1157,7 @@ public class Editor {
      * @param skip Required. If true, removes the active selection range
      */
     public void selectMore(Integer dir, Boolean skip) throws JSException {
-        mEditor.call("selectMore", dir, skip);
+        call("selectMore", dir, skip);
     }
 
     /**
@@ -979,7 +1168,7 @@ public class Editor {
      * @param skip Required. If true, removes the active selection range
      */
     public void selectMoreLines(Integer dir, Boolean skip) throws JSException {
-        mEditor.call("selectMoreLines", dir, skip);
+        call("selectMoreLines", dir, skip);
     }
 
     /**
@@ -987,7 +1176,7 @@ public class Editor {
      * "page down" finishes.
      */
     public void selectPageDown() throws JSException {
-        mEditor.call("selectPageDown");
+        call("selectPageDown");
     }
 
     /**
@@ -995,7 +1184,7 @@ public class Editor {
      * "page up" finishes.
      */
     public void selectPageUp() throws JSException {
-        mEditor.call("selectPageUp");
+        call("selectPageUp");
     }
 
     /**
@@ -1004,11 +1193,11 @@ public class Editor {
      * @param shouldAnimate Required. True to enable animation.
      */
     public void setAnimatedScroll(Boolean shouldAnimate) throws JSException {
-        mEditor.call("setAnimatedScroll", shouldAnimate);
+        call("setAnimatedScroll", shouldAnimate);
     }
 
     public void setAutoScrollEditorIntoView(Boolean enable) throws JSException {
-        mEditor.call("setAutoScrollEditorIntoView", enable);
+        call("setAutoScrollEditorIntoView", enable);
     }
 
     /**
@@ -1019,7 +1208,7 @@ public class Editor {
      * @param enabled Required. Enables or disables behaviors
      */
     public void setBehavioursEnabled(Boolean enabled) throws JSException {
-        mEditor.call("setBehavioursEnabled", enabled);
+        call("setBehavioursEnabled", enabled);
     }
 
     /**
@@ -1028,7 +1217,7 @@ public class Editor {
      * @param indentGuides Required. The Indent guides to set.
      */
     public void setDisplayIndentGuides(Boolean indentGuides) throws JSException {
-        mEditor.call("setDisplayIndentGuides", indentGuides);
+        call("setDisplayIndentGuides", indentGuides);
     }
 
     /**
@@ -1037,7 +1226,7 @@ public class Editor {
      * @param dragDelay Required. A value indicating the new delay
      */
     public void setDragDelay(Integer dragDelay) throws JSException {
-        mEditor.call("setDragDelay", dragDelay);
+        call("setDragDelay", dragDelay);
     }
 
     /**
@@ -1046,7 +1235,7 @@ public class Editor {
      * @param fade true to enable fade fold
      */
     public void setFadeFoldWidgets(Boolean fade) throws JSException {
-        mEditor.call("setFadeFoldWidgets", fade);
+        call("setFadeFoldWidgets", fade);
     }
 
     /**
@@ -1055,7 +1244,7 @@ public class Editor {
      * @param size
      */
     public void setFontSize(Integer size) throws JSException {
-        mEditor.call("setFontSize", size);
+        call("setFontSize", size);
     }
 
     /**
@@ -1065,7 +1254,7 @@ public class Editor {
      * line
      */
     public void setHighlightActiveLine(Boolean shouldHighlight) throws JSException {
-        mEditor.call("setHighlightActiveLine", shouldHighlight);
+        call("setHighlightActiveLine", shouldHighlight);
     }
 
     /**
@@ -1075,7 +1264,7 @@ public class Editor {
      * line
      */
     public void setHighlightGutterLine(Boolean shouldHighlight) throws JSException {
-        mEditor.call("setHighlightGutterLine", shouldHighlight);
+        call("setHighlightGutterLine", shouldHighlight);
     }
 
     /**
@@ -1085,7 +1274,7 @@ public class Editor {
      * line
      */
     public void setHighlightSelectedWord(Boolean shouldHighlight) throws JSException {
-        mEditor.call("setHighlightSelectedWord", shouldHighlight);
+        call("setHighlightSelectedWord", shouldHighlight);
     }
 
     /**
@@ -1094,12 +1283,12 @@ public class Editor {
      * @param keyboardHandler Required. The new key handler
      */
     public void setKeyboardHandler(String keyboardHandler) throws JSException {
-        mEditor.call("setKeyboardHandler", keyboardHandler);
+        call("setKeyboardHandler", keyboardHandler);
     }
 
     @Deprecated
     public void setOption(String name, Object value) throws JSException {
-        mEditor.call("setOption", name, value);
+        call("setOption", name, value);
     }
 
     @Deprecated
@@ -1118,7 +1307,7 @@ public class Editor {
      * @param overwrite Required. Defines whether or not to set overwrites
      */
     public void setOverwrite(Boolean overwrite) throws JSException {
-        mEditor.call("setOverwrite", overwrite);
+        call("setOverwrite", overwrite);
     }
 
     /**
@@ -1127,7 +1316,7 @@ public class Editor {
      * @param showPrintMargin Required. Specifies the new print margin.
      */
     public void setPrintMarginColumn(Integer showPrintMargin) throws JSException {
-        mEditor.call("setPrintMarginColumn", showPrintMargin);
+        call("setPrintMarginColumn", showPrintMargin);
     }
 
     /**
@@ -1138,7 +1327,7 @@ public class Editor {
      * not
      */
     public void setReadOnly(Boolean readOnly) throws JSException {
-        mEditor.call("setReadOnly", readOnly);
+        call("setReadOnly", readOnly);
     }
 
     /**
@@ -1147,7 +1336,7 @@ public class Editor {
      * @param speed Required. A value indicating the new speed (in milliseconds)
      */
     public void setScrollSpeed(Double speed) throws JSException {
-        mEditor.call("setScrollSpeed", speed);
+        call("setScrollSpeed", speed);
     }
 
     /**
@@ -1159,7 +1348,7 @@ public class Editor {
      * @param style Required. The new selection style
      */
     public void setSelectionStyle(String style) throws JSException {
-        mEditor.call("setSelectionStyle", style);
+        call("setSelectionStyle", style);
     }
 
     /**
@@ -1170,8 +1359,32 @@ public class Editor {
      */
     @Deprecated
     public void setSession(JSObject session) throws JSException {
-        mEditor.call("setSession", session);
-        mEditSession = new EditSession(session);
+        call("setSession", session);
+        mEditSession = new EditSession(session, mMetrics);
+    }
+
+    /**
+     * Sets a new editsession to use. This method also emits the 'changeSession'
+     * event.
+     *
+     * @param session EditSession to set.
+     */
+    public void setSession(EditSession session) throws JSException {
+        call("setSession", session.getModel());
+        mEditSession = session;
+    }
+
+    /**
+     * Creates a new session that is not attached to any editor. The session
+     * has its own document, undo manager and folds, and takes its options from
+     * the current session.
+     *
+     * @param text Initial text of the session.
+     * @param mode Mode like "ace/mode/java", or null for the default mode.
+     * @return the new session.
+     */
+    public EditSession createSession(String text, String mode) throws JSException {
+        return new EditSession((JSObject) callHelper("createSession", mEditor, text, mode), mMetrics);
     }
 
     /**
@@ -1180,7 +1393,7 @@ public class Editor {
      * @param show Required. Specifies whether the fold widgets are shown.
      */
     public void setShowFoldWidgets(Boolean show) throws JSException {
-        mEditor.call("setShowFoldWidgets", show);
+        call("setShowFoldWidgets", show);
     }
 
     /**
@@ -1190,7 +1403,7 @@ public class Editor {
      * @param showInvisibles
      */
     public void setShowInvisibles(Boolean showInvisibles) throws JSException {
-        mEditor.call("setShowInvisibles", showInvisibles);
+        call("setShowInvisibles", showInvisibles);
     }
 
     /**
@@ -1201,7 +1414,7 @@ public class Editor {
      * invisible characters.
      */
     public void setShowPrintMargin(Boolean showPrintMargin) throws JSException {
-        mEditor.call("setShowPrintMargin", showPrintMargin);
+        call("setShowPrintMargin", showPrintMargin);
     }
 
     /**
@@ -1212,7 +1425,7 @@ public class Editor {
      */
     @Deprecated
     public void setTheme(String theme) throws JSException {
-        mEditor.call("setTheme", theme);
+        call("setTheme", theme);
     }
 
     /**
@@ -1226,7 +1439,7 @@ public class Editor {
      */
     @Deprecated
     public String setValue(String val, Integer cursorPos) throws JSException {
-        return (String) mEditor.call("setValue", val, cursorPos);
+        return (String) call("setValue", val, cursorPos);
     }
 
     /**
@@ -1237,35 +1450,35 @@ public class Editor {
      * @param enabled true if wrap behaviors should be enabled.
      */
     public void setWrapBehavioursEnabled(Boolean enabled) throws JSException {
-        mEditor.call("setWrapBehavioursEnabled", enabled);
+        call("setWrapBehavioursEnabled", enabled);
     }
 
     /**
      * Sorts the selected line.
      */
     public void sortLines() throws JSException {
-        mEditor.call("sortLines");
+        call("sortLines");
     }
 
     /**
      * <strong>Undocumented</strong>
      */
     public void splitLine() throws JSException {
-        mEditor.call("splitLine");
+        call("splitLine");
     }
 
     /**
      * This function makes all text within the selected range to lower case.
      */
     public void toLowerCase() throws JSException {
-        mEditor.call("toLowerCase");
+        call("toLowerCase");
     }
 
     /**
      * This function makes all text within the selected range to upper case.
      */
     public void toUpperCase() throws JSException {
-        mEditor.call("toUpperCase");
+        call("toUpperCase");
     }
 
     /**
@@ -1273,7 +1486,7 @@ public class Editor {
      * uncomments all of them.
      */
     public void toggleBlockComment() throws JSException {
-        mEditor.call("toggleBlockComment");
+        call("toggleBlockComment");
     }
 
     /**
@@ -1281,21 +1494,21 @@ public class Editor {
      * lines, or uncomments all of them.
      */
     public void toggleCommentLines() throws JSException {
-        mEditor.call("toggleCommentLines");
+        call("toggleCommentLines");
     }
 
     /**
      * Sets the value of overwrite to the opposite of whatever it currently is.
      */
     public void toggleOverwrite() throws JSException {
-        mEditor.call("toggleOverwrite");
+        call("toggleOverwrite");
     }
 
     /**
      * Transposes current line.
      */
     public void transposeLetters() throws JSException {
-        mEditor.call("transposeLetters");
+        call("transposeLetters");
     }
 
     /**
@@ -1304,14 +1517,14 @@ public class Editor {
      * @param dir Required. The direction to rotate selections.
      */
     public void transposeSelections(Integer dir) throws JSException {
-        mEditor.call("transposeSelections", dir);
+        call("transposeSelections", dir);
     }
 
     /**
      * Perform an undo operation on the document , reverting the last change.
      */
     public void undo() throws JSException {
-        mEditor.call("undo");
+        call("undo");
     }
 
     /**
@@ -1321,13 +1534,37 @@ public class Editor {
      */
     @Deprecated
     public void unsetStyle(JSObject style) throws JSException {
-        mEditor.call("unsetStyle", style);
+        call("unsetStyle", style);
     }
 
     /**
      * Updates the cursor and marker layers. public void
      */
     public void updateSelectionMarkers() throws JSException {
-        mEditor.call("updateSelectionMarkers");
+        call("updateSelectionMarkers");
+    }
+
+    private Object call(String method, Object... args) throws JSException {
+        return BridgeMetrics.call(mMetrics, "Editor", mEditor, method, args);
+    }
+
+    private Object eval(String script) throws JSException {
+        return BridgeMetrics.eval(mMetrics, "Editor", mEditor, script);
+    }
+
+    private JSObject object(Object object) throws JSException {
+        return BridgeMetrics.getObject(mMetrics, "Editor", mEditor, object);
+    }
+
+    /**
+     * Calls a function of the AceFX helper object of the page hosting this
+     * editor.
+     *
+     * @param method Name of the helper function.
+     * @param args Arguments of the function.
+     * @return the result of the function.
+     */
+    public Object callHelper(String method, Object... args) throws JSException {
+        return BridgeMetrics.call(mMetrics, "acefx", getHelpers(), method, args);
     }
 }
@@ -0,0 +1,223 @@
+package dev.anarchy.ace.model;
+
+import java.util.Arrays;
+
+/**
+ * Java side index of the line lengths of a document. Converts between
+ * absolute character offsets and row/column positions in O(log n) without
+ * calling in to the web engine. <br/>
+ * Line lengths are kept in a Fenwick tree. Edits within a single line update
+ * the tree in O(log n); edits adding or removing lines rebuild it in O(n).
+ * Newlines are counted as a single character, as ace does for unix new line
+ * mode.
+ */
+public class LineIndex {
+
+    // Length of every line, not including its newline
+    private int[] mLengths;
+    private int mLineCount;
+
+    // Fenwick tree over (line length + 1), 1-based
+    private int[] mTree;
+
+    /**
+     * Creates an index for the given text.
+     *
+     * @param text Document text, lines separated by '\n'.
+     */
+    public LineIndex(String text) {
+        if (text == null) {
+            text = "";
+        }
+        int lines = 1;
+        for (int i = 0; i < text.length(); ++i) {
+            if (text.charAt(i) == '\n') ++lines;
+        }
+        mLengths = new int[lines];
+        int row = 0;
+        int start = 0;
+        for (int i = 0; i < text.length(); ++i) {
+            if (text.charAt(i) == '\n') {
+                mLengths[row++] = i - start;
+                start = i + 1;
+            }
+        }
+        mLengths[row] = text.length() - start;
+        mLineCount = lines;
+        rebuild();
+    }
+
+    /**
+     * Updates the index with a change made to the document.
+     *
+     * @param delta Change to apply.
+     */
+    public void applyDelta(Delta delta) {
+        int row = delta.getStartRow();
+        int column = delta.getStartColumn();
+        String[] lines = delta.getLines();
+
+        if (delta.isInsert()) {
+            if (lines.length == 1) {
+                setLength(row, mLengths[row] + lines[0].length());
+                return;
+            }
+            int tail = mLengths[row] - column;
+            int added = lines.length - 1;
+            insertRows(row + 1, added);
+            mLengths[row] = column + lines[0].length();
+            for (int i = 1; i < added; ++i) {
+                mLengths[row + i] = lines[i].length();
+            }
+            mLengths[row + added] = lines[added].length() + tail;
+        } else {
+            int endRow = delta.getEndRow();
+            if (endRow == row) {
+                setLength(row, mLengths[row] - (delta.getEndColumn() - column));
+                return;
+            }
+            mLengths[row] = column + (mLengths[endRow] - delta.getEndColumn());
+            removeRows(row + 1, endRow - row);
+        }
+        rebuild();
+    }
+
+    /**
+     * @return number of lines in the document.
+     */
+    public int getLineCount() {
+        return mLineCount;
+    }
+
+    /**
+     * @return number of characters in the document, counting newlines.
+     */
+    public int getLength() {
+        return prefix(mLineCount) - 1;
+    }
+
+    /**
+     * @param row Row of the line.
+     * @return number of characters in the line, not counting its newline.
+     */
+    public int getLineLength(int row) {
+        return mLengths[checkRow(row)];
+    }
+
+    /**
+     * @param row Row of the line.
+     * @return offset of the first character of the line.
+     */
+    public int getLineStart(int row) {
+        return prefix(checkRow(row));
+    }
+
+    /**
+     * Converts an absolute offset to a position. Offsets past the end of the
+     * document are clamped to the end, as ace does.
+     *
+     * @param index Absolute character offset.
+     * @return position of the offset.
+     */
+    public DocPos indexToPosition(int index) {
+        if (index <= 0) {
+            return new DocPos(0, 0);
+        }
+        // Binary lifting: find the last row whose start is <= index
+        int row = 0;
+        int remaining = index;
+        int step = Integer.highestOneBit(mLineCount);
+        for (; step > 0; step >>= 1) {
+            int next = row + step;
+            if (next <= mLineCount && mTree[next] <= remaining) {
+                row = next;
+                remaining -= mTree[next];
+            }
+        }
+        if (row >= mLineCount) {
+            row = mLineCount - 1;
+            return new DocPos(row, mLengths[row]);
+        }
+        return new DocPos(row, Math.min(remaining, mLengths[row]));
+    }
+
+    /**
+     * Converts a position to an absolute offset. Positions outside the
+     * document are clamped to it.
+     *
+     * @param row Row of the position.
+     * @param column Column of the position.
+     * @return absolute character offset.
+     */
+    public int positionToIndex(int row, int column) {
+        if (row < 0) {
+            return 0;
+        }
+        if (row >= mLineCount) {
+            return getLength();
+        }
+        return prefix(row) + Math.max(0, Math.min(column, mLengths[row]));
+    }
+
+    /**
+     * Converts a position to an absolute offset.
+     *
+     * @param pos Position to convert.
+     * @return absolute character offset.
+     */
+    public int positionToIndex(DocPos pos) {
+        return positionToIndex(pos.getRow(), pos.getColumn());
+    }
+
+    private int checkRow(int row) {
+        if (row < 0 || row >= mLineCount) {
+            throw new IndexOutOfBoundsException("Row: " + row + ", Lines: " + mLineCount);
+        }
+        return row;
+    }
+
+    // Sum of (length + 1) for rows [0, count)
+    private int prefix(int count) {
+        int sum = 0;
+        for (int i = count; i > 0; i -= i & -i) {
+            sum += mTree[i];
+        }
+        return sum;
+    }
+
+    private void setLength(int row, int length) {
+        int diff = length - mLengths[row];
+        mLengths[row] = length;
+        for (int i = row + 1; i <= mLineCount; i += i & -i) {
+            mTree[i] += diff;
+        }
+    }
+
+    private void insertRows(int at, int count) {
+        if (mLineCount + count > mLengths.length) {
+            mLengths = Arrays.copyOf(mLengths, Math.max(mLineCount + count, mLengths.length * 2));
+        }
+        System.arraycopy(mLengths, at, mLengths, at + count, mLineCount - at);
+        mLineCount += count;
+    }
+
+    private void removeRows(int at, int count) {
+        System.arraycopy(mLengths, at + count, mLengths, at, mLineCount - at - count);
+        mLineCount -= count;
+    }
+
+    private void rebuild() {
+        if (mTree == null || mTree.length < mLineCount + 1) {
+            mTree = new int[mLengths.length + 1];
+        } else {
+            Arrays.fill(mTree, 0);
+        }
+        for (int i = 1; i <= mLineCount; ++i) {
+            mTree[i] += mLengths[i - 1] + 1;
+            int parent = i + (i & -i);
+            if (parent <= mLineCount) {
+                mTree[parent] += mTree[i];
+            }
+        }
+    }
+}
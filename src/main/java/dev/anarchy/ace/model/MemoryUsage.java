@@ -0,0 +1,132 @@
+package dev.anarchy.ace.model;
+
+/**
+ * Estimate of the memory a session holds in the page of an editor: its
+ * document, undo and redo stacks, token cache and markers. <br/>
+ * Sizes in bytes are estimates: strings count two bytes per character, and
+ * every line, delta and token a fixed overhead.
+ */
+public class MemoryUsage {
+
+    private static final int LINE_BYTES = 32;
+    private static final int DELTA_BYTES = 64;
+    private static final int TOKEN_ROW_BYTES = 32;
+    private static final int TOKEN_BYTES = 48;
+
+    private final long mDocumentChars;
+    private final int mLineCount;
+    private final int mUndoGroups;
+    private final int mUndoDeltas;
+    private final long mUndoChars;
+    private final int mTokenizedRows;
+    private final long mTokenCount;
+    private final int mFrontMarkers;
+    private final int mBackMarkers;
+
+    public MemoryUsage(long documentChars, int lineCount, int undoGroups, int undoDeltas, long undoChars,
+            int tokenizedRows, long tokenCount, int frontMarkers, int backMarkers) {
+        mDocumentChars = documentChars;
+        mLineCount = lineCount;
+        mUndoGroups = undoGroups;
+        mUndoDeltas = undoDeltas;
+        mUndoChars = undoChars;
+        mTokenizedRows = tokenizedRows;
+        mTokenCount = tokenCount;
+        mFrontMarkers = frontMarkers;
+        mBackMarkers = backMarkers;
+    }
+
+    /**
+     * Reads the form returned by the <code>estimateMemoryUsage</code> helper
+     * of the page: the counts of the constructor, separated by '|'.
+     */
+    public static MemoryUsage parse(String data) {
+        String[] p = data.split("\\|");
+        return new MemoryUsage(Long.parseLong(p[0]), Integer.parseInt(p[1]), Integer.parseInt(p[2]),
+                Integer.parseInt(p[3]), Long.parseLong(p[4]), Integer.parseInt(p[5]), Long.parseLong(p[6]),
+                Integer.parseInt(p[7]), Integer.parseInt(p[8]));
+    }
+
+    /**
+     * @return characters of the document, counting line ends.
+     */
+    public long getDocumentChars() {
+        return mDocumentChars;
+    }
+
+    public int getLineCount() {
+        return mLineCount;
+    }
+
+    /**
+     * @return number of undo and redo steps.
+     */
+    public int getUndoGroups() {
+        return mUndoGroups;
+    }
+
+    /**
+     * @return number of deltas in the undo and redo steps.
+     */
+    public int getUndoDeltas() {
+        return mUndoDeltas;
+    }
+
+    /**
+     * @return characters held by the undo and redo deltas.
+     */
+    public long getUndoChars() {
+        return mUndoChars;
+    }
+
+    /**
+     * @return number of rows in the token cache.
+     */
+    public int getTokenizedRows() {
+        return mTokenizedRows;
+    }
+
+    /**
+     * @return number of tokens in the token cache.
+     */
+    public long getTokenCount() {
+        return mTokenCount;
+    }
+
+    public int getFrontMarkerCount() {
+        return mFrontMarkers;
+    }
+
+    public int getBackMarkerCount() {
+        return mBackMarkers;
+    }
+
+    public int getMarkerCount() {
+        return mFrontMarkers + mBackMarkers;
+    }
+
+    public long getDocumentBytes() {
+        return mDocumentChars * 2 + (long) mLineCount * LINE_BYTES;
+    }
+
+    public long getUndoBytes() {
+        return mUndoChars * 2 + (long) mUndoDeltas * DELTA_BYTES;
+    }
+
+    public long getTokenCacheBytes() {
+        return (long) mTokenizedRows * TOKEN_ROW_BYTES + mTokenCount * TOKEN_BYTES;
+    }
+
+    /**
+     * @return estimated bytes of the document, undo stack and token cache.
+     */
+    public long getTotalBytes() {
+        return getDocumentBytes() + getUndoBytes() + getTokenCacheBytes();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("{document:%d, undo:%d, tokens:%d, markers:%d, total:%d}", getDocumentBytes(),
+                getUndoBytes(), getTokenCacheBytes(), getMarkerCount(), getTotalBytes());
+    }
+}
@@ -18,13 +18,14 @@ package dev.anarchy.ace.model;
 import netscape.javascript.JSObject;
 
 /**
+ * Immutable range of a document, from start (inclusive) to end (exclusive).
  *
  * @author Sudipto Chandra
  */
-public class Range {
+public final class Range {
 
-    private DocPos mEnd;
-    private DocPos mStart;
+    private final DocPos mEnd;
+    private final DocPos mStart;
     
     public Range()
     {
@@ -38,8 +39,31 @@ public class Range {
     }
 
     public Range(JSObject arg) {
-        this.mStart = new DocPos((JSObject) arg.getMember("start"));
-        this.mEnd = new DocPos((JSObject) arg.getMember("end"));
+        // Read all four coordinates in one crossing instead of one per member
+        String data = (String) arg.eval("this.start.row + ',' + this.start.column + ',' + this.end.row + ',' + this.end.column");
+        int[] values = RangeList.parseInts(data, 4);
+        this.mStart = new DocPos(values[0], values[1]);
+        this.mEnd = new DocPos(values[2], values[3]);
+    }
+
+    /**
+     * Checks whether the given position lies inside this range. The start is
+     * inclusive and the end is exclusive.
+     *
+     * @param row Row of the position.
+     * @param column Column of the position.
+     * @return true if the position is within the range.
+     */
+    public boolean contains(int row, int column) {
+        long pos = DocPos.pack(row, column);
+        return pos >= mStart.pack() && pos < mEnd.pack();
+    }
+
+    /**
+     * @return true if start and end are the same position.
+     */
+    public boolean isEmpty() {
+        return mStart.equals(mEnd);
     }
 
     public DocPos getStart() {
@@ -50,12 +74,21 @@ public class Range {
         return mEnd;
     }
 
-    public void setStart(DocPos start) {
-        this.mStart = start;
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (!(obj instanceof Range)) {
+            return false;
+        }
+        Range other = (Range) obj;
+        return mStart.equals(other.mStart) && mEnd.equals(other.mEnd);
     }
 
-    public void setEnd(DocPos end) {
-        this.mEnd = end;
+    @Override
+    public int hashCode() {
+        return 31 * mStart.hashCode() + mEnd.hashCode();
     }
 
     @Override
@@ -0,0 +1,414 @@
+package dev.anarchy.ace.model;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import netscape.javascript.JSException;
+import netscape.javascript.JSObject;
+
+/**
+ * A compact list of ranges backed by a single <code>int[]</code>. Every range
+ * takes four slots: start row, start column, end row and end column. No
+ * <code>Range</code> or <code>DocPos</code> objects are created unless they are
+ * explicitly requested with {@link #get(int)}. <br/>
+ * Conversion to and from JavaScript is done in a single bridge call.
+ */
+public class RangeList implements Iterable<Range> {
+
+    private static final int STRIDE = 4;
+
+    private int[] mData;
+    private int mSize;
+
+    public RangeList() {
+        this(16);
+    }
+
+    /**
+     * Creates an empty list that can hold the given number of ranges without
+     * growing.
+     *
+     * @param capacity Initial capacity in ranges.
+     */
+    public RangeList(int capacity) {
+        mData = new int[Math.max(1, capacity) * STRIDE];
+    }
+
+    /**
+     * Creates a list from an array of ace ranges (or any objects with
+     * <code>start</code> and <code>end</code> positions, such as folds). The
+     * whole array is read in one bridge call.
+     *
+     * @param array JavaScript array of ranges.
+     * @return list of the ranges in the same order.
+     */
+    public static RangeList fromJS(JSObject array) throws JSException {
+        String data = (String) array.eval("Array.prototype.map.call(this, function(r) {"
+                + " return r.start.row + ',' + r.start.column + ',' + r.end.row + ',' + r.end.column;"
+                + " }).join(',')");
+        RangeList list = new RangeList(0);
+        list.mData = parseInts(data, -1);
+        list.mSize = list.mData.length / STRIDE;
+        return list;
+    }
+
+    /**
+     * Creates a JavaScript array of ace ranges from this list in one bridge
+     * call.
+     *
+     * @param parent Any JSObject living in the target page.
+     * @return JavaScript array of <code>ace/range</code> instances.
+     */
+    public JSObject toJS(JSObject parent) throws JSException {
+        StringBuilder sb = new StringBuilder(mSize * STRIDE * 4 + 160);
+        sb.append("(function() { var R = ace.require('ace/range').Range; var d = [");
+        for (int i = 0; i < mSize * STRIDE; ++i) {
+            if (i > 0) sb.append(',');
+            sb.append(mData[i]);
+        }
+        sb.append("]; var out = new Array(d.length / 4);");
+        sb.append(" for (var i = 0, j = 0; i < d.length; i += 4) out[j++] = new R(d[i], d[i + 1], d[i + 2], d[i + 3]);");
+        sb.append(" return out; })()");
+        return (JSObject) parent.eval(sb.toString());
+    }
+
+    /**
+     * Adds a range to the end of the list.
+     */
+    public void add(int startRow, int startColumn, int endRow, int endColumn) {
+        ensureCapacity(mSize + 1);
+        int i = mSize * STRIDE;
+        mData[i] = startRow;
+        mData[i + 1] = startColumn;
+        mData[i + 2] = endRow;
+        mData[i + 3] = endColumn;
+        ++mSize;
+    }
+
+    /**
+     * Adds a range to the end of the list.
+     *
+     * @param range Range to copy into the list.
+     */
+    public void add(Range range) {
+        add(range.getStart().getRow(), range.getStart().getColumn(),
+                range.getEnd().getRow(), range.getEnd().getColumn());
+    }
+
+    /**
+     * Adds every range of the other list to the end of this list.
+     *
+     * @param other List to copy from.
+     */
+    public void addAll(RangeList other) {
+        ensureCapacity(mSize + other.mSize);
+        System.arraycopy(other.mData, 0, mData, mSize * STRIDE, other.mSize * STRIDE);
+        mSize += other.mSize;
+    }
+
+    public int size() {
+        return mSize;
+    }
+
+    public boolean isEmpty() {
+        return mSize == 0;
+    }
+
+    public void clear() {
+        mSize = 0;
+    }
+
+    public int getStartRow(int index) {
+        return mData[checkIndex(index) * STRIDE];
+    }
+
+    public int getStartColumn(int index) {
+        return mData[checkIndex(index) * STRIDE + 1];
+    }
+
+    public int getEndRow(int index) {
+        return mData[checkIndex(index) * STRIDE + 2];
+    }
+
+    public int getEndColumn(int index) {
+        return mData[checkIndex(index) * STRIDE + 3];
+    }
+
+    /**
+     * @return start of the range at index, packed by {@link DocPos#pack(int, int)}.
+     */
+    public long getStart(int index) {
+        int i = checkIndex(index) * STRIDE;
+        return DocPos.pack(mData[i], mData[i + 1]);
+    }
+
+    /**
+     * @return end of the range at index, packed by {@link DocPos#pack(int, int)}.
+     */
+    public long getEnd(int index) {
+        int i = checkIndex(index) * STRIDE;
+        return DocPos.pack(mData[i + 2], mData[i + 3]);
+    }
+
+    /**
+     * Creates a new <code>Range</code> object for the range at index.
+     *
+     * @param index Index of the range.
+     * @return a new range object.
+     */
+    public Range get(int index) {
+        int i = checkIndex(index) * STRIDE;
+        return new Range(mData[i], mData[i + 1], mData[i + 2], mData[i + 3]);
+    }
+
+    /**
+     * Sorts the ranges by start position, then by end position.
+     */
+    public void sort() {
+        if (mSize < 2) {
+            return;
+        }
+        long[] keys = new long[mSize * 2];
+        for (int i = 0; i < mSize; ++i) {
+            int j = i * STRIDE;
+            keys[i * 2] = DocPos.pack(mData[j], mData[j + 1]);
+            keys[i * 2 + 1] = DocPos.pack(mData[j + 2], mData[j + 3]);
+        }
+        int[] order = new int[mSize];
+        for (int i = 0; i < mSize; ++i) {
+            order[i] = i;
+        }
+        mergeSort(order, new int[mSize], 0, mSize, keys);
+
+        int[] sorted = new int[mData.length];
+        for (int i = 0; i < mSize; ++i) {
+            System.arraycopy(mData, order[i] * STRIDE, sorted, i * STRIDE, STRIDE);
+        }
+        mData = sorted;
+    }
+
+    /**
+     * Sorts the list and joins all overlapping or touching ranges, leaving a
+     * sorted list of disjoint ranges.
+     */
+    public void merge() {
+        sort();
+        int out = 0;
+        for (int i = 0; i < mSize; ++i) {
+            int j = i * STRIDE;
+            if (out > 0) {
+                int last = (out - 1) * STRIDE;
+                long lastEnd = DocPos.pack(mData[last + 2], mData[last + 3]);
+                if (DocPos.pack(mData[j], mData[j + 1]) <= lastEnd) {
+                    if (DocPos.pack(mData[j + 2], mData[j + 3]) > lastEnd) {
+                        mData[last + 2] = mData[j + 2];
+                        mData[last + 3] = mData[j + 3];
+                    }
+                    continue;
+                }
+            }
+            System.arraycopy(mData, j, mData, out * STRIDE, STRIDE);
+            ++out;
+        }
+        mSize = out;
+    }
+
+    /**
+     * Computes the intersection of two lists. Both lists must be sorted and
+     * disjoint, e.g. after calling {@link #merge()}.
+     *
+     * @param other List to intersect with.
+     * @return a new sorted list holding every non-empty overlap.
+     */
+    public RangeList intersect(RangeList other) {
+        RangeList result = new RangeList(Math.min(mSize, other.mSize) + 1);
+        int a = 0;
+        int b = 0;
+        while (a < mSize && b < other.mSize) {
+            long start = Math.max(getStart(a), other.getStart(b));
+            long endA = getEnd(a);
+            long endB = other.getEnd(b);
+            long end = Math.min(endA, endB);
+            if (start < end) {
+                result.add(DocPos.unpackRow(start), DocPos.unpackColumn(start),
+                        DocPos.unpackRow(end), DocPos.unpackColumn(end));
+            }
+            if (endA < endB) {
+                ++a;
+            } else {
+                ++b;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Finds the range containing the given position with a binary search. The
+     * list must be sorted and disjoint. The start of a range is inclusive and
+     * the end is exclusive.
+     *
+     * @param row Row of the position.
+     * @param column Column of the position.
+     * @return index of the containing range, or
+     * <code>-(insertion point) - 1</code> if no range contains the position.
+     */
+    public int indexOf(int row, int column) {
+        long pos = DocPos.pack(row, column);
+        int low = 0;
+        int high = mSize - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (getEnd(mid) <= pos) {
+                low = mid + 1;
+            } else if (getStart(mid) > pos) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -(low + 1);
+    }
+
+    /**
+     * Copies the raw data of the list. Each range takes four consecutive
+     * values: start row, start column, end row and end column.
+     *
+     * @return a copy of the backing data.
+     */
+    public int[] toArray() {
+        return Arrays.copyOf(mData, mSize * STRIDE);
+    }
+
+    @Override
+    public Iterator<Range> iterator() {
+        return new Iterator<Range>() {
+            private int mNext;
+
+            @Override
+            public boolean hasNext() {
+                return mNext < mSize;
+            }
+
+            @Override
+            public Range next() {
+                if (mNext >= mSize) {
+                    throw new NoSuchElementException();
+                }
+                return get(mNext++);
+            }
+        };
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("[");
+        for (int i = 0; i < mSize; ++i) {
+            if (i > 0) sb.append(", ");
+            int j = i * STRIDE;
+            sb.append(String.format("{start:{row: %d, column: %d}, end:{row: %d, column: %d}}",
+                    mData[j], mData[j + 1], mData[j + 2], mData[j + 3]));
+        }
+        return sb.append(']').toString();
+    }
+
+    private void ensureCapacity(int ranges) {
+        if (ranges * STRIDE > mData.length) {
+            mData = Arrays.copyOf(mData, Math.max(ranges * STRIDE, mData.length * 2));
+        }
+    }
+
+    private int checkIndex(int index) {
+        if (index < 0 || index >= mSize) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + mSize);
+        }
+        return index;
+    }
+
+    private static int compare(long[] keys, int a, int b) {
+        int c = Long.compare(keys[a * 2], keys[b * 2]);
+        return c != 0 ? c : Long.compare(keys[a * 2 + 1], keys[b * 2 + 1]);
+    }
+
+    private static void mergeSort(int[] order, int[] tmp, int from, int to, long[] keys) {
+        if (to - from < 2) {
+            return;
+        }
+        int mid = (from + to) >>> 1;
+        mergeSort(order, tmp, from, mid, keys);
+        mergeSort(order, tmp, mid, to, keys);
+        if (compare(keys, order[mid - 1], order[mid]) <= 0) {
+            return;
+        }
+        System.arraycopy(order, from, tmp, from, to - from);
+        int i = from;
+        int j = mid;
+        for (int k = from; k < to; ++k) {
+            if (j >= to || (i < mid && compare(keys, tmp[i], tmp[j]) <= 0)) {
+                order[k] = tmp[i++];
+            } else {
+                order[k] = tmp[j++];
+            }
+        }
+    }
+
+    /**
+     * Parses a comma separated list of integers. <code>Infinity</code>, which
+     * ace uses for the end column of whole line ranges, and values out of the
+     * <code>int</code> range are clamped to <code>Integer.MAX_VALUE</code> (or
+     * <code>MIN_VALUE</code>).
+     *
+     * @param data Comma separated integers.
+     * @param expected Number of values expected, or -1 if unknown.
+     * @return the parsed values.
+     * @throws IllegalArgumentException if a value is not an integer, like
+     *         <code>NaN</code> or <code>1.5</code>.
+     */
+    static int[] parseInts(String data, int expected) {
+        if (data == null || data.isEmpty()) {
+            return new int[Math.max(0, expected)];
+        }
+        int count = expected;
+        if (count < 0) {
+            count = 1;
+            for (int i = 0; i < data.length(); ++i) {
+                if (data.charAt(i) == ',') ++count;
+            }
+        }
+        int[] values = new int[count];
+        int index = 0;
+        int from = 0;
+        while (index < count && from <= data.length()) {
+            int to = data.indexOf(',', from);
+            if (to < 0) {
+                to = data.length();
+            }
+            values[index++] = parseInt(data, from, to);
+            from = to + 1;
+        }
+        return values;
+    }
+
+    private static int parseInt(String data, int from, int to) {
+        boolean negative = from < to && data.charAt(from) == '-';
+        int i = negative ? from + 1 : from;
+        if (data.startsWith("Infinity", i) && i + "Infinity".length() == to) {
+            return negative ? Integer.MIN_VALUE : Integer.MAX_VALUE;
+        }
+        if (i == to) {
+            throw new IllegalArgumentException("Not an integer: '" + data.substring(from, to) + "'");
+        }
+        long value = 0;
+        for (; i < to; ++i) {
+            char c = data.charAt(i);
+            if (c < '0' || c > '9') {
+                throw new IllegalArgumentException("Not an integer: '" + data.substring(from, to) + "'");
+            }
+            if (value <= Integer.MAX_VALUE) {
+                value = value * 10 + (c - '0');
+            }
+        }
+        value = negative ? -value : value;
+        return (int) Math.max(Integer.MIN_VALUE, Math.min(Integer.MAX_VALUE, value));
+    }
+}
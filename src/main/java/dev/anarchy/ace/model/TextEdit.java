@@ -0,0 +1,67 @@
+package dev.anarchy.ace.model;
+
+/**
+ * A single replacement of a range of the document with new text. An empty
+ * range inserts text, an empty text removes the range.
+ */
+public class TextEdit {
+
+    private final int mStartRow;
+    private final int mStartColumn;
+    private final int mEndRow;
+    private final int mEndColumn;
+    private final String mText;
+
+    public TextEdit(int startRow, int startColumn, int endRow, int endColumn, String text) {
+        mStartRow = startRow;
+        mStartColumn = startColumn;
+        mEndRow = endRow;
+        mEndColumn = endColumn;
+        mText = text == null ? "" : text;
+    }
+
+    public TextEdit(Range range, String text) {
+        this(range.getStart().getRow(), range.getStart().getColumn(),
+                range.getEnd().getRow(), range.getEnd().getColumn(), text);
+    }
+
+    public int getStartRow() {
+        return mStartRow;
+    }
+
+    public int getStartColumn() {
+        return mStartColumn;
+    }
+
+    public int getEndRow() {
+        return mEndRow;
+    }
+
+    public int getEndColumn() {
+        return mEndColumn;
+    }
+
+    public Range getRange() {
+        return new Range(mStartRow, mStartColumn, mEndRow, mEndColumn);
+    }
+
+    /**
+     * @return the replacement text.
+     */
+    public String getText() {
+        return mText;
+    }
+
+    long getStart() {
+        return DocPos.pack(mStartRow, mStartColumn);
+    }
+
+    long getEnd() {
+        return DocPos.pack(mEndRow, mEndColumn);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("{range:%s, text:'%s'}", getRange(), mText);
+    }
+}
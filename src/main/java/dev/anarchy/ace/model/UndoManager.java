@@ -15,6 +15,7 @@
  */
 package dev.anarchy.ace.model;
 
+import dev.anarchy.ace.util.BridgeMetrics;
 import netscape.javascript.JSException;
 import netscape.javascript.JSObject;
 
@@ -25,6 +26,7 @@ import netscape.javascript.JSObject;
 public class UndoManager {
 
     private final JSObject mUndoManager;
+    private final BridgeMetrics mMetrics;
 
     /**
      * Manipulate undo manager commands
@@ -32,7 +34,18 @@ public class UndoManager {
      * @param undoManager JavaScript object of undo manager.
      */
     public UndoManager(JSObject undoManager) throws JSException {
+        this(undoManager, null);
+    }
+
+    /**
+     * Manipulate undo manager commands
+     *
+     * @param undoManager JavaScript object of undo manager.
+     * @param metrics Metrics recording the calls made through this undo manager, or null.
+     */
+    public UndoManager(JSObject undoManager, BridgeMetrics metrics) throws JSException {
         mUndoManager = undoManager;
+        mMetrics = metrics;
     }
 
     /**
@@ -44,7 +57,7 @@ public class UndoManager {
      * @param options Required. Contains additional properties.
      */
     private void execute(Object options) throws JSException {
-        mUndoManager.call("execute", options);
+        call("execute", options);
     }
 
     /**
@@ -53,7 +66,7 @@ public class UndoManager {
      * @return true if there are redo operations left to perform.
      */
     public boolean hasRedo() throws JSException {
-        return (boolean) mUndoManager.call("hasRedo");
+        return (boolean) call("hasRedo");
     }
 
     /**
@@ -62,15 +75,15 @@ public class UndoManager {
      * @return true if there are undo operations left to perform.
      */
     public boolean hasUndo() throws JSException {
-        return (boolean) mUndoManager.call("hasUndo");
+        return (boolean) call("hasUndo");
     }
 
     public boolean isClean() throws JSException {
-        return (boolean) mUndoManager.call("isClean");
+        return (boolean) call("isClean");
     }
 
     public void markClean() throws JSException {
-        mUndoManager.call("markClean");
+        call("markClean");
     }
 
     /**
@@ -81,14 +94,14 @@ public class UndoManager {
      * the change occurred.
      */
     public void redo(Boolean dontSelect) throws JSException {
-        mUndoManager.call("redo", dontSelect);
+        call("redo", dontSelect);
     }
 
     /**
      * Destroys the stack of undo and redo redo operations.
      */
     public void reset() throws JSException {
-        mUndoManager.call("reset");
+        call("reset");
     }
 
     /**
@@ -98,10 +111,14 @@ public class UndoManager {
      * the change occurred.
      */
     public void undo(Boolean dontSelect) throws JSException {
-        mUndoManager.call("undo", dontSelect);
+        call("undo", dontSelect);
     }
 
     public int getLength() {
-        return (int) mUndoManager.call("length");
+        return (int) call("length");
+    }
+
+    private Object call(String method, Object... args) throws JSException {
+        return BridgeMetrics.call(mMetrics, "UndoManager", mUndoManager, method, args);
     }
 }
@@ -0,0 +1,538 @@
+package dev.anarchy.ace.util;
+
+import java.lang.management.ManagementFactory;
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+import javax.management.InstanceNotFoundException;
+import javax.management.JMException;
+import javax.management.MBeanRegistrationException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import dev.anarchy.ace.jfr.AceJfr;
+import netscape.javascript.JSException;
+import netscape.javascript.JSObject;
+
+/**
+ * Counts and times the calls made between java and the page of an editor:
+ * calls from java to JavaScript made by the wrappers, and upcalls from
+ * JavaScript to java. Every call is recorded under the name of its target,
+ * like <code>EditSession.getValue</code> or <code>upcall.onChange</code>,
+ * both in the metrics of its editor and in the {@link #global()} metrics.
+ * <br/>
+ * Recording is disabled by default and costs nothing until enabled with
+ * {@link #setEnabled(boolean)}. The same calls are reported as Flight
+ * Recorder events while a recording is running, see {@link AceJfr}.
+ */
+public final class BridgeMetrics implements BridgeMetricsMXBean {
+
+    /**
+     * Metrics of the calls made under one name. The latency histogram has
+     * power of two buckets: bucket 0 counts calls under 1us, bucket i calls
+     * of 2^(i-1)us up to 2^i us; the last bucket counts everything above.
+     */
+    public static final class Stats {
+
+        public static final int BUCKETS = 24;
+
+        private long mCount;
+        private long mTotalNanos;
+        private long mMaxNanos;
+        private long mPayloadChars;
+        private final long[] mHistogram = new long[BUCKETS];
+
+        synchronized void record(long nanos, long payloadChars) {
+            mCount++;
+            mTotalNanos += nanos;
+            mMaxNanos = Math.max(mMaxNanos, nanos);
+            mPayloadChars += payloadChars;
+            long micros = nanos / 1000;
+            int bucket = micros == 0 ? 0 : 64 - Long.numberOfLeadingZeros(micros);
+            mHistogram[Math.min(bucket, BUCKETS - 1)]++;
+        }
+
+        // Adds counts measured elsewhere, with the same histogram buckets
+        synchronized void merge(long count, long totalNanos, long maxNanos, long[] histogram) {
+            mCount += count;
+            mTotalNanos += totalNanos;
+            mMaxNanos = Math.max(mMaxNanos, maxNanos);
+            for (int i = 0; i < BUCKETS; ++i) {
+                mHistogram[i] += histogram[i];
+            }
+        }
+
+        public synchronized long getCount() {
+            return mCount;
+        }
+
+        public synchronized long getTotalNanos() {
+            return mTotalNanos;
+        }
+
+        public synchronized long getMaxNanos() {
+            return mMaxNanos;
+        }
+
+        /**
+         * @return characters of the strings passed and returned.
+         */
+        public synchronized long getPayloadChars() {
+            return mPayloadChars;
+        }
+
+        public synchronized double getMeanMicros() {
+            return mCount == 0 ? 0 : mTotalNanos / 1000d / mCount;
+        }
+
+        /**
+         * @return a copy of the latency histogram.
+         */
+        public synchronized long[] getHistogram() {
+            return mHistogram.clone();
+        }
+
+        /**
+         * Estimates a latency percentile from the histogram.
+         *
+         * @param percentile Percentile, from 0 to 100.
+         * @return the upper bound of the bucket holding the percentile, in microseconds.
+         */
+        public synchronized long getPercentileMicros(double percentile) {
+            long rank = (long) Math.ceil(mCount * percentile / 100);
+            long seen = 0;
+            for (int i = 0; i < BUCKETS; ++i) {
+                seen += mHistogram[i];
+                if (seen >= rank && seen > 0) {
+                    return 1L << i;
+                }
+            }
+            return 0;
+        }
+
+        @Override
+        public synchronized String toString() {
+            return String.format("{count:%d, meanUs:%.1f, maxUs:%d, payload:%d}", mCount, getMeanMicros(),
+                    mMaxNanos / 1000, mPayloadChars);
+        }
+    }
+
+    /**
+     * A call being measured, from {@link BridgeMetrics#startCall(BridgeMetrics)} or
+     * {@link BridgeMetrics#startUpcall(BridgeMetrics)}.
+     */
+    public static final class Span {
+        final long mStart;
+        final Object mEvent;
+
+        Span(Object event) {
+            mEvent = event;
+            mStart = System.nanoTime();
+        }
+    }
+
+    private static final String UPCALL = "upcall.";
+
+    private static volatile boolean sEnabled;
+
+    private static final BridgeMetrics sGlobal = new BridgeMetrics("global", null);
+
+    private final String mName;
+    private final BridgeMetrics mParent;
+    private final Map<String, Stats> mStats = new ConcurrentHashMap<>();
+    private ObjectName mObjectName;
+
+    // Live counters, kept while the editor is watched, whether recording is enabled or not
+    private volatile boolean mLive;
+    private final AtomicLong mLiveCalls = new AtomicLong();
+    private final AtomicLong mLiveUpcalls = new AtomicLong();
+    private String mSlowestName;
+    private long mSlowestNanos;
+
+    /**
+     * Creates the metrics of one editor, aggregated in to the global metrics.
+     *
+     * @param name Name of the editor, used as JMX name.
+     */
+    public BridgeMetrics(String name) {
+        this(name, sGlobal);
+    }
+
+    private BridgeMetrics(String name, BridgeMetrics parent) {
+        mName = name;
+        mParent = parent;
+    }
+
+    /**
+     * @return metrics of all editors together.
+     */
+    public static BridgeMetrics global() {
+        return sGlobal;
+    }
+
+    /**
+     * Enables or disables recording, for all editors.
+     */
+    public static void setEnabled(boolean enabled) {
+        sEnabled = enabled;
+    }
+
+    public static boolean isEnabled() {
+        return sEnabled;
+    }
+
+    //
+    // Recording
+    //
+
+    /**
+     * Calls a method of a JavaScript object, recording it when enabled.
+     *
+     * @param metrics Metrics of the editor, or null to record globally only.
+     * @param owner Name of the wrapper making the call, like "Editor".
+     */
+    public static Object call(BridgeMetrics metrics, String owner, JSObject target, String method, Object... args)
+            throws JSException {
+        if (!isActive(metrics)) {
+            return target.call(method, args);
+        }
+        Span span = new Span(AceJfr.beginBridgeCall());
+        Object result = null;
+        try {
+            result = target.call(method, args);
+            return result;
+        } finally {
+            // Also recorded when the call throws
+            long payload = payloadOf(result);
+            for (Object arg : args) {
+                payload += payloadOf(arg);
+            }
+            endCall(metrics, owner + "." + method, span, payload);
+        }
+    }
+
+    /**
+     * Evaluates a script on a JavaScript object, recording it when enabled.
+     * Scripts are recorded under their first 40 characters.
+     *
+     * @param metrics Metrics of the editor, or null to record globally only.
+     * @param owner Name of the wrapper making the call, like "Editor".
+     */
+    public static Object eval(BridgeMetrics metrics, String owner, JSObject target, String script)
+            throws JSException {
+        if (!isActive(metrics)) {
+            return target.eval(script);
+        }
+        Span span = new Span(AceJfr.beginBridgeCall());
+        Object result = null;
+        try {
+            result = target.eval(script);
+            return result;
+        } finally {
+            String key = script.length() > 40 ? script.substring(0, 40) : script;
+            endCall(metrics, owner + ".eval(" + key + ")", span, script.length() + payloadOf(result));
+        }
+    }
+
+    /**
+     * Converts an object to JavaScript with {@link Commons#getObject(JSObject, Object)},
+     * recording it when enabled.
+     */
+    public static JSObject getObject(BridgeMetrics metrics, String owner, JSObject parent, Object object) {
+        if (!isActive(metrics)) {
+            return Commons.getObject(parent, object);
+        }
+        Span span = new Span(AceJfr.beginBridgeCall());
+        try {
+            return Commons.getObject(parent, object);
+        } finally {
+            endCall(metrics, owner + ".getObject", span, String.valueOf(object).length());
+        }
+    }
+
+    /**
+     * Starts measuring a call from java in to the page. The call should be
+     * ended in a <code>finally</code> block, so failing calls are recorded too.
+     *
+     * @param metrics Metrics of the editor, or null to record globally only.
+     * @return the call being measured, or null when nothing is recorded.
+     */
+    public static Span startCall(BridgeMetrics metrics) {
+        if (!isActive(metrics)) {
+            return null;
+        }
+        return new Span(AceJfr.beginBridgeCall());
+    }
+
+    /**
+     * Records a call started by {@link #startCall(BridgeMetrics)}.
+     *
+     * @param metrics Metrics of the editor, or null to record globally only.
+     * @param name Name of the call, like "AceEditor.executeScript".
+     * @param span Value returned by {@link #startCall(BridgeMetrics)}.
+     * @param payloadChars Characters of data sent and received.
+     */
+    public static void endCall(BridgeMetrics metrics, String name, Span span, long payloadChars) {
+        if (span == null) {
+            return;
+        }
+        long nanos = System.nanoTime() - span.mStart;
+        if (sEnabled) {
+            record(metrics, name, nanos, payloadChars);
+        }
+        if (metrics != null && metrics.mLive) {
+            metrics.countLive(name, nanos, false);
+        }
+        AceJfr.endBridgeCall(span.mEvent, nameOf(metrics), name, payloadChars);
+    }
+
+    /**
+     * Starts measuring an upcall from the page. The upcall should be ended in
+     * a <code>finally</code> block, so failing upcalls are recorded too.
+     *
+     * @param metrics Metrics of the editor, or null to record globally only.
+     * @return the upcall being measured, or null when nothing is recorded.
+     */
+    public static Span startUpcall(BridgeMetrics metrics) {
+        if (!isActive(metrics)) {
+            return null;
+        }
+        return new Span(AceJfr.beginEventDispatch());
+    }
+
+    /**
+     * Records an upcall started by {@link #startUpcall(BridgeMetrics)}.
+     *
+     * @param metrics Metrics of the editor, or null to record globally only.
+     * @param name Name of the upcall, like "onChange".
+     * @param span Value returned by {@link #startUpcall(BridgeMetrics)}.
+     * @param payloadChars Characters of data received.
+     */
+    public static void endUpcall(BridgeMetrics metrics, String name, Span span, long payloadChars) {
+        if (span == null) {
+            return;
+        }
+        long nanos = System.nanoTime() - span.mStart;
+        if (sEnabled) {
+            record(metrics, UPCALL + name, nanos, payloadChars);
+        }
+        if (metrics != null && metrics.mLive) {
+            metrics.countLive(UPCALL + name, nanos, true);
+        }
+        AceJfr.endEventDispatch(span.mEvent, nameOf(metrics), name, payloadChars);
+    }
+
+    private static boolean isActive(BridgeMetrics metrics) {
+        return sEnabled || (metrics != null && metrics.mLive) || AceJfr.isRecording();
+    }
+
+    private static String nameOf(BridgeMetrics metrics) {
+        return metrics == null ? null : metrics.mName;
+    }
+
+    private static void record(BridgeMetrics metrics, String key, long nanos, long payload) {
+        for (BridgeMetrics m = metrics == null ? sGlobal : metrics; m != null; m = m.mParent) {
+            m.mStats.computeIfAbsent(key, k -> new Stats()).record(nanos, payload);
+        }
+    }
+
+    private static long payloadOf(Object value) {
+        return value instanceof String ? ((String) value).length() : 0;
+    }
+
+    //
+    // Live counters
+    //
+
+    /**
+     * Keeps live counters of the calls of this editor, even while recording
+     * is disabled, as needed by the performance display of the editor.
+     */
+    public void setLive(boolean live) {
+        mLive = live;
+    }
+
+    public boolean isLive() {
+        return mLive;
+    }
+
+    /**
+     * @return number of calls in to the page counted while live.
+     */
+    public long getLiveCallCount() {
+        return mLiveCalls.get();
+    }
+
+    /**
+     * @return number of upcalls from the page counted while live.
+     */
+    public long getLiveUpcallCount() {
+        return mLiveUpcalls.get();
+    }
+
+    /**
+     * Gets the slowest call counted while live since the last time this was
+     * called, and starts over.
+     *
+     * @return name and duration of the call, like "EditSession.getValue 12.3ms", or null if there was none.
+     */
+    public synchronized String takeSlowestCall() {
+        if (mSlowestName == null) {
+            return null;
+        }
+        String slowest = String.format("%s %.1fms", mSlowestName, mSlowestNanos / 1_000_000d);
+        mSlowestName = null;
+        mSlowestNanos = 0;
+        return slowest;
+    }
+
+    private void countLive(String name, long nanos, boolean upcall) {
+        (upcall ? mLiveUpcalls : mLiveCalls).incrementAndGet();
+        synchronized (this) {
+            if (nanos > mSlowestNanos) {
+                mSlowestNanos = nanos;
+                mSlowestName = name;
+            }
+        }
+    }
+
+    //
+    // Queries
+    //
+
+    @Override
+    public String getName() {
+        return mName;
+    }
+
+    /**
+     * @return metrics by call name, sorted by name.
+     */
+    public Map<String, Stats> getStats() {
+        return Collections.unmodifiableMap(new TreeMap<>(mStats));
+    }
+
+    /**
+     * @param name Call name, like "Editor.getValue" or "upcall.onChange".
+     * @return metrics of the call, or null if it was not made.
+     */
+    public Stats getStats(String name) {
+        return mStats.get(name);
+    }
+
+    @Override
+    public long getCallCount() {
+        return sum(false, Stats::getCount);
+    }
+
+    @Override
+    public long getUpcallCount() {
+        return sum(true, Stats::getCount);
+    }
+
+    @Override
+    public double getCallMillis() {
+        return sum(false, Stats::getTotalNanos) / 1_000_000d;
+    }
+
+    @Override
+    public double getUpcallMillis() {
+        return sum(true, Stats::getTotalNanos) / 1_000_000d;
+    }
+
+    @Override
+    public Map<String, Long> getCounts() {
+        return collect(Stats::getCount);
+    }
+
+    @Override
+    public Map<String, Double> getMeanMicros() {
+        return collect(Stats::getMeanMicros);
+    }
+
+    @Override
+    public Map<String, Long> getP99Micros() {
+        return collect(s -> s.getPercentileMicros(99));
+    }
+
+    @Override
+    public Map<String, Long> getMaxMicros() {
+        return collect(s -> s.getMaxNanos() / 1000);
+    }
+
+    @Override
+    public Map<String, Long> getPayloadChars() {
+        return collect(Stats::getPayloadChars);
+    }
+
+    @Override
+    public void reset() {
+        mStats.clear();
+    }
+
+    private long sum(boolean upcalls, Function<Stats, Long> value) {
+        long total = 0;
+        for (Map.Entry<String, Stats> entry : mStats.entrySet()) {
+            if (entry.getKey().startsWith(UPCALL) == upcalls) {
+                total += value.apply(entry.getValue());
+            }
+        }
+        return total;
+    }
+
+    private <T> Map<String, T> collect(Function<Stats, T> value) {
+        Map<String, T> map = new TreeMap<>();
+        for (Map.Entry<String, Stats> entry : mStats.entrySet()) {
+            map.put(entry.getKey(), value.apply(entry.getValue()));
+        }
+        return map;
+    }
+
+    //
+    // JMX
+    //
+
+    /**
+     * Registers these metrics with the platform MBean server, as
+     * <code>dev.anarchy.ace:type=BridgeMetrics,name=&lt;name&gt;</code>.
+     */
+    public synchronized void registerMBean() throws JMException {
+        if (mObjectName != null) {
+            return;
+        }
+        ObjectName name = ObjectName.getInstance("dev.anarchy.ace:type=BridgeMetrics,name=" + ObjectName.quote(mName));
+        ManagementFactory.getPlatformMBeanServer().registerMBean(this, name);
+        mObjectName = name;
+    }
+
+    /**
+     * Removes these metrics from the platform MBean server, if registered.
+     * Metrics already removed from the server by other means are ignored.
+     *
+     * @throws IllegalStateException if the server refuses to remove them.
+     */
+    public synchronized void unregisterMBean() {
+        if (mObjectName == null) {
+            return;
+        }
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        ObjectName name = mObjectName;
+        mObjectName = null;
+        try {
+            server.unregisterMBean(name);
+        } catch (InstanceNotFoundException e) {
+            // Already unregistered through the server
+        } catch (MBeanRegistrationException e) {
+            throw new IllegalStateException("Could not unregister " + name, e);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return mName + getStats();
+    }
+}
@@ -0,0 +1,31 @@
+package dev.anarchy.ace.util;
+
+import java.util.Map;
+
+/**
+ * JMX view of {@link BridgeMetrics}. Per call maps are keyed by call name.
+ */
+public interface BridgeMetricsMXBean {
+
+    String getName();
+
+    long getCallCount();
+
+    long getUpcallCount();
+
+    double getCallMillis();
+
+    double getUpcallMillis();
+
+    Map<String, Long> getCounts();
+
+    Map<String, Double> getMeanMicros();
+
+    Map<String, Long> getP99Micros();
+
+    Map<String, Long> getMaxMicros();
+
+    Map<String, Long> getPayloadChars();
+
+    void reset();
+}
@@ -73,4 +73,46 @@ public class Commons {
         return propList;
     }
 
+    /**
+     * Quotes a string as a JavaScript (and JSON) string literal.
+     *
+     * @param text String to quote. Null is turned in to <code>null</code>.
+     * @return the quoted literal.
+     */
+    public static String toJSString(String text) {
+        if (text == null) {
+            return "null";
+        }
+        StringBuilder sb = new StringBuilder(text.length() + 16);
+        appendJSString(sb, text);
+        return sb.toString();
+    }
+
+    /**
+     * Appends a string quoted as a JavaScript (and JSON) string literal.
+     *
+     * @param sb Builder to append to.
+     * @param text String to quote.
+     */
+    public static void appendJSString(StringBuilder sb, String text) {
+        sb.append('"');
+        for (int i = 0; i < text.length(); ++i) {
+            char c = text.charAt(i);
+            switch (c) {
+                case '"': sb.append("\\\""); break;
+                case '\\': sb.append("\\\\"); break;
+                case '\n': sb.append("\\n"); break;
+                case '\r': sb.append("\\r"); break;
+                case '\t': sb.append("\\t"); break;
+                default:
+                    if (c < 0x20 || c == '\u2028' || c == '\u2029') {
+                        sb.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        sb.append(c);
+                    }
+            }
+        }
+        sb.append('"');
+    }
+
 }
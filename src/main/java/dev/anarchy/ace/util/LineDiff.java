@@ -0,0 +1,197 @@
+package dev.anarchy.ace.util;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import dev.anarchy.ace.model.TextEdit;
+
+/**
+ * Line based diff (Myers) used to turn a full text replacement in to the
+ * smallest set of line edits. Safe to use from any thread.
+ */
+public final class LineDiff {
+
+    // Above this many differences the diff gives up and replaces the whole
+    // differing middle section, to bound time and memory.
+    private static final int MAX_EDIT_DISTANCE = 2000;
+
+    private LineDiff() {
+    }
+
+    /**
+     * Computes the edits turning oldText in to newText. Lines are separated
+     * by '\n'.
+     *
+     * @param oldText Current text.
+     * @param newText Wanted text.
+     * @return non-overlapping edits against oldText, in document order.
+     */
+    public static List<TextEdit> computeEdits(String oldText, String newText) {
+        String[] a = oldText.split("\n", -1);
+        String[] b = newText.split("\n", -1);
+        List<TextEdit> edits = new ArrayList<>();
+        for (int[] hunk : diffLines(a, b)) {
+            edits.add(toEdit(a, b, hunk[0], hunk[1], hunk[2], hunk[3]));
+        }
+        return edits;
+    }
+
+    /**
+     * Computes the differing hunks between two arrays of lines.
+     *
+     * @param a Old lines.
+     * @param b New lines.
+     * @return hunks as <code>{oldStart, oldEnd, newStart, newEnd}</code>
+     * (end exclusive), replacing old lines with new lines, in order.
+     */
+    public static List<int[]> diffLines(String[] a, String[] b) {
+        List<int[]> hunks = new ArrayList<>();
+
+        // Common prefix and suffix are by far the usual case
+        int start = 0;
+        while (start < a.length && start < b.length && a[start].equals(b[start])) {
+            ++start;
+        }
+        int endA = a.length;
+        int endB = b.length;
+        while (endA > start && endB > start && a[endA - 1].equals(b[endB - 1])) {
+            --endA;
+            --endB;
+        }
+        if (start == endA && start == endB) {
+            return hunks;
+        }
+        if (start == endA || start == endB) {
+            hunks.add(new int[] { start, endA, start, endB });
+            return hunks;
+        }
+
+        // Map lines to ids so the main loop compares ints
+        Map<String, Integer> ids = new HashMap<>();
+        int[] x = new int[endA - start];
+        int[] y = new int[endB - start];
+        for (int i = 0; i < x.length; ++i) {
+            x[i] = ids.computeIfAbsent(a[start + i], k -> ids.size());
+        }
+        for (int i = 0; i < y.length; ++i) {
+            y[i] = ids.computeIfAbsent(b[start + i], k -> ids.size());
+        }
+
+        List<int[]> trace = new ArrayList<>();
+        int d = shortestEdit(x, y, trace);
+        if (d < 0) {
+            hunks.add(new int[] { start, endA, start, endB });
+            return hunks;
+        }
+        backtrack(x.length, y.length, trace, start, hunks);
+        return hunks;
+    }
+
+    // Forward pass of Myers' algorithm, keeping the V array of every step
+    private static int shortestEdit(int[] x, int[] y, List<int[]> trace) {
+        int n = x.length;
+        int m = y.length;
+        int max = Math.min(n + m, MAX_EDIT_DISTANCE);
+        int offset = max + 1;
+        int[] v = new int[2 * max + 3];
+        for (int d = 0; d <= max; ++d) {
+            trace.add(v.clone());
+            for (int k = -d; k <= d; k += 2) {
+                int px;
+                if (k == -d || (k != d && v[offset + k - 1] < v[offset + k + 1])) {
+                    px = v[offset + k + 1];
+                } else {
+                    px = v[offset + k - 1] + 1;
+                }
+                int py = px - k;
+                while (px < n && py < m && x[px] == y[py]) {
+                    ++px;
+                    ++py;
+                }
+                v[offset + k] = px;
+                if (px >= n && py >= m) {
+                    return d;
+                }
+            }
+        }
+        return -1;
+    }
+
+    // Walks the trace back and collects runs of non-matching lines as hunks
+    private static void backtrack(int n, int m, List<int[]> trace, int base, List<int[]> hunks) {
+        int offset = (trace.get(0).length - 3) / 2 + 1;
+        int px = n;
+        int py = m;
+        int[] open = null;
+        for (int d = trace.size() - 1; d >= 0; --d) {
+            int[] v = trace.get(d);
+            int k = px - py;
+            int prevK;
+            if (k == -d || (k != d && v[offset + k - 1] < v[offset + k + 1])) {
+                prevK = k + 1;
+            } else {
+                prevK = k - 1;
+            }
+            int prevX = d == 0 ? 0 : v[offset + prevK];
+            int prevY = d == 0 ? 0 : prevX - prevK;
+            while (px > prevX && py > prevY) {
+                open = close(open, hunks, base);
+                --px;
+                --py;
+            }
+            if (d > 0) {
+                if (open == null) {
+                    open = new int[] { px, px, py, py };
+                }
+                open[0] = prevX;
+                open[2] = prevY;
+            }
+            px = prevX;
+            py = prevY;
+        }
+        close(open, hunks, base);
+        Collections.reverse(hunks);
+    }
+
+    private static int[] close(int[] hunk, List<int[]> hunks, int base) {
+        if (hunk != null) {
+            hunks.add(new int[] { base + hunk[0], base + hunk[1], base + hunk[2], base + hunk[3] });
+        }
+        return null;
+    }
+
+    // Turns a line hunk in to a character edit of the old text
+    private static TextEdit toEdit(String[] a, String[] b, int oldStart, int oldEnd, int newStart, int newEnd) {
+        String text = join(b, newStart, newEnd);
+        if (oldStart == oldEnd) {
+            // Pure insertion of whole lines
+            if (oldStart < a.length) {
+                return new TextEdit(oldStart, 0, oldStart, 0, text + "\n");
+            }
+            int last = a.length - 1;
+            return new TextEdit(last, a[last].length(), last, a[last].length(), "\n" + text);
+        }
+        if (newStart == newEnd) {
+            // Pure removal of whole lines, taking one line break with them
+            if (oldEnd < a.length) {
+                return new TextEdit(oldStart, 0, oldEnd, 0, "");
+            }
+            if (oldStart > 0) {
+                return new TextEdit(oldStart - 1, a[oldStart - 1].length(), oldEnd - 1, a[oldEnd - 1].length(), "");
+            }
+        }
+        return new TextEdit(oldStart, 0, oldEnd - 1, a[oldEnd - 1].length(), text);
+    }
+
+    private static String join(String[] lines, int from, int to) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = from; i < to; ++i) {
+            if (i > from) sb.append('\n');
+            sb.append(lines[i]);
+        }
+        return sb.toString();
+    }
+}
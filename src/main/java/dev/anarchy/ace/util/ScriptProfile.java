@@ -0,0 +1,91 @@
+package dev.anarchy.ace.util;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+import dev.anarchy.ace.util.BridgeMetrics.Stats;
+
+/**
+ * Timings measured inside the page of an editor, where the FX profiler can
+ * not see: rendering by theme, tokenizing by mode, and searching. Timings are
+ * collected by <code>acefx-profile.js</code> and received as periodic
+ * summaries, which are added up here by phase. <br/>
+ * Phases are named like <code>render:eclipse</code>,
+ * <code>tokenize:javascript</code>, <code>bgTokenizer:javascript</code> or
+ * <code>search.findAll</code>. Their stats carry no payload.
+ */
+public final class ScriptProfile {
+
+    private final Map<String, Stats> mPhases = new ConcurrentHashMap<>();
+
+    /**
+     * Adds a summary sent by the page. Each line of the summary is
+     * <code>name|count|totalMicros|maxMicros|bucket:count,...</code>.
+     *
+     * @param data Summary text.
+     */
+    public void merge(String data) {
+        int pos = 0;
+        while (pos < data.length()) {
+            int eol = data.indexOf('\n', pos);
+            if (eol < 0) {
+                eol = data.length();
+            }
+            String[] parts = data.substring(pos, eol).split("\\|", -1);
+            pos = eol + 1;
+            if (parts.length < 5) {
+                continue;
+            }
+
+            long[] histogram = new long[Stats.BUCKETS];
+            if (!parts[4].isEmpty()) {
+                for (String bucket : parts[4].split(",")) {
+                    int colon = bucket.indexOf(':');
+                    int index = Math.min(Integer.parseInt(bucket.substring(0, colon)), Stats.BUCKETS - 1);
+                    histogram[index] += Long.parseLong(bucket.substring(colon + 1));
+                }
+            }
+            mPhases.computeIfAbsent(parts[0], k -> new Stats()).merge(Long.parseLong(parts[1]),
+                    Long.parseLong(parts[2]) * 1000, Long.parseLong(parts[3]) * 1000, histogram);
+        }
+    }
+
+    /**
+     * @return timings by phase, sorted by name.
+     */
+    public Map<String, Stats> getPhases() {
+        return Collections.unmodifiableMap(new TreeMap<>(mPhases));
+    }
+
+    /**
+     * @param name Phase name, like "render:eclipse".
+     * @return timings of the phase, or null if it was not measured.
+     */
+    public Stats getPhase(String name) {
+        return mPhases.get(name);
+    }
+
+    /**
+     * @return total time spent in phases whose name starts with the prefix, like "tokenize:", in milliseconds.
+     */
+    public double getMillis(String prefix) {
+        long total = 0;
+        for (Map.Entry<String, Stats> entry : mPhases.entrySet()) {
+            if (entry.getKey().startsWith(prefix)) {
+                total += entry.getValue().getTotalNanos();
+            }
+        }
+        return total / 1_000_000d;
+    }
+
+    public void reset() {
+        mPhases.clear();
+    }
+
+    @Override
+    public String toString() {
+        return getPhases().toString();
+    }
+}
@@ -0,0 +1,177 @@
+package dev.anarchy.ace.jfr;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import jdk.jfr.FlightRecorder;
+import jdk.jfr.FlightRecorderListener;
+import jdk.jfr.Recording;
+import jdk.jfr.RecordingState;
+
+/**
+ * Emits the AceFX Flight Recorder events. Events are only created while a
+ * recording is running, so this costs a single field read otherwise, and
+ * nothing is done on runtimes without Flight Recorder. <br/>
+ * Calls that begin an event return it as an opaque object, or null if the
+ * event is not recorded; it must be passed back to the matching end call.
+ * <br/>
+ * Thresholds and stack traces of the events can be set in a settings file,
+ * see <code>/jfr/acefx.jfc</code>.
+ */
+public final class AceJfr {
+
+    private static final boolean AVAILABLE;
+
+    // Set while at least one recording is running
+    private static volatile boolean sRecording;
+
+    static {
+        boolean available;
+        try {
+            FlightRecorder.addListener(new FlightRecorderListener() {
+                private final Set<Recording> running = new HashSet<>();
+
+                @Override
+                public synchronized void recordingStateChanged(Recording recording) {
+                    if (recording.getState() == RecordingState.RUNNING) {
+                        running.add(recording);
+                    } else {
+                        running.remove(recording);
+                    }
+                    sRecording = !running.isEmpty();
+                }
+            });
+            available = true;
+        } catch (Throwable e) {
+            // Flight Recorder is not part of this runtime
+            available = false;
+        }
+        AVAILABLE = available;
+    }
+
+    private AceJfr() {
+    }
+
+    /**
+     * Returns whether a Flight Recorder recording is running.
+     */
+    public static boolean isRecording() {
+        return AVAILABLE && sRecording;
+    }
+
+    public static Object beginBridgeCall() {
+        if (!isRecording()) {
+            return null;
+        }
+        return begin(new BridgeCallEvent());
+    }
+
+    public static void endBridgeCall(Object event, String editor, String call, long payloadChars) {
+        if (event == null) {
+            return;
+        }
+        BridgeCallEvent e = (BridgeCallEvent) event;
+        e.end();
+        if (e.shouldCommit()) {
+            e.editor = editor;
+            e.call = call;
+            e.payloadChars = payloadChars;
+            e.commit();
+        }
+    }
+
+    public static Object beginEventDispatch() {
+        if (!isRecording()) {
+            return null;
+        }
+        return begin(new EventDispatchEvent());
+    }
+
+    public static void endEventDispatch(Object event, String editor, String upcall, long payloadChars) {
+        if (event == null) {
+            return;
+        }
+        EventDispatchEvent e = (EventDispatchEvent) event;
+        e.end();
+        if (e.shouldCommit()) {
+            e.editor = editor;
+            e.upcall = upcall;
+            e.payloadChars = payloadChars;
+            e.commit();
+        }
+    }
+
+    public static Object beginEditorLoad() {
+        if (!isRecording()) {
+            return null;
+        }
+        return begin(new EditorLoadEvent());
+    }
+
+    public static void endEditorLoad(Object event, String editor, String phase, boolean success) {
+        if (event == null) {
+            return;
+        }
+        EditorLoadEvent e = (EditorLoadEvent) event;
+        e.end();
+        if (e.shouldCommit()) {
+            e.editor = editor;
+            e.phase = phase;
+            e.success = success;
+            e.commit();
+        }
+    }
+
+    public static Object beginSetText() {
+        if (!isRecording()) {
+            return null;
+        }
+        return begin(new SetTextEvent());
+    }
+
+    public static void endSetText(Object event, String editor, long length, boolean incremental, int edits) {
+        if (event == null) {
+            return;
+        }
+        SetTextEvent e = (SetTextEvent) event;
+        e.end();
+        if (e.shouldCommit()) {
+            e.editor = editor;
+            e.length = length;
+            e.incremental = incremental;
+            e.edits = edits;
+            e.commit();
+        }
+    }
+
+    public static Object beginClipboard() {
+        if (!isRecording()) {
+            return null;
+        }
+        return begin(new ClipboardEvent());
+    }
+
+    public static void endClipboard(Object event, String editor, String operation, long length) {
+        if (event == null) {
+            return;
+        }
+        ClipboardEvent e = (ClipboardEvent) event;
+        e.end();
+        if (e.shouldCommit()) {
+            e.editor = editor;
+            e.operation = operation;
+            e.length = length;
+            e.commit();
+        }
+    }
+
+    // Takes an Object so this class loads without jdk.jfr on the class path
+    private static Object begin(Object event) {
+        jdk.jfr.Event e = (jdk.jfr.Event) event;
+        if (!e.isEnabled()) {
+            return null;
+        }
+        e.begin();
+        return e;
+    }
+}
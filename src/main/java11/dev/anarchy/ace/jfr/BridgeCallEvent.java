@@ -0,0 +1,30 @@
+package dev.anarchy.ace.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * A call from java in to the page of an editor.
+ */
+@Name("dev.anarchy.ace.BridgeCall")
+@Label("Ace Bridge Call")
+@Description("Call from java in to the JavaScript of an editor")
+@Category({ "AceFX", "Bridge" })
+@Threshold("1 ms")
+@StackTrace(true)
+class BridgeCallEvent extends jdk.jfr.Event {
+
+    @Label("Editor")
+    String editor;
+
+    @Label("Call")
+    @Description("Wrapper and method called, like EditSession.getValue")
+    String call;
+
+    @Label("Payload Characters")
+    long payloadChars;
+}
@@ -0,0 +1,25 @@
+package dev.anarchy.ace.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * A copy, cut or paste through the system clipboard.
+ */
+@Name("dev.anarchy.ace.Clipboard")
+@Label("Ace Clipboard")
+@Description("Copy, cut or paste of an editor")
+@Category({ "AceFX", "Document" })
+class ClipboardEvent extends jdk.jfr.Event {
+
+    @Label("Editor")
+    String editor;
+
+    @Label("Operation")
+    String operation;
+
+    @Label("Length")
+    long length;
+}
@@ -0,0 +1,28 @@
+package dev.anarchy.ace.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * A phase of loading an editor: "page" while the web view loads the editor
+ * page, "init" while the editor is set up once the page is loaded.
+ */
+@Name("dev.anarchy.ace.EditorLoad")
+@Label("Ace Editor Load")
+@Description("Phase of loading an editor")
+@Category({ "AceFX", "Lifecycle" })
+@StackTrace(false)
+class EditorLoadEvent extends jdk.jfr.Event {
+
+    @Label("Editor")
+    String editor;
+
+    @Label("Phase")
+    String phase;
+
+    @Label("Success")
+    boolean success;
+}
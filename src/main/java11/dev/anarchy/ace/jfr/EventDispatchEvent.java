@@ -0,0 +1,29 @@
+package dev.anarchy.ace.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * An upcall from the page of an editor, with the java listeners it ran.
+ */
+@Name("dev.anarchy.ace.EventDispatch")
+@Label("Ace Event Dispatch")
+@Description("Upcall from the JavaScript of an editor to java")
+@Category({ "AceFX", "Bridge" })
+@Threshold("1 ms")
+@StackTrace(false)
+class EventDispatchEvent extends jdk.jfr.Event {
+
+    @Label("Editor")
+    String editor;
+
+    @Label("Upcall")
+    String upcall;
+
+    @Label("Payload Characters")
+    long payloadChars;
+}
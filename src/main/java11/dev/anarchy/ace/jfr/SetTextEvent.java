@@ -0,0 +1,30 @@
+package dev.anarchy.ace.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Replacement of the whole content of an editor.
+ */
+@Name("dev.anarchy.ace.SetText")
+@Label("Ace Set Text")
+@Description("Replacement of the content of an editor")
+@Category({ "AceFX", "Document" })
+class SetTextEvent extends jdk.jfr.Event {
+
+    @Label("Editor")
+    String editor;
+
+    @Label("Length")
+    @Description("Characters of the new content")
+    long length;
+
+    @Label("Incremental")
+    @Description("Whether only the changed lines were replaced")
+    boolean incremental;
+
+    @Label("Edits")
+    int edits;
+}
@@ -0,0 +1,164 @@
+/*
+ * Timing of Ace internals, shipped to java by AceFX. Must be loaded after
+ * acefx.js. Nothing is measured until profiling is started with
+ * acefx.startProfiling; the timings of the page are then collected by phase
+ * and sent to the editor every interval as compact summaries:
+ *
+ *   name|count|totalMicros|maxMicros|bucket:count,bucket:count...
+ *
+ * one line per phase, with the same power of two microsecond buckets as the
+ * java BridgeMetrics. Phases are:
+ *   render:<theme>      VirtualRenderer.$renderChanges
+ *   tokenize:<mode>     Tokenizer.getLineTokens
+ *   bgTokenizer:<mode>  BackgroundTokenizer.$tokenizeRow
+ *   search.find         Search.find
+ *   search.findAll      Search.findAll
+ */
+(function() {
+    var BUCKETS = 24;
+
+    var VirtualRenderer = ace.require("ace/virtual_renderer").VirtualRenderer;
+    var Tokenizer = ace.require("ace/tokenizer").Tokenizer;
+    var BackgroundTokenizer = ace.require("ace/background_tokenizer").BackgroundTokenizer;
+    var EditSession = ace.require("ace/edit_session").EditSession;
+    var Search = ace.require("ace/search").Search;
+
+    var now = window.performance && performance.now
+        ? function() { return performance.now(); }
+        : function() { return Date.now(); };
+
+    var installed = false;
+    var target = null;
+    var timer = null;
+    var phases = {};
+
+    // Last part of an ace module id, like "javascript" for "ace/mode/javascript"
+    function shortName(id) {
+        if (!id)
+            return "unknown";
+        return id.substring(id.lastIndexOf("/") + 1);
+    }
+
+    function record(name, millis) {
+        var phase = phases[name];
+        if (!phase)
+            phase = phases[name] = {count: 0, total: 0, max: 0, histogram: {}};
+        var micros = Math.floor(millis * 1000);
+        phase.count++;
+        phase.total += micros;
+        if (micros > phase.max)
+            phase.max = micros;
+        var bucket = micros <= 0 ? 0 : Math.min(Math.floor(Math.log(micros) / Math.LN2) + 1, BUCKETS - 1);
+        phase.histogram[bucket] = (phase.histogram[bucket] || 0) + 1;
+    }
+
+    // Replaces a method of a prototype with one timing it under the name
+    // given by name(this), while profiling.
+    function wrap(proto, method, name) {
+        var original = proto[method];
+        proto[method] = function() {
+            if (!target)
+                return original.apply(this, arguments);
+            var start = now();
+            try {
+                return original.apply(this, arguments);
+            } finally {
+                record(name(this), now() - start);
+            }
+        };
+    }
+
+    function install() {
+        if (installed)
+            return;
+        installed = true;
+
+        wrap(VirtualRenderer.prototype, "$renderChanges", function(renderer) {
+            return "render:" + shortName(renderer.$themeId);
+        });
+        wrap(Tokenizer.prototype, "getLineTokens", function(tokenizer) {
+            return "tokenize:" + (tokenizer.$acefxMode || "unknown");
+        });
+        wrap(BackgroundTokenizer.prototype, "$tokenizeRow", function(bgTokenizer) {
+            return "bgTokenizer:" + (bgTokenizer.tokenizer && bgTokenizer.tokenizer.$acefxMode || "unknown");
+        });
+        wrap(Search.prototype, "find", function() { return "search.find"; });
+        wrap(Search.prototype, "findAll", function() { return "search.findAll"; });
+
+        // Label tokenizers with their mode, so their timings can be told apart
+        var onChangeMode = EditSession.prototype.$onChangeMode;
+        EditSession.prototype.$onChangeMode = function(mode) {
+            var result = onChangeMode.apply(this, arguments);
+            var tokenizer = this.bgTokenizer && this.bgTokenizer.tokenizer;
+            if (tokenizer && mode)
+                tokenizer.$acefxMode = shortName(mode.$id);
+            return result;
+        };
+    }
+
+    function summary() {
+        var data = "";
+        for (var name in phases) {
+            var phase = phases[name];
+            var buckets = [];
+            for (var b in phase.histogram)
+                buckets.push(b + ":" + phase.histogram[b]);
+            data += name + "|" + phase.count + "|" + phase.total + "|" + phase.max + "|" + buckets.join(",") + "\n";
+        }
+        return data;
+    }
+
+    function flush() {
+        var data = summary();
+        phases = {};
+        if (data && target && target.mAceEvent)
+            target.mAceEvent.onProfile(data);
+    }
+
+    // Tokenizers created before profiling started have no mode label yet
+    function labelSession(session) {
+        var tokenizer = session.bgTokenizer && session.bgTokenizer.tokenizer;
+        if (tokenizer && !tokenizer.$acefxMode)
+            tokenizer.$acefxMode = shortName(session.$modeId);
+    }
+
+    function stop(editor) {
+        if (target != editor)
+            return;
+        clearInterval(timer);
+        timer = null;
+        flush();
+        target = null;
+    }
+
+    /*
+     * Starts timing the page, sending summaries to the given editor every
+     * interval. Timings are collected for the whole page, so only one editor
+     * receives them.
+     */
+    acefx.startProfiling = function(editor, interval) {
+        install();
+        if (target)
+            stop(target);
+        phases = {};
+        target = editor;
+        labelSession(editor.session);
+        timer = setInterval(flush, interval > 0 ? interval : 1000);
+    };
+
+    /*
+     * Stops timing the page, sending what was collected since the last summary.
+     */
+    acefx.stopProfiling = stop;
+
+    var destroyEditor = acefx.destroyEditor;
+    acefx.destroyEditor = function(editor) {
+        if (target == editor) {
+            clearInterval(timer);
+            timer = null;
+            target = null;
+            phases = {};
+        }
+        return destroyEditor.apply(this, arguments);
+    };
+})();
@@ -0,0 +1,526 @@
+/*
+ * Helpers used by AceFX to do multi step work in a single bridge call.
+ * Must be loaded after ace.js.
+ */
+var acefx = (function() {
+    var Range = ace.require("ace/range").Range;
+
+    // Compact text form of a delta, understood by the java Delta class
+    function serializeDelta(d) {
+        return (d.action == 'insert' ? 'i' : 'r') + ',' + d.start.row + ',' + d.start.column
+            + ',' + d.end.row + ',' + d.end.column + ',' + d.lines.length + '\n' + d.lines.join('\n') + '\n';
+    }
+
+    function parseDeltas(data) {
+        var deltas = [];
+        var pos = 0;
+        while (pos < data.length) {
+            var eol = data.indexOf('\n', pos);
+            var h = data.substring(pos + 2, eol).split(',');
+            var action = data.charAt(pos) == 'i' ? 'insert' : 'remove';
+            pos = eol + 1;
+            var lines = [];
+            for (var i = +h[4]; i > 0; i--) {
+                eol = data.indexOf('\n', pos);
+                lines.push(data.substring(pos, eol));
+                pos = eol + 1;
+            }
+            deltas.push({
+                action: action,
+                start: {row: +h[0], column: +h[1]},
+                end: {row: +h[2], column: +h[3]},
+                lines: lines
+            });
+        }
+        return deltas;
+    }
+
+    // Without options, the new session takes those of the shown one
+    function createSession(editor, text, mode, options) {
+        var session = ace.createEditSession(text);
+        options = options || editor.session.getOptions();
+        delete options.mode;
+        session.setOptions(options);
+        if (mode)
+            session.setMode(mode);
+        return session;
+    }
+
+    // Change events raised while a batch is open are collected and handed to
+    // java in a single upcall once the batch ends.
+    function beginBatch(editor) {
+        if (editor.$acefxDeltas)
+            return false;
+        editor.$acefxDeltas = [];
+        editor.renderer.freeze();
+        return true;
+    }
+
+    function endBatch(editor) {
+        var deltas = editor.$acefxDeltas;
+        editor.$acefxDeltas = null;
+        if (!editor.$acefxPaused) {
+            editor.renderer.unfreeze();
+            editor.renderer.updateFull();
+        }
+        if (deltas && deltas.length && editor.mAceEvent)
+            editor.mAceEvent.onChangeBatch(deltas);
+    }
+
+    function applyOp(session, op) {
+        switch (op[0]) {
+            case "insert":
+                session.insert({row: op[1], column: op[2]}, op[3]);
+                break;
+            case "remove":
+                session.remove(new Range(op[1], op[2], op[3], op[4]));
+                break;
+            case "replace":
+                session.replace(new Range(op[1], op[2], op[3], op[4]), op[5]);
+                break;
+            case "indentRows":
+                session.indentRows(op[1], op[2], op[3]);
+                break;
+            case "outdentRows":
+                session.outdentRows(new Range(op[1], 0, op[2], Infinity));
+                break;
+            case "moveLinesUp":
+                session.moveLinesUp(op[1], op[2]);
+                break;
+            case "moveLinesDown":
+                session.moveLinesDown(op[1], op[2]);
+                break;
+            case "duplicateLines":
+                session.duplicateLines(op[1], op[2]);
+                break;
+            case "removeFullLines":
+                session.removeFullLines(op[1], op[2]);
+                break;
+            default:
+                throw new Error("Unknown operation: " + op[0]);
+        }
+    }
+
+    // Runs fn as one undo group with rendering and change events held back
+    // until it returns.
+    function batch(editor, fn) {
+        var session = editor.session;
+        var undoManager = session.getUndoManager();
+        var outer = beginBatch(editor);
+        if (undoManager && undoManager.startNewGroup)
+            undoManager.startNewGroup();
+        try {
+            return fn(session);
+        } finally {
+            if (session.$syncInformUndoManager)
+                session.$syncInformUndoManager();
+            if (undoManager && undoManager.startNewGroup)
+                undoManager.startNewGroup();
+            if (outer)
+                endBatch(editor);
+        }
+    }
+
+    function noop() {
+    }
+
+    // Background tokenizing is held while paused; rows changed meanwhile are
+    // only marked, and tokenized once the editor is resumed.
+    function holdTokenizer(tokenizer) {
+        tokenizer.stop();
+        tokenizer.scheduleStart = noop;
+        tokenizer.start = function(startRow) {
+            this.currentLine = Math.min(startRow || 0, this.currentLine, this.doc.getLength());
+            this.lines.splice(this.currentLine, this.lines.length);
+            this.states.splice(this.currentLine, this.states.length);
+        };
+    }
+
+    function releaseTokenizer(tokenizer) {
+        delete tokenizer.scheduleStart;
+        delete tokenizer.start;
+        tokenizer.scheduleStart();
+    }
+
+    // Tokenizes the rows on screen, as the first render after a mode change
+    // would. Before the first render, as many rows as fit in the editor.
+    function tokenizeViewport(editor) {
+        var session = editor.session;
+        var renderer = editor.renderer;
+        var first = renderer.getFirstVisibleRow() || 0;
+        var rows = renderer.lineHeight ? Math.ceil(renderer.$size.scrollerHeight / renderer.lineHeight) : 0;
+        var last = Math.min(Math.max(renderer.getLastVisibleRow() || 0, first + rows), session.getLength() - 1);
+        for (var row = first; row <= last; row++)
+            session.getTokens(row);
+    }
+
+    return {
+        // Creates a session sharing the current session's options
+        createSession: createSession,
+
+        // Shows new content in an existing editor, resetting undo history,
+        // selection and scroll. Returns the new number of lines.
+        rebind: function(editor, text, mode, readOnly) {
+            var session = editor.session;
+            var outer = beginBatch(editor);
+            try {
+                if (mode && session.$modeId != mode)
+                    session.setMode(mode);
+                session.doc.setValue(text);
+                if (session.getUndoManager())
+                    session.getUndoManager().reset();
+                editor.selection.moveTo(0, 0);
+                editor.setReadOnly(readOnly);
+                session.setScrollTop(0);
+                session.setScrollLeft(0);
+            } finally {
+                if (outer)
+                    endBatch(editor);
+            }
+            return session.getLength();
+        },
+
+        // Stops rendering, background tokenizing, cursor blinking and the
+        // syntax worker of an editor that is not visible. Changes made while
+        // paused are rendered once on resume.
+        pause: function(editor) {
+            if (editor.$acefxPaused)
+                return;
+            var session = editor.session;
+            editor.$acefxPaused = {session: session, worker: !!session.$worker};
+            editor.renderer.freeze();
+            editor.renderer.$cursorLayer.setBlinking(false);
+            if (session.bgTokenizer)
+                holdTokenizer(session.bgTokenizer);
+            if (session.$worker)
+                session.$stopWorker();
+        },
+
+        resume: function(editor) {
+            var paused = editor.$acefxPaused;
+            if (!paused)
+                return;
+            editor.$acefxPaused = null;
+            if (paused.session.bgTokenizer)
+                releaseTokenizer(paused.session.bgTokenizer);
+            if (paused.worker && paused.session === editor.session && paused.session.$useWorker)
+                paused.session.$startWorker();
+            editor.renderer.$cursorLayer.setBlinking(true);
+            editor.renderer.unfreeze();
+            editor.resize(true);
+            editor.renderer.updateFull();
+        },
+
+        // Destroys an editor and its session and drops every reference the
+        // page holds to java objects
+        destroyEditor: function(editor) {
+            editor.$acefxDeltas = null;
+            editor.destroy();
+            editor.removeAllListeners();
+            delete editor.mAceEvent;
+            if (editor.container.parentNode)
+                editor.container.parentNode.removeChild(editor.container);
+        },
+
+        // Adds an editor to a host page, in a new region below the others
+        createHostedEditor: function(id) {
+            var div = document.createElement("div");
+            div.id = "acefx-editor-" + id;
+            div.className = "acefx-editor";
+            document.getElementById("host").appendChild(div);
+            var editor = ace.edit(div);
+            editor.setTheme("ace/theme/eclipse");
+            editor.setScrollSpeed(0.05);
+            editor.setOptions({minLines: 1, maxLines: Infinity});
+            return editor;
+        },
+
+        // Sets the theme and mode of a hosted editor, skipping either if null
+        setHostedEditorStyle: function(editor, theme, mode) {
+            if (theme)
+                editor.setTheme(theme);
+            if (mode) {
+                var session = editor.session;
+                session.setMode(mode, function() {
+                    if (editor.session == session)
+                        tokenizeViewport(editor);
+                });
+            }
+        },
+
+        // A height of 0 or less sizes the editor to its content
+        setHostedEditorHeight: function(editor, height) {
+            if (height > 0) {
+                editor.setOptions({minLines: null, maxLines: null});
+                editor.container.style.height = height + "px";
+            } else {
+                editor.container.style.height = "";
+                editor.setOptions({minLines: 1, maxLines: Infinity});
+            }
+            editor.resize();
+        },
+
+        // Serialises a session as "metaLength,foldsLength,undoLength,textLength\n"
+        // followed by the four sections. The meta section ends with the session
+        // options as JSON on their own line. Only the last maxUndo undo groups
+        // are kept, and only their text changes.
+        snapshotSession: function(session, maxUndo) {
+            var cursor = session.selection.getCursor();
+            var undoManager = session.getUndoManager();
+            var meta = [session.$modeId || "", cursor.row, cursor.column,
+                Math.round(session.getScrollTop()), Math.round(session.getScrollLeft()),
+                undoManager && undoManager.isClean() ? 1 : 0].join(',')
+                + '\n' + JSON.stringify(session.getOptions());
+            var folds = session.getAllFolds().map(function(f) {
+                return f.start.row + ',' + f.start.column + ',' + f.end.row + ',' + f.end.column;
+            }).join(',');
+
+            var lengths = [];
+            var groups = "";
+            var stack = undoManager && undoManager.$undoStack || [];
+            for (var i = Math.max(0, stack.length - maxUndo); i < stack.length; i++) {
+                var group = "";
+                for (var j = 0; j < stack[i].length; j++) {
+                    var d = stack[i][j];
+                    if (d.action == "insert" || d.action == "remove")
+                        group += serializeDelta(d);
+                }
+                if (group) {
+                    lengths.push(group.length);
+                    groups += group;
+                }
+            }
+            var undo = lengths.join(',') + '\n' + groups;
+            var text = session.getValue();
+            return [meta.length, folds.length, undo.length, text.length].join(',') + '\n' + meta + folds + undo + text;
+        },
+
+        restoreSession: function(editor, meta, folds, undo, text) {
+            var nl = meta.indexOf('\n');
+            var m = (nl < 0 ? meta : meta.substring(0, nl)).split(',');
+            var options = nl < 0 ? null : JSON.parse(meta.substring(nl + 1));
+            var session = createSession(editor, text, m[0] || null, options);
+
+            var undoManager = session.getUndoManager();
+            var eol = undo.indexOf('\n');
+            var lengths = undo.substring(0, eol);
+            if (undoManager && lengths) {
+                var pos = eol + 1;
+                lengths.split(',').forEach(function(length) {
+                    var group = parseDeltas(undo.substr(pos, +length));
+                    pos += +length;
+                    group[0].id = ++undoManager.$maxRev;
+                    undoManager.$undoStack.push(group);
+                });
+                undoManager.$rev = undoManager.$redoStackBaseRev = undoManager.$maxRev;
+            }
+            if (undoManager && m[5] == "1")
+                undoManager.markClean();
+
+            var f = folds ? folds.split(',') : [];
+            for (var i = 0; i + 3 < f.length; i += 4) {
+                try {
+                    session.addFold("...", new Range(+f[i], +f[i + 1], +f[i + 2], +f[i + 3]));
+                } catch (e) {
+                    // fold no longer valid, skip it
+                }
+            }
+            session.selection.moveTo(+m[1], +m[2]);
+            session.setScrollTop(+m[3]);
+            session.setScrollLeft(+m[4]);
+            return session;
+        },
+
+        // Rough size of a session in the JS heap, in bytes
+        estimateSessionBytes: function(session) {
+            var chars = 0;
+            var lines = session.getDocument().$lines;
+            for (var i = 0; i < lines.length; i++)
+                chars += lines[i].length + 1;
+            var undoManager = session.getUndoManager();
+            var stack = undoManager && undoManager.$undoStack || [];
+            for (var i = 0; i < stack.length; i++) {
+                for (var j = 0; j < stack[i].length; j++) {
+                    var l = stack[i][j].lines;
+                    if (l)
+                        for (var k = 0; k < l.length; k++)
+                            chars += l[k].length + 1;
+                }
+            }
+            return chars * 2;
+        },
+
+        // What a session holds, for the java MemoryUsage: document chars and
+        // lines, undo and redo groups, deltas and chars, tokenized rows and
+        // tokens, front and back markers
+        estimateMemoryUsage: function(session) {
+            var lines = session.getDocument().$lines;
+            var chars = 0;
+            for (var i = 0; i < lines.length; i++)
+                chars += lines[i].length + 1;
+
+            var undoManager = session.getUndoManager();
+            var stack = (undoManager && undoManager.$undoStack || [])
+                .concat(undoManager && undoManager.$redoStack || []);
+            var deltas = 0, undoChars = 0;
+            for (var i = 0; i < stack.length; i++) {
+                for (var j = 0; j < stack[i].length; j++) {
+                    var l = stack[i][j].lines;
+                    if (!l)
+                        continue;
+                    deltas++;
+                    for (var k = 0; k < l.length; k++)
+                        undoChars += l[k].length + 1;
+                }
+            }
+
+            var cache = session.bgTokenizer ? session.bgTokenizer.lines : [];
+            var rows = 0, tokens = 0;
+            for (var i = 0; i < cache.length; i++) {
+                if (cache[i]) {
+                    rows++;
+                    tokens += cache[i].length;
+                }
+            }
+
+            return [chars, lines.length, stack.length, deltas, undoChars, rows, tokens,
+                Object.keys(session.getMarkers(true) || {}).length,
+                Object.keys(session.getMarkers(false) || {}).length].join('|');
+        },
+
+        // Sets the theme and mode, reporting through onLoadPhase how long
+        // each took to load once it is in use
+        loadThemeAndMode: function(editor, theme, mode) {
+            var now = window.performance ? function() { return performance.now(); } : Date.now;
+            var start = now();
+            editor.setTheme(theme, function() {
+                editor.mAceEvent.onLoadPhase("theme", now() - start);
+            });
+            editor.session.setMode(mode, function() {
+                tokenizeViewport(editor);
+                editor.mAceEvent.onLoadPhase("mode", now() - start);
+            });
+        },
+
+        // Sets the mode and calls onScriptDone(id) once it is in use and the
+        // rows on screen are tokenized. If the mode is not loaded within
+        // timeout milliseconds, calls onScriptDone(id, mode) instead.
+        setMode: function(editor, mode, id, timeout) {
+            var session = editor.session;
+            var timer;
+            function done(failed) {
+                clearTimeout(timer);
+                if (id != null && editor.mAceEvent)
+                    editor.mAceEvent.onScriptDone(id, failed);
+                id = null;
+            }
+            timer = setTimeout(function() {
+                done(mode);
+            }, timeout);
+            session.setMode(mode, function() {
+                if (id == null)
+                    return;
+                if (editor.session == session)
+                    tokenizeViewport(editor);
+                done(null);
+            });
+        },
+
+        // Loads mode and theme modules ahead of use, given as a comma separated
+        // list of "mode:ace/mode/java" or "theme:ace/theme/monokai". Once all
+        // are loaded, or after timeout milliseconds, calls events.onScriptDone
+        // with the id and the modules that did not load, if events is given.
+        preloadModules: function(modules, events, id, timeout) {
+            var pending = {};
+            var count = 0;
+            var timer;
+            function done() {
+                clearTimeout(timer);
+                if (events)
+                    events.onScriptDone(id, Object.keys(pending).join(','));
+                events = null;
+            }
+            modules.split(',').forEach(function(module) {
+                var split = module.indexOf(':');
+                if (split < 0 || pending[module])
+                    return;
+                pending[module] = true;
+                count++;
+                ace.config.loadModule([module.substring(0, split), module.substring(split + 1)], function() {
+                    if (pending[module]) {
+                        delete pending[module];
+                        if (--count == 0 && events)
+                            done();
+                    }
+                });
+            });
+            if (count == 0)
+                done();
+            else if (events)
+                timer = setTimeout(done, timeout);
+        },
+
+        // Counts rendered frames for the java performance display
+        hudStart: function(editor) {
+            if (editor.$acefxHud)
+                return;
+            var hud = editor.$acefxHud = {frames: 0};
+            hud.onRender = function() { hud.frames++; };
+            editor.renderer.on("afterRender", hud.onRender);
+        },
+
+        hudStop: function(editor) {
+            var hud = editor.$acefxHud;
+            if (!hud)
+                return;
+            editor.renderer.off("afterRender", hud.onRender);
+            editor.$acefxHud = null;
+        },
+
+        // Frames rendered since the last call, document lines, and JS heap
+        // used in bytes: measured when the page can tell, estimated otherwise
+        hudStats: function(editor) {
+            var hud = editor.$acefxHud;
+            var frames = hud ? hud.frames : 0;
+            if (hud)
+                hud.frames = 0;
+            var memory = window.performance && performance.memory;
+            var heap = memory ? memory.usedJSHeapSize : acefx.estimateSessionBytes(editor.session);
+            return frames + "|" + editor.session.getLength() + "|" + heap + "|" + (memory ? "m" : "e");
+        },
+
+        // Applies deltas in the serialised form of the java Delta class, as
+        // one undo group
+        applyDeltas: function(editor, data) {
+            var deltas = parseDeltas(data);
+            batch(editor, function(session) {
+                session.mergeUndoDeltas = true;
+                session.getDocument().applyDeltas(deltas);
+            });
+        },
+
+        // Edits are [startRow, startColumn, endRow, endColumn, text], sorted
+        // bottom-up so earlier positions stay valid while applying.
+        applyEdits: function(editor, json) {
+            var edits = JSON.parse(json);
+            batch(editor, function(session) {
+                var doc = session.getDocument();
+                for (var i = 0; i < edits.length; i++) {
+                    var e = edits[i];
+                    session.mergeUndoDeltas = true;
+                    doc.replace(new Range(e[0], e[1], e[2], e[3]), e[4]);
+                }
+            });
+        },
+
+        transaction: function(editor, json) {
+            var ops = JSON.parse(json);
+            batch(editor, function(session) {
+                for (var i = 0; i < ops.length; i++) {
+                    session.mergeUndoDeltas = true;
+                    applyOp(session, ops[i]);
+                }
+            });
+        }
+    };
+})();
@@ -0,0 +1,68 @@
+package dev.anarchy.ace;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.junit.jupiter.api.Test;
+
+import dev.anarchy.ace.model.DocPos;
+
+public class SessionSnapshotTest {
+
+	@Test
+	public void parsesAllSections() {
+		String meta = "ace/mode/java,3,7,120,4,1\n{\"tabSize\":2,\"useSoftTabs\":false}";
+		String folds = "1,0,2,5";
+		String undo = "5\ni,0,0,0,1,1\nx\n";
+		String text = "line one\nline, two\n\nlast";
+		SessionSnapshot snapshot = SessionSnapshot.parse(snapshot(meta, folds, undo, text));
+
+		assertEquals("ace/mode/java", snapshot.getMode());
+		assertEquals(new DocPos(3, 7), snapshot.getCursor());
+		assertEquals(120, snapshot.getScrollTop());
+		assertEquals(4, snapshot.getScrollLeft());
+		assertEquals(meta, snapshot.getMeta());
+		assertEquals(folds, snapshot.getFolds());
+		assertEquals(undo, snapshot.getUndo());
+		assertEquals(text, snapshot.getText());
+		assertEquals(2L * (meta.length() + folds.length() + undo.length() + text.length()),
+				snapshot.getEstimatedBytes());
+	}
+
+	@Test
+	public void parsesEmptySections() {
+		SessionSnapshot snapshot = SessionSnapshot.parse(snapshot(",0,0,0,0,0", "", "", ""));
+		assertEquals("", snapshot.getMode());
+		assertEquals(new DocPos(0, 0), snapshot.getCursor());
+		assertEquals("", snapshot.getFolds());
+		assertEquals("", snapshot.getUndo());
+		assertEquals("", snapshot.getText());
+	}
+
+	@Test
+	public void parsesMetaWithoutOptions() {
+		SessionSnapshot snapshot = SessionSnapshot.parse(snapshot("ace/mode/text,1,2,3,4,0", "", "", "x"));
+		assertEquals("ace/mode/text", snapshot.getMode());
+		assertEquals(new DocPos(1, 2), snapshot.getCursor());
+		assertEquals(4, snapshot.getScrollLeft());
+	}
+
+	@Test
+	public void keepsNewlinesAndCommasInsideSections() {
+		String text = "3,4,5\n\n1,2\n";
+		SessionSnapshot snapshot = SessionSnapshot.parse(snapshot("ace/mode/text,0,0,0,0,0", "", "", text));
+		assertEquals(text, snapshot.getText());
+	}
+
+	@Test
+	public void rejectsTruncatedData() {
+		String data = snapshot("ace/mode/text,0,0,0,0,0", "", "", "some text");
+		assertThrows(RuntimeException.class, () -> SessionSnapshot.parse(data.substring(0, data.length() - 3)));
+	}
+
+	// Builds the output of acefx.snapshotSession
+	private static String snapshot(String meta, String folds, String undo, String text) {
+		return meta.length() + "," + folds.length() + "," + undo.length() + "," + text.length() + "\n"
+				+ meta + folds + undo + text;
+	}
+}
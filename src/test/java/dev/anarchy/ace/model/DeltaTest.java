@@ -0,0 +1,54 @@
+package dev.anarchy.ace.model;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+public class DeltaTest {
+
+    @Test
+    public void parsesCompactForm() {
+        List<Delta> deltas = Delta.parseAll("i,0,1,1,2,2\nab,c\nxy\nr,3,0,3,4,1\ntext\n");
+        assertEquals(2, deltas.size());
+
+        Delta insert = deltas.get(0);
+        assertTrue(insert.isInsert());
+        assertEquals(0, insert.getStartRow());
+        assertEquals(1, insert.getStartColumn());
+        assertEquals(1, insert.getEndRow());
+        assertEquals(2, insert.getEndColumn());
+        assertArrayEquals(new String[] { "ab,c", "xy" }, insert.getLines());
+
+        Delta remove = deltas.get(1);
+        assertFalse(remove.isInsert());
+        assertEquals(3, remove.getStartRow());
+        assertEquals(4, remove.getEndColumn());
+        assertArrayEquals(new String[] { "text" }, remove.getLines());
+    }
+
+    @Test
+    public void keepsEmptyLines() {
+        // Inserting a single newline
+        Delta delta = Delta.parseAll("i,2,5,3,0,2\n\n\n").get(0);
+        assertArrayEquals(new String[] { "", "" }, delta.getLines());
+    }
+
+    @Test
+    public void serializeRoundTrips() {
+        Delta delta = new Delta(false, 4, 2, 6, 0, new String[] { "tail", "", "" });
+        Delta copy = Delta.parseAll(delta.serialize() + delta.serialize()).get(1);
+        assertEquals(delta.serialize(), copy.serialize());
+        assertArrayEquals(delta.getLines(), copy.getLines());
+    }
+
+    @Test
+    public void parsesNothingFromEmptyData() {
+        assertTrue(Delta.parseAll(null).isEmpty());
+        assertTrue(Delta.parseAll("").isEmpty());
+    }
+}
@@ -0,0 +1,30 @@
+package dev.anarchy.ace.model;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.Test;
+
+public class EditTransactionTest {
+
+    @Test
+    public void recordsEditsInOrder() {
+        EditTransaction transaction = new EditTransaction()
+                .insert(0, 0, "a\"b\n")
+                .remove(new Range(1, 0, 1, 2))
+                .moveLinesUp(3, 4);
+        assertEquals(3, transaction.size());
+        assertEquals("[[\"insert\",0,0,\"a\\\"b\\n\"],[\"remove\",1,0,1,2],[\"moveLinesUp\",3,4]]",
+                transaction.toJSON());
+    }
+
+    @Test
+    public void treatsNullTextAsEmpty() {
+        EditTransaction transaction = new EditTransaction()
+                .insert(0, 0, null)
+                .replace(new Range(0, 0, 0, 3), null)
+                .indentRows(1, 2, null);
+        assertEquals(3, transaction.size());
+        assertEquals("[[\"insert\",0,0,\"\"],[\"replace\",0,0,0,3,\"\"],[\"indentRows\",1,2,\"\"]]",
+                transaction.toJSON());
+    }
+}
@@ -0,0 +1,64 @@
+package dev.anarchy.ace.model;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+public class EditorTest {
+
+    @Test
+    public void insertBeforeReplaceAtSamePositionInAnyOrder() {
+        TextEdit replace = new TextEdit(0, 0, 0, 3, "X");
+        TextEdit insert = new TextEdit(0, 0, 0, 0, "ab");
+
+        List<TextEdit> edits = Arrays.asList(replace, insert);
+        assertArrayEquals(new Integer[] { 1, 0 }, Editor.sortEdits(edits));
+        assertArrayEquals(new int[] { 0, 2, 0, 3, 0, 0, 0, 2 },
+                Editor.mapEdits(edits, Editor.sortEdits(edits)).toArray());
+
+        edits = Arrays.asList(insert, replace);
+        assertArrayEquals(new Integer[] { 0, 1 }, Editor.sortEdits(edits));
+        assertArrayEquals(new int[] { 0, 0, 0, 2, 0, 2, 0, 3 },
+                Editor.mapEdits(edits, Editor.sortEdits(edits)).toArray());
+    }
+
+    @Test
+    public void insertAtEndOfReplaceDoesNotOverlap() {
+        List<TextEdit> edits = Arrays.asList(new TextEdit(0, 3, 0, 3, "!"), new TextEdit(0, 0, 0, 3, "X"));
+        assertArrayEquals(new Integer[] { 1, 0 }, Editor.sortEdits(edits));
+        assertArrayEquals(new int[] { 0, 1, 0, 2, 0, 0, 0, 1 },
+                Editor.mapEdits(edits, Editor.sortEdits(edits)).toArray());
+    }
+
+    @Test
+    public void insertsAtSamePositionKeepTheirOrder() {
+        List<TextEdit> edits = Arrays.asList(new TextEdit(1, 2, 1, 2, "a"), new TextEdit(1, 2, 1, 2, "b"));
+        assertArrayEquals(new Integer[] { 0, 1 }, Editor.sortEdits(edits));
+        assertArrayEquals(new int[] { 1, 2, 1, 3, 1, 3, 1, 4 },
+                Editor.mapEdits(edits, Editor.sortEdits(edits)).toArray());
+    }
+
+    @Test
+    public void rejectsOverlappingEdits() {
+        List<TextEdit> edits = Arrays.asList(new TextEdit(0, 0, 0, 3, "a"), new TextEdit(0, 2, 0, 5, "b"));
+        assertThrows(IllegalArgumentException.class, () -> Editor.sortEdits(edits));
+        List<TextEdit> inside = Arrays.asList(new TextEdit(0, 0, 1, 0, "a"), new TextEdit(0, 4, 0, 4, "b"));
+        assertThrows(IllegalArgumentException.class, () -> Editor.sortEdits(inside));
+    }
+
+    @Test
+    public void remapsRowsAndColumnsAfterMultilineEdits() {
+        // "one\ntwo\nthree": join the first two lines, then insert two lines
+        // in the middle of the last one
+        List<TextEdit> edits = Arrays.asList(
+                new TextEdit(2, 2, 2, 2, "x\ny\nz"),
+                new TextEdit(0, 3, 1, 0, " "),
+                new TextEdit(1, 3, 1, 3, "!"));
+        assertArrayEquals(new int[] { 1, 2, 3, 1, 0, 3, 0, 4, 0, 7, 0, 8 },
+                Editor.mapEdits(edits, Editor.sortEdits(edits)).toArray());
+    }
+}
@@ -0,0 +1,92 @@
+package dev.anarchy.ace.model;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+public class LineIndexTest {
+
+    @Test
+    public void convertsBetweenOffsetsAndPositions() {
+        LineIndex index = new LineIndex("ab\n\ncde");
+        assertEquals(3, index.getLineCount());
+        assertEquals(7, index.getLength());
+        assertEquals(new DocPos(0, 2), index.indexToPosition(2));
+        assertEquals(new DocPos(1, 0), index.indexToPosition(3));
+        assertEquals(new DocPos(2, 1), index.indexToPosition(5));
+        assertEquals(5, index.positionToIndex(2, 1));
+        assertEquals(4, index.getLineStart(2));
+    }
+
+    @Test
+    public void clampsOutsideTheDocument() {
+        LineIndex index = new LineIndex("ab\ncd");
+        assertEquals(new DocPos(0, 0), index.indexToPosition(-4));
+        assertEquals(new DocPos(1, 2), index.indexToPosition(100));
+        assertEquals(0, index.positionToIndex(-1, 3));
+        assertEquals(2, index.positionToIndex(0, 99));
+        assertEquals(5, index.positionToIndex(7, 0));
+    }
+
+    @Test
+    public void followsRandomEdits() {
+        Random random = new Random(42);
+        String text = "first line\nsecond\n\nlast";
+        LineIndex index = new LineIndex(text);
+        for (int i = 0; i < 2000; ++i) {
+            Delta delta = randomDelta(random, text);
+            text = apply(text, delta);
+            index.applyDelta(delta);
+            assertMatches(text, index);
+        }
+    }
+
+    private static Delta randomDelta(Random random, String text) {
+        LineIndex reference = new LineIndex(text);
+        int start = random.nextInt(text.length() + 1);
+        DocPos from = reference.indexToPosition(start);
+        if (random.nextBoolean() || text.isEmpty()) {
+            String[] samples = { "x", "yz", "\n", "a\nb", "\n\n", "line\nmore\n" };
+            String inserted = samples[random.nextInt(samples.length)];
+            DocPos to = endOf(from, inserted);
+            return new Delta(true, from.getRow(), from.getColumn(), to.getRow(), to.getColumn(), inserted.split("\n", -1));
+        }
+        int end = Math.min(text.length(), start + random.nextInt(8));
+        DocPos to = reference.indexToPosition(end);
+        return new Delta(false, from.getRow(), from.getColumn(), to.getRow(), to.getColumn(),
+                text.substring(start, end).split("\n", -1));
+    }
+
+    private static DocPos endOf(DocPos start, String inserted) {
+        String[] lines = inserted.split("\n", -1);
+        if (lines.length == 1) {
+            return new DocPos(start.getRow(), start.getColumn() + inserted.length());
+        }
+        return new DocPos(start.getRow() + lines.length - 1, lines[lines.length - 1].length());
+    }
+
+    private static String apply(String text, Delta delta) {
+        LineIndex reference = new LineIndex(text);
+        int start = reference.positionToIndex(delta.getStartRow(), delta.getStartColumn());
+        String lines = String.join("\n", delta.getLines());
+        if (delta.isInsert()) {
+            return text.substring(0, start) + lines + text.substring(start);
+        }
+        return text.substring(0, start) + text.substring(start + lines.length());
+    }
+
+    private static void assertMatches(String text, LineIndex index) {
+        String[] lines = text.split("\n", -1);
+        assertEquals(lines.length, index.getLineCount());
+        assertEquals(text.length(), index.getLength());
+        int offset = 0;
+        for (int row = 0; row < lines.length; ++row) {
+            assertEquals(lines[row].length(), index.getLineLength(row));
+            assertEquals(offset, index.getLineStart(row));
+            assertEquals(new DocPos(row, lines[row].length()), index.indexToPosition(offset + lines[row].length()));
+            offset += lines[row].length() + 1;
+        }
+    }
+}
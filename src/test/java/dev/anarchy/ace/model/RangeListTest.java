@@ -0,0 +1,82 @@
+package dev.anarchy.ace.model;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+public class RangeListTest {
+
+    private static RangeList list(int... data) {
+        RangeList list = new RangeList(1);
+        for (int i = 0; i < data.length; i += 4) {
+            list.add(data[i], data[i + 1], data[i + 2], data[i + 3]);
+        }
+        return list;
+    }
+
+    @Test
+    public void sortsByStartThenEnd() {
+        RangeList list = list(2, 0, 2, 5, 0, 0, 1, 0, 0, 0, 0, 3);
+        list.sort();
+        assertArrayEquals(new int[] { 0, 0, 0, 3, 0, 0, 1, 0, 2, 0, 2, 5 }, list.toArray());
+    }
+
+    @Test
+    public void mergeJoinsOverlappingAndTouchingRanges() {
+        RangeList list = list(3, 0, 4, 0, 0, 0, 0, 5, 0, 5, 1, 0, 0, 2, 0, 3, 6, 0, 6, 1);
+        list.merge();
+        assertArrayEquals(new int[] { 0, 0, 1, 0, 3, 0, 4, 0, 6, 0, 6, 1 }, list.toArray());
+    }
+
+    @Test
+    public void intersectKeepsNonEmptyOverlaps() {
+        RangeList a = list(0, 0, 0, 10, 2, 0, 3, 0);
+        RangeList b = list(0, 5, 2, 4, 3, 0, 4, 0);
+        assertArrayEquals(new int[] { 0, 5, 0, 10, 2, 0, 2, 4 }, a.intersect(b).toArray());
+    }
+
+    @Test
+    public void indexOfFindsContainingRange() {
+        RangeList list = list(0, 0, 0, 5, 1, 0, 2, 0);
+        assertEquals(0, list.indexOf(0, 0));
+        assertEquals(-2, list.indexOf(0, 5));
+        assertEquals(1, list.indexOf(1, 7));
+        assertEquals(-3, list.indexOf(2, 0));
+    }
+
+    @Test
+    public void parseIntsReadsSignedValues() {
+        assertArrayEquals(new int[] { 12, -3, 0, 40 }, RangeList.parseInts("12,-3,0,40", 4));
+        assertArrayEquals(new int[] { 1, 2, 3 }, RangeList.parseInts("1,2,3", -1));
+        assertArrayEquals(new int[] { 0, 0 }, RangeList.parseInts("", 2));
+    }
+
+    @Test
+    public void parseIntsClampsInfinityAndOverflow() {
+        assertArrayEquals(new int[] { 4, Integer.MAX_VALUE, Integer.MIN_VALUE, Integer.MAX_VALUE },
+                RangeList.parseInts("4,Infinity,-Infinity,99999999999", 4));
+    }
+
+    @Test
+    public void parseIntsRejectsNonIntegers() {
+        assertThrows(IllegalArgumentException.class, () -> RangeList.parseInts("1,NaN", 2));
+        assertThrows(IllegalArgumentException.class, () -> RangeList.parseInts("1.5,2", 2));
+        assertThrows(IllegalArgumentException.class, () -> RangeList.parseInts("1,,2", 3));
+    }
+
+    @Test
+    public void rangesAreValuesInHashSets() {
+        Set<Range> set = new HashSet<>();
+        set.add(new Range(1, 2, 3, 4));
+        assertEquals(1, set.size());
+        assertEquals(new Range(1, 2, 3, 4), list(1, 2, 3, 4).get(0));
+        assertEquals(true, set.contains(new Range(1, 2, 3, 4)));
+        assertNotEquals(new DocPos(1, 2), new DocPos(2, 1));
+    }
+}
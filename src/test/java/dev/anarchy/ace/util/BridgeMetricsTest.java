@@ -0,0 +1,72 @@
+package dev.anarchy.ace.util;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.Test;
+
+public class BridgeMetricsTest {
+
+    @Test
+    public void emptyStatsHaveNoPercentiles() {
+        BridgeMetrics.Stats stats = new BridgeMetrics.Stats();
+        assertEquals(0, stats.getPercentileMicros(50));
+        assertEquals(0, stats.getPercentileMicros(99));
+        assertEquals(0, stats.getMeanMicros(), 0);
+    }
+
+    @Test
+    public void percentilesGiveTheUpperBoundOfTheirBucket() {
+        BridgeMetrics.Stats stats = new BridgeMetrics.Stats();
+        // 90 calls of 3us, 9 of 100us and 1 of 5ms
+        for (int i = 0; i < 90; ++i) {
+            stats.record(3_000, 0);
+        }
+        for (int i = 0; i < 9; ++i) {
+            stats.record(100_000, 0);
+        }
+        stats.record(5_000_000, 0);
+
+        assertEquals(4, stats.getPercentileMicros(0));
+        assertEquals(4, stats.getPercentileMicros(50));
+        assertEquals(4, stats.getPercentileMicros(90));
+        assertEquals(128, stats.getPercentileMicros(91));
+        assertEquals(128, stats.getPercentileMicros(99));
+        assertEquals(8192, stats.getPercentileMicros(99.5));
+        assertEquals(8192, stats.getPercentileMicros(100));
+        assertEquals(5_000_000, stats.getMaxNanos());
+    }
+
+    @Test
+    public void subMicrosecondCallsFallInTheFirstBucket() {
+        BridgeMetrics.Stats stats = new BridgeMetrics.Stats();
+        stats.record(400, 0);
+        stats.record(999, 0);
+        assertEquals(1, stats.getPercentileMicros(100));
+        assertEquals(2, stats.getHistogram()[0]);
+    }
+
+    @Test
+    public void slowCallsAreClampedToTheLastBucket() {
+        BridgeMetrics.Stats stats = new BridgeMetrics.Stats();
+        stats.record(Long.MAX_VALUE / 2, 0);
+        assertEquals(1L << (BridgeMetrics.Stats.BUCKETS - 1), stats.getPercentileMicros(50));
+    }
+
+    @Test
+    public void mergeAddsHistograms() {
+        BridgeMetrics.Stats stats = new BridgeMetrics.Stats();
+        stats.record(3_000, 10);
+        long[] histogram = new long[BridgeMetrics.Stats.BUCKETS];
+        histogram[2] = 3;
+        stats.merge(3, 9_000, 3_500, histogram);
+
+        long[] expected = new long[BridgeMetrics.Stats.BUCKETS];
+        expected[2] = 4;
+        assertArrayEquals(expected, stats.getHistogram());
+        assertEquals(4, stats.getCount());
+        assertEquals(3, stats.getMeanMicros(), 0);
+        assertEquals(3_500, stats.getMaxNanos());
+        assertEquals(10, stats.getPayloadChars());
+    }
+}
@@ -0,0 +1,94 @@
+package dev.anarchy.ace.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import dev.anarchy.ace.model.LineIndex;
+import dev.anarchy.ace.model.TextEdit;
+
+public class LineDiffTest {
+
+    @Test
+    public void identicalTextNeedsNoEdits() {
+        assertTrue(LineDiff.computeEdits("a\nb\nc", "a\nb\nc").isEmpty());
+        assertTrue(LineDiff.computeEdits("", "").isEmpty());
+    }
+
+    @Test
+    public void changesOnlyTheDifferingLines() {
+        List<TextEdit> edits = LineDiff.computeEdits("a\nb\nc\nd", "a\nB\nc\nd");
+        assertEquals(1, edits.size());
+        TextEdit edit = edits.get(0);
+        assertEquals(1, edit.getStartRow());
+        assertEquals(1, edit.getEndRow());
+        assertEquals("B", edit.getText());
+    }
+
+    @Test
+    public void insertsAndRemovesWholeLines() {
+        assertDiff("a\nb", "a\nb\nc");
+        assertDiff("a\nb", "x\na\nb");
+        assertDiff("a\nb\nc", "a\nc");
+        assertDiff("a\nb\nc", "a\nb");
+        assertDiff("a\nb\nc", "b\nc");
+        assertDiff("a", "");
+        assertDiff("", "a\nb");
+    }
+
+    @Test
+    public void matchesRandomChanges() {
+        Random random = new Random(7);
+        String[] words = { "alpha", "beta", "gamma", "", "delta" };
+        for (int i = 0; i < 500; ++i) {
+            List<String> lines = randomLines(random, words);
+            List<String> changed = new ArrayList<>(lines);
+            for (int j = random.nextInt(6); j > 0; --j) {
+                int at = random.nextInt(changed.size() + 1);
+                switch (random.nextInt(3)) {
+                case 0:
+                    changed.add(at, words[random.nextInt(words.length)]);
+                    break;
+                case 1:
+                    if (at < changed.size() && changed.size() > 1) changed.remove(at);
+                    break;
+                default:
+                    if (at < changed.size()) changed.set(at, words[random.nextInt(words.length)] + j);
+                }
+            }
+            assertDiff(String.join("\n", lines), String.join("\n", changed));
+        }
+    }
+
+    private static List<String> randomLines(Random random, String[] words) {
+        List<String> lines = new ArrayList<>();
+        for (int i = random.nextInt(12) + 1; i > 0; --i) {
+            lines.add(words[random.nextInt(words.length)]);
+        }
+        return lines;
+    }
+
+    private static void assertDiff(String oldText, String newText) {
+        List<TextEdit> edits = LineDiff.computeEdits(oldText, newText);
+        assertEquals(newText, apply(oldText, edits), () -> "Edits " + Arrays.toString(edits.toArray()));
+    }
+
+    // Applies the edits bottom-up, as Editor.applyEdits does
+    private static String apply(String text, List<TextEdit> edits) {
+        LineIndex index = new LineIndex(text);
+        StringBuilder sb = new StringBuilder(text);
+        for (int i = edits.size() - 1; i >= 0; --i) {
+            TextEdit edit = edits.get(i);
+            int start = index.positionToIndex(edit.getStartRow(), edit.getStartColumn());
+            int end = index.positionToIndex(edit.getEndRow(), edit.getEndColumn());
+            sb.replace(start, end, edit.getText());
+        }
+        return sb.toString();
+    }
+}